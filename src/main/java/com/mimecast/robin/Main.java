@@ -1,6 +1,7 @@
 package com.mimecast.robin;
 
 import com.mimecast.robin.main.ClientCLI;
+import com.mimecast.robin.main.LoadCLI;
 import com.mimecast.robin.main.ServerCLI;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.DefaultParser;
@@ -17,11 +18,12 @@ import java.util.Optional;
 /**
  * Main runnable.
  *
- * <p>This implements the commandline --client and --server options.
+ * <p>This implements the commandline --client, --load and --server options.
  * <p>Further CLI options are implemented individually within each component.
  *
  * @see ServerCLI
  * @see ClientCLI
+ * @see LoadCLI
  */
 @SuppressWarnings("squid:S106")
 public class Main {
@@ -72,6 +74,12 @@ public class Main {
                 new ClientCLI(this);
             }
 
+            // Run load client.
+            else if (cmd.hasOption("load")) {
+                purgeArg("--load");
+                new LoadCLI(this);
+            }
+
             // Run server.
             else if (cmd.hasOption("server")) {
                 purgeArg("--server");
@@ -99,6 +107,7 @@ public class Main {
     private Options options() {
         Options options = new Options();
         options.addOption(null, "client", false, "Run as client");
+        options.addOption(null, "load", false, "Run as load client");
         options.addOption(null, "server", false, "Run as server");
         return options;
     }
@@ -12,8 +12,17 @@ import com.mimecast.robin.smtp.transaction.TransactionList;
 import com.mimecast.robin.util.Magic;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 /**
@@ -23,6 +32,7 @@ import java.util.regex.Pattern;
  * <p>It will read the assertions from the configuration and try to assert them against SMTP transactions and external logs.
  * <p>External logs are only assertable given a client that can provide the logs.
  * <p>The intent of this was initially to fetch and assert MTA logs but was generified.
+ * <p>External assertions of a list run concurrently under an optional case deadline.
  *
  * @see Connection
  * @see ExternalClient
@@ -45,6 +55,16 @@ public class Assert {
      */
     protected Boolean skip = false;
 
+    /**
+     * External assertions deadline in epoch milliseconds or 0 for none.
+     */
+    protected long deadline = 0L;
+
+    /**
+     * External assertions executor.
+     */
+    private static ExecutorService executor;
+
     /**
      * Constructs a new Assert instance with given Connection.
      *
@@ -71,6 +91,9 @@ public class Assert {
      * @throws AssertException Assertion exception.
      */
     public Assert run() throws AssertException {
+        long timeout = Config.getProperties().getLongProperty("externalTimeout", 0L);
+        deadline = timeout > 0 ? System.currentTimeMillis() + timeout * 1000L : 0L;
+
         if (!connection.getSession().getAssertions().isEmpty()) {
             assertProtocol(connection.getSession().getAssertions().getProtocol(), connection.getSession().getSessionTransactionList());
         }
@@ -186,6 +209,8 @@ public class Assert {
 
     /**
      * Assert external if any with given assertions list and transaction id.
+     * <p>Independent assertions run concurrently and the first failure cancels the rest.
+     * <p>Assertions using magic saved by a sibling run one after another in order.
      *
      * @param assertions    List of BasicConfig instances.
      * @param transactionId Transaction ID.
@@ -194,6 +219,9 @@ public class Assert {
     private void assertExternal(List<BasicConfig> assertions, int transactionId) throws AssertException {
         if (Factories.getExternalKeys().isEmpty() || skip) return; // Skip asserting and exit gracefully.
 
+        boolean sequential = isDependent(assertions);
+        List<ExternalClient> clients = new ArrayList<>();
+
         List<String> keys = Factories.getExternalKeys();
         for (BasicConfig assertion : assertions) {
             if (!assertion.isEmpty() && keys.contains(assertion.getStringProperty("type"))) {
@@ -203,13 +231,119 @@ public class Assert {
                     if (transactionId >= 0) {
                         client.setTransactionId(transactionId);
                     }
-                    client.run();
-                    skip = client.skip();
+                    client.setDeadline(deadline);
+
+                    if (sequential) {
+                        client.run();
+                        skip = client.skip();
+                    } else {
+                        clients.add(client);
+                    }
 
                 } else {
                     throw new AssertException("Assert external client not instanciated");
                 }
             }
         }
+
+        runExternal(clients);
+    }
+
+    /**
+     * Run external clients concurrently.
+     *
+     * @param clients List of ExternalClient instances.
+     * @throws AssertException Assertion exception.
+     */
+    private void runExternal(List<ExternalClient> clients) throws AssertException {
+        if (clients.size() == 1) {
+            clients.get(0).run();
+            skip = clients.get(0).skip();
+            return;
+        }
+
+        Map<String, String> context = ThreadContext.getImmutableContext();
+        CompletionService<ExternalClient> service = new ExecutorCompletionService<>(getExecutor());
+        List<Future<ExternalClient>> futures = new ArrayList<>();
+        for (ExternalClient client : clients) {
+            futures.add(service.submit(() -> {
+                ThreadContext.putAll(context);
+                try {
+                    client.run();
+                    return client;
+                } finally {
+                    ThreadContext.clearMap();
+                }
+            }));
+        }
+
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                ExternalClient client = service.take().get();
+                skip = skip || client.skip();
+            }
+
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof AssertException) {
+                throw (AssertException) e.getCause();
+            }
+            throw new AssertException(e.getCause());
+
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new AssertException("Assert external interrupted");
+        }
+    }
+
+    /**
+     * Do any assertions use magic saved by another.
+     *
+     * @param assertions List of BasicConfig instances.
+     * @return Boolean.
+     */
+    @SuppressWarnings("rawtypes")
+    private boolean isDependent(List<BasicConfig> assertions) {
+        List<String> names = new ArrayList<>();
+        for (BasicConfig assertion : assertions) {
+            for (Object magic : assertion.getListProperty("magic")) {
+                if (magic instanceof Map && ((Map) magic).get("name") != null) {
+                    names.add("{$" + ((Map) magic).get("name"));
+                }
+            }
+        }
+
+        if (!names.isEmpty()) {
+            for (BasicConfig assertion : assertions) {
+                String string = assertion.getMap().toString();
+                for (String name : names) {
+                    if (string.contains(name)) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets external assertions executor.
+     * <p>Pool size is configured via externalThreads property.
+     *
+     * @return ExecutorService instance.
+     */
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            int threads = Config.getProperties().getLongProperty("externalThreads", 8L).intValue();
+            executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+                Thread thread = new Thread(runnable, "assert-external");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return executor;
     }
 }
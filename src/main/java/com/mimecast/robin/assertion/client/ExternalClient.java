@@ -44,6 +44,11 @@ public abstract class ExternalClient {
      */
     protected Boolean skip = false;
 
+    /**
+     * Deadline in epoch milliseconds or 0 for none.
+     */
+    protected long deadline = 0L;
+
     /**
      * Sets Connection.
      *
@@ -78,6 +83,18 @@ public abstract class ExternalClient {
         return this;
     }
 
+    /**
+     * Sets deadline.
+     * <p>Polling stops once past it.
+     *
+     * @param deadline Deadline in epoch milliseconds or 0 for none.
+     * @return Self.
+     */
+    public ExternalClient setDeadline(long deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
     /**
      * Runs assertions.
      *
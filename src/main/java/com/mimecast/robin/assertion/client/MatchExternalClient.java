@@ -4,9 +4,12 @@ import com.mimecast.robin.assertion.AssertException;
 import com.mimecast.robin.assertion.AssertExternalGroup;
 import com.mimecast.robin.config.BasicConfig;
 import com.mimecast.robin.config.assertion.external.MatchExternalClientConfig;
+import com.mimecast.robin.util.Backoff;
 import com.mimecast.robin.util.Magic;
+import com.mimecast.robin.util.PatternPrefilter;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,6 +19,10 @@ import java.util.regex.Pattern;
 /**
  * Match external client.
  * <p>This provides a means to match regular expressions against strings.
+ * <p>Lines are prefiltered on the literals patterns require so most regexes never run.
+ * <p>Matching stops as soon as all match groups matched.
+ *
+ * @see PatternPrefilter
  */
 public abstract class MatchExternalClient extends ExternalClient {
 
@@ -40,6 +47,12 @@ public abstract class MatchExternalClient extends ExternalClient {
     protected final List<AssertExternalGroup> matchGroups = new ArrayList<>();
     protected final List<AssertExternalGroup> refuseGroups = new ArrayList<>();
 
+    /**
+     * Match and refuse pattern prefilters.
+     */
+    protected PatternPrefilter matchPrefilter;
+    protected PatternPrefilter refusePrefilter;
+
     /**
      * Sets config instance.
      *
@@ -52,6 +65,15 @@ public abstract class MatchExternalClient extends ExternalClient {
         return this;
     }
 
+    /**
+     * Gets polling backoff for configured wait, delay and retry.
+     *
+     * @return Backoff instance.
+     */
+    protected Backoff getBackoff() {
+        return new Backoff(config.getWait(), config.getDelay(), config.getRetry(), deadline);
+    }
+
     /**
      * Run matches.
      *
@@ -59,9 +81,28 @@ public abstract class MatchExternalClient extends ExternalClient {
      * @throws AssertException Assertion exception.
      */
     public void runMatches(List<String> list) throws AssertException {
+        compileMatches();
+        checkMatches(list);
+    }
+
+    /**
+     * Precompile match and refuse patterns and their prefilters.
+     */
+    protected void compileMatches() {
         compilePatterns(config.getMatch(connection.getSession()), matchGroups); // Precompile match patterns for performance.
         compilePatterns(config.getRefuse(), refuseGroups); // Precompile refuse patterns for performance.
+        matchPrefilter = compilePrefilter(matchGroups); // Literal prefilter to skip lines that cannot match.
+        refusePrefilter = compilePrefilter(refuseGroups);
+    }
 
+    /**
+     * Check precompiled matches.
+     * <p>Match groups already matched while data was read are kept.
+     *
+     * @param list List of String.
+     * @throws AssertException Assertion exception.
+     */
+    protected void checkMatches(List<String> list) throws AssertException {
         checkPatterns(list, true); // Match patterns to log lines.
         checkPatterns(list, false); // Refuse patterns to log lines.
 
@@ -97,6 +138,21 @@ public abstract class MatchExternalClient extends ExternalClient {
         }
     }
 
+    /**
+     * Compile prefilter for all patterns of given groups in order.
+     *
+     * @param groups List of AssertGroup instances.
+     * @return PatternPrefilter instance.
+     */
+    protected PatternPrefilter compilePrefilter(List<AssertExternalGroup> groups) {
+        List<Pattern> patterns = new ArrayList<>();
+        for (AssertExternalGroup group : groups) {
+            patterns.addAll(group.getPatterns());
+        }
+
+        return new PatternPrefilter(patterns);
+    }
+
     /**
      * Check data is complete.
      *
@@ -143,8 +199,14 @@ public abstract class MatchExternalClient extends ExternalClient {
      * @throws AssertException Assertion exception.
      */
     protected void checkPatterns(List<String> list, boolean positive) throws AssertException {
-        if (list != null) {
+        List<AssertExternalGroup> groups = positive ? matchGroups : refuseGroups;
+        if (list != null && !groups.isEmpty()) {
             for (String line : list) {
+                // Stop once all groups matched.
+                if (positive && groups.stream().allMatch(AssertExternalGroup::hasMatched)) {
+                    break;
+                }
+
                 matchPatterns(line, positive);
             }
 
@@ -169,27 +231,45 @@ public abstract class MatchExternalClient extends ExternalClient {
     protected void matchPatterns(String entry, boolean positive) throws AssertException {
         // Choose positive or negative matching groups
         List<AssertExternalGroup> groups = positive ? matchGroups : refuseGroups;
+        PatternPrefilter prefilter = positive ? matchPrefilter : refusePrefilter;
+        if (prefilter == null) {
+            prefilter = compilePrefilter(groups);
+        }
+
+        // Candidate patterns whose literals are found in entry.
+        BitSet candidates = prefilter.candidates(entry);
 
+        int offset = 0;
         for (AssertExternalGroup group : groups) {
             // Skip matched.
             if (!group.hasMatched()) {
 
                 // Loop and match.
-                matchEntry(group, entry, positive);
+                matchEntry(group, entry, positive, candidates, offset);
             }
+            offset += group.getPatterns().size();
         }
     }
 
     /**
      * Match data entry to pattern group.
      *
-     * @param group    AssertGroup instance.
-     * @param entry    Log entry.
-     * @param positive Success on match.
+     * @param group      AssertGroup instance.
+     * @param entry      Log entry.
+     * @param positive   Success on match.
+     * @param candidates BitSet of candidate pattern indexes.
+     * @param offset     Index of group first pattern in prefilter.
      * @throws AssertException Assertion exception.
      */
-    protected void matchEntry(AssertExternalGroup group, String entry, boolean positive) throws AssertException {
-        for (Pattern pattern : group.getPatterns()) {
+    protected void matchEntry(AssertExternalGroup group, String entry, boolean positive, BitSet candidates, int offset) throws AssertException {
+        for (int i = 0; i < group.getPatterns().size(); i++) {
+            Pattern pattern = group.getPatterns().get(i);
+
+            // Skip non candidates and already matched.
+            if (!candidates.get(offset + i) || group.getMatched().contains(pattern)) {
+                continue;
+            }
+
             Matcher m = pattern.matcher(entry);
             if (m.find()) {
                 group.addMatched(pattern);
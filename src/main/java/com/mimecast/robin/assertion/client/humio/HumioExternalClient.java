@@ -4,7 +4,7 @@ import com.mimecast.robin.assertion.AssertException;
 import com.mimecast.robin.assertion.client.logs.LogsExternalClient;
 import com.mimecast.robin.config.BasicConfig;
 import com.mimecast.robin.config.assertion.external.logs.LogsExternalClientConfig;
-import com.mimecast.robin.util.Sleep;
+import com.mimecast.robin.util.Backoff;
 import org.json.JSONArray;
 
 import java.util.ArrayList;
@@ -55,10 +55,9 @@ public class HumioExternalClient extends LogsExternalClient {
 
         } else {
             data = new ArrayList<>();
-            long delay = config.getWait() > 0 ? config.getWait() * 1000L : 0L;
-            for (int count = 0; count < config.getRetry(); count++) {
-                Sleep.nap((int) delay);
-                log.info("AssertExternal logs fetch attempt {} of {}", count + 1, config.getRetry());
+            Backoff backoff = getBackoff();
+            while (backoff.next()) {
+                log.info("AssertExternal logs fetch attempt {} of {}", backoff.getAttempt(), config.getRetry());
 
                 JSONArray jsonArray = humioClient.run();
                 if (jsonArray != null && !jsonArray.isEmpty()) {
@@ -76,8 +75,7 @@ public class HumioExternalClient extends LogsExternalClient {
 
                 if (verifyNone) break;
 
-                delay = config.getDelay() * 1000L; // Retry delay.
-                log.info("AssertExternal logs fetch verify {}", (count < config.getRetry() - 1 ? "failure" : "attempts spent"));
+                log.info("AssertExternal logs fetch verify {}", (!backoff.isLast() ? "failure" : "attempts spent"));
             }
 
             if (data.isEmpty()) {
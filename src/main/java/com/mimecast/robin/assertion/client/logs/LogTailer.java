@@ -0,0 +1,407 @@
+package com.mimecast.robin.assertion.client.logs;
+
+import com.mimecast.robin.util.UIDExtractor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Log file tailer.
+ *
+ * <p>Shared per log file across assertions and remembers how far the file was read.
+ * <p>Each call only reads data appended since the previous one.
+ * <p>Lines are indexed once by the UID extracted with the UIDExtractor pattern as they are read.
+ * <p>UIDs missing from the index are matched as substrings, backfilled once and then kept up to date.
+ * <p>Only line offsets are kept and lines are read back on lookup.
+ * <p>A trailing line without a line break is held as pending until completed.
+ *
+ * @see LogsExternalClient
+ */
+public class LogTailer {
+    private static final Logger log = LogManager.getLogger(LogTailer.class);
+
+    /**
+     * Read buffer size.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Maximum UIDs indexed by pattern.
+     */
+    private static final int INDEX_SIZE = 100000;
+
+    /**
+     * Maximum UIDs matched as substrings.
+     */
+    private static final int WATCHED_SIZE = 64;
+
+    /**
+     * Tailers by path.
+     */
+    private static final Map<String, LogTailer> tailers = new ConcurrentHashMap<>();
+
+    /**
+     * Log file path.
+     */
+    private final Path path;
+
+    /**
+     * Line offsets by pattern extracted UID.
+     */
+    private final Map<String, Offsets> index = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Offsets> eldest) {
+            return size() > INDEX_SIZE;
+        }
+    };
+
+    /**
+     * Line offsets by substring matched UID.
+     */
+    private final Map<String, Offsets> watched = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Offsets> eldest) {
+            return size() > WATCHED_SIZE;
+        }
+    };
+
+    /**
+     * End offset of last complete line read.
+     */
+    private long offset = 0L;
+
+    /**
+     * Trailing line without line break if any.
+     */
+    private String pending;
+
+    /**
+     * Gets tailer for given log file.
+     *
+     * @param path Log file path.
+     * @return LogTailer instance.
+     */
+    public static LogTailer getInstance(String path) {
+        return tailers.computeIfAbsent(Paths.get(path).toAbsolutePath().toString(), k -> new LogTailer(Paths.get(k)));
+    }
+
+    /**
+     * Constructs a new LogTailer instance.
+     *
+     * @param path Log file path.
+     */
+    LogTailer(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Gets lines for given UID.
+     *
+     * @param uid UID string.
+     * @return List of String.
+     * @throws IOException Unable to read file.
+     */
+    public synchronized List<String> getLines(String uid) throws IOException {
+        tail();
+
+        Offsets offsets = getOffsets(uid);
+        if (offsets == null) {
+            final Offsets found = new Offsets();
+            scan(0L, offset, (start, line) -> {
+                if (line.contains(uid)) found.add(start);
+            });
+            watched.put(uid, found);
+            offsets = found;
+        }
+
+        List<String> lines = readLines(offsets);
+        if (pending != null && pending.contains(uid)) {
+            lines.add(pending);
+        }
+
+        return lines;
+    }
+
+    /**
+     * Gets offset of first line known for given UID.
+     * <p>Does not backfill so UIDs not seen yet give the start of the file.
+     *
+     * @param uid UID string.
+     * @return Offset.
+     * @throws IOException Unable to read file.
+     */
+    public synchronized long getOffset(String uid) throws IOException {
+        tail();
+
+        Offsets offsets = getOffsets(uid);
+        return offsets != null && offsets.size > 0 ? offsets.values[0] : 0L;
+    }
+
+    /**
+     * Gets known line offsets for given UID.
+     * <p>Substring matches take precedence as they also cover indexed lines read since.
+     *
+     * @param uid UID string.
+     * @return Offsets instance or null.
+     */
+    private Offsets getOffsets(String uid) {
+        Offsets offsets = watched.get(uid);
+        return offsets != null ? offsets : index.get(uid);
+    }
+
+    /**
+     * Read complete lines from given offset.
+     *
+     * @param from     Offset to read from.
+     * @param consumer Line consumer.
+     * @return Offset to read from next time.
+     * @throws IOException Unable to read file.
+     */
+    public synchronized long read(long from, Consumer<String> consumer) throws IOException {
+        tail();
+
+        if (from > offset) {
+            from = 0L; // File was truncated.
+        }
+        scan(from, offset, (start, line) -> consumer.accept(line));
+
+        return offset;
+    }
+
+    /**
+     * Gets trailing line without line break.
+     *
+     * @return String or null.
+     */
+    public synchronized String getPending() {
+        return pending;
+    }
+
+    /**
+     * Read and index data appended since last time.
+     *
+     * @throws IOException Unable to read file.
+     */
+    private void tail() throws IOException {
+        long size = Files.size(path);
+        if (size < offset) {
+            log.info("Log file truncated, reindexing: {}", path);
+            index.clear();
+            watched.clear();
+            offset = 0L;
+        }
+
+        long start = offset;
+        offset = scan(offset, size, (lineOffset, line) -> {
+            String uid = UIDExtractor.getUID(line);
+            if (uid != null) {
+                index.computeIfAbsent(uid, k -> new Offsets()).add(lineOffset);
+            }
+
+            for (Map.Entry<String, Offsets> entry : watched.entrySet()) {
+                if (line.contains(entry.getKey())) {
+                    entry.getValue().add(lineOffset);
+                }
+            }
+        });
+
+        pending = offset < size ? readLine(offset, size) : null;
+        if (offset > start) {
+            log.debug("Log file tailed {} bytes: {}", offset - start, path);
+        }
+    }
+
+    /**
+     * Scan complete lines in given range.
+     *
+     * @param from     Start offset.
+     * @param to       End offset.
+     * @param consumer Line consumer.
+     * @return End offset of last complete line.
+     * @throws IOException Unable to read file.
+     */
+    private long scan(long from, long to, LineConsumer consumer) throws IOException {
+        if (from >= to) {
+            return from;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            byte[] line = new byte[256];
+            int length = 0;
+            long lineStart = from;
+            long position = from;
+
+            while (position < to) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), to - position));
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+
+                byte[] bytes = buffer.array();
+                for (int i = 0; i < read; i++) {
+                    if (bytes[i] == '\n') {
+                        consumer.accept(lineStart, decode(line, length));
+                        length = 0;
+                        lineStart = position + i + 1;
+
+                    } else {
+                        if (length == line.length) {
+                            line = Arrays.copyOf(line, line.length * 2);
+                        }
+                        line[length++] = bytes[i];
+                    }
+                }
+                position += read;
+            }
+
+            return lineStart;
+        }
+    }
+
+    /**
+     * Read lines at given offsets.
+     *
+     * @param offsets Offsets instance.
+     * @return List of String.
+     * @throws IOException Unable to read file.
+     */
+    private List<String> readLines(Offsets offsets) throws IOException {
+        List<String> lines = new ArrayList<>(offsets.size);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (int i = 0; i < offsets.size; i++) {
+                lines.add(readLine(channel, offsets.values[i], offset));
+            }
+        }
+
+        return lines;
+    }
+
+    /**
+     * Read line at given offset.
+     *
+     * @param from Line start offset.
+     * @param to   Maximum end offset.
+     * @return String.
+     * @throws IOException Unable to read file.
+     */
+    private String readLine(long from, long to) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readLine(channel, from, to);
+        }
+    }
+
+    /**
+     * Read line at given offset up to line break or maximum end offset.
+     *
+     * @param channel FileChannel instance.
+     * @param from    Line start offset.
+     * @param to      Maximum end offset.
+     * @return String.
+     * @throws IOException Unable to read file.
+     */
+    private static String readLine(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        byte[] line = new byte[256];
+        int length = 0;
+        long position = from;
+
+        while (position < to) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), to - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n') {
+                    return decode(line, length);
+                }
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, line.length * 2);
+                }
+                line[length++] = bytes[i];
+            }
+            position += read;
+        }
+
+        return decode(line, length);
+    }
+
+    /**
+     * Decode line bytes stripping trailing carriage return.
+     *
+     * @param bytes  Byte array.
+     * @param length Length.
+     * @return String.
+     */
+    private static String decode(byte[] bytes, int length) {
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+
+        return new String(bytes, 0, length, Charset.defaultCharset());
+    }
+
+    /**
+     * Line consumer with line start offset.
+     */
+    @FunctionalInterface
+    private interface LineConsumer {
+
+        /**
+         * Accept line.
+         *
+         * @param start Line start offset.
+         * @param line  Line string.
+         */
+        void accept(long start, String line);
+    }
+
+    /**
+     * Growable line offsets.
+     */
+    private static class Offsets {
+
+        /**
+         * Offset values.
+         */
+        private long[] values = new long[4];
+
+        /**
+         * Offset count.
+         */
+        private int size = 0;
+
+        /**
+         * Add offset.
+         *
+         * @param value Offset.
+         */
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
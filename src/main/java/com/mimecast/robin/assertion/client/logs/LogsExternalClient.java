@@ -5,12 +5,11 @@ import com.mimecast.robin.assertion.client.MatchExternalClient;
 import com.mimecast.robin.config.BasicConfig;
 import com.mimecast.robin.config.assertion.external.logs.LogsExternalClientConfig;
 import com.mimecast.robin.main.Config;
+import com.mimecast.robin.util.Backoff;
 import com.mimecast.robin.util.Magic;
-import com.mimecast.robin.util.Sleep;
+import com.mimecast.robin.util.PatternPrefilter;
 import com.mimecast.robin.util.UIDExtractor;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
@@ -21,6 +20,10 @@ import java.util.stream.Collectors;
 /**
  * Logs external client.
  * <p>This provides a means to fetch the logs from a local file.
+ * <p>Logs are read through a shared tailer so retries only read newly appended lines.
+ * <p>Grep assertions with a known UID start reading from its first logged line.
+ *
+ * @see LogTailer
  */
 public class LogsExternalClient extends MatchExternalClient {
 
@@ -110,21 +113,38 @@ public class LogsExternalClient extends MatchExternalClient {
             log.error("AssertExternal logs.local.dir not found in properties");
 
         } else {
-            long delay = config.getWait() > 0 ? config.getWait() * 1000L : 0L;
-            for (int count = 0; count < config.getRetry(); count++) {
-                Sleep.nap((int) delay);
-                log.info("AssertExternal logs fetching locally");
+            LogTailer tailer = LogTailer.getInstance(path);
+            String uid = UIDExtractor.getUID(connection, transactionId);
+            Map<Pattern, String> patterns = getGreps();
+            PatternPrefilter prefilter = new PatternPrefilter(new ArrayList<>(patterns.keySet()));
+
+            // Lines matched so far and where to continue reading from on retry.
+            List<String> matched = new ArrayList<>();
+            long offset = -1L;
 
-                try (BufferedReader br = new BufferedReader(new FileReader(path))) {
-                    String uid = UIDExtractor.getUID(connection, transactionId);
-                    Map<Pattern, String> patterns = getGreps();
+            Backoff backoff = getBackoff();
+            while (backoff.next()) {
+                log.info("AssertExternal logs fetching locally");
 
-                    String line;
+                try {
                     data.clear();
-                    while ((line = br.readLine()) != null) {
-                        String finalLine = line;
-                        if ((patterns.isEmpty() && (uid == null || line.contains(uid))) || patterns.keySet().stream().allMatch(pattern -> pattern.matcher(finalLine).find())) {
-                            data.add(line);
+                    if (patterns.isEmpty() && uid != null) {
+                        data.addAll(tailer.getLines(uid));
+
+                    } else {
+                        if (offset < 0L) {
+                            offset = uid != null ? tailer.getOffset(uid) : 0L; // Skip lines logged before the UID.
+                        }
+                        offset = tailer.read(offset, line -> {
+                            if (prefilter.findAll(line)) {
+                                matched.add(line);
+                            }
+                        });
+                        data.addAll(matched);
+
+                        String pending = tailer.getPending();
+                        if (pending != null && prefilter.findAll(pending)) {
+                            data.add(pending);
                         }
                     }
 
@@ -151,8 +171,7 @@ public class LogsExternalClient extends MatchExternalClient {
                     break;
                 }
 
-                delay = config.getDelay() * 1000L; // Retry delay.
-                log.info("AssertExternal logs fetch verify {}", (count < config.getRetry() - 1 ? "failure" : "attempts spent"));
+                log.info("AssertExternal logs fetch verify {}", (!backoff.isLast() ? "failure" : "attempts spent"));
 
                 if (!assertVerifyFails) {
                     skip = true;
@@ -1,7 +1,7 @@
 package com.mimecast.robin.assertion.client.request;
 
-import com.google.gson.Gson;
 import com.mimecast.robin.assertion.AssertException;
+import com.mimecast.robin.assertion.AssertExternalGroup;
 import com.mimecast.robin.assertion.client.MatchExternalClient;
 import com.mimecast.robin.config.BasicConfig;
 import com.mimecast.robin.config.assertion.external.MatchExternalClientConfig;
@@ -9,15 +9,14 @@ import com.mimecast.robin.config.client.RequestConfig;
 import com.mimecast.robin.http.HttpResponse;
 import com.mimecast.robin.main.RequestBase;
 import com.mimecast.robin.smtp.session.Session;
-import com.mimecast.robin.util.MapUtils;
-import com.mimecast.robin.util.Sleep;
+import com.mimecast.robin.util.Backoff;
+import com.mimecast.robin.util.JsonFlattener;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Request external client.
@@ -77,11 +76,12 @@ public class RequestExternalClient extends MatchExternalClient {
 
     /**
      * Run assertions.
+     * <p>JSON responses are flattened while streamed and only entries under the configured paths are kept.
+     * <p>Reading stops once verify passed and all match groups matched if no refuse or magic needs the rest.
      *
      * @throws AssertException Assertion exception.
      */
     @Override
-    @SuppressWarnings("unchecked")
     public void run() throws AssertException {
         if (!config.checkCondition(connection)) {
             log.info("Condition not met, skipping: {}", config.getStringProperty("condition"));
@@ -91,28 +91,16 @@ public class RequestExternalClient extends MatchExternalClient {
         List<String> data = new ArrayList<>();
         HttpResponse httpResponse = makeRequest();
 
+        // Precompile verify patterns for performance.
+        compileVerify();
+
         // Path based data collection for JSON format.
+        boolean verified = false;
+        boolean json = false;
         String responseCT = httpResponse.getHeaders().get("Content-Type");
         if (responseCT != null && responseCT.toLowerCase().contains("/json")) {
-
-            // Parse JSON.
-            Map<String, Object> map = new Gson().fromJson(httpResponse.getBody(), Map.class);
-            if (map != null && !map.isEmpty()) {
-
-                // Flatten map.
-                MapUtils.flattenMap(map, "", data);
-
-                // Filter data.
-                List<String> paths = config.getListProperty("paths");
-                data = data.stream().filter(s -> {
-                    for (String path : paths) {
-                        if (s.startsWith(path)) {
-                            return true;
-                        }
-                    }
-                    return false;
-                }).collect(Collectors.toList());
-            }
+            json = true;
+            verified = streamJson(httpResponse.getBody(), data);
         }
 
         // Treat data as text and split into lines if any.
@@ -132,14 +120,15 @@ public class RequestExternalClient extends MatchExternalClient {
         }
         // Verify found data.
         else {
-            // Precompile verify patterns for performance.
-            compileVerify();
-
-            if (checkVerify(data)) {
+            if (json ? verified : checkVerify(data)) {
                 log.debug("AssertExternal request response verify success");
                 logResults(data);
 
-                runMatches(data);
+                if (json) {
+                    checkMatches(data);
+                } else {
+                    runMatches(data);
+                }
             }
 
             // Skip fail on verify.
@@ -150,6 +139,50 @@ public class RequestExternalClient extends MatchExternalClient {
         }
     }
 
+    /**
+     * Stream JSON body into data verifying and matching entries as they are read.
+     *
+     * @param body JSON string.
+     * @param data List of String to collect entries.
+     * @return True if verify passed.
+     * @throws AssertException Assertion exception.
+     */
+    @SuppressWarnings("unchecked")
+    protected boolean streamJson(String body, List<String> data) throws AssertException {
+        compileMatches();
+        boolean needsAll = !refuseGroups.isEmpty() || !config.getMagic().isEmpty();
+        boolean[] verified = {false};
+
+        try {
+            List<String> paths = (List<String>) config.getListProperty("paths");
+            boolean complete = new JsonFlattener(paths).flatten(new StringReader(body), entry -> {
+                data.add(entry);
+                if (!verified[0]) {
+                    verified[0] = checkVerifyEntry(entry);
+                }
+
+                if (!matchGroups.stream().allMatch(AssertExternalGroup::hasMatched)) {
+                    try {
+                        matchPatterns(entry, true);
+                    } catch (AssertException e) {
+                        // Positive matching does not throw.
+                    }
+                }
+
+                return needsAll || !verified[0] || !matchGroups.stream().allMatch(AssertExternalGroup::hasMatched);
+            });
+
+            if (!complete) {
+                log.debug("AssertExternal request response read stopped early after {} entries", data.size());
+            }
+
+        } catch (IOException | IllegalStateException e) {
+            throw new AssertException("Unable to parse JSON response: " + e.getMessage());
+        }
+
+        return verified[0];
+    }
+
     /**
      * Makes HTTP request
      *
@@ -159,22 +192,18 @@ public class RequestExternalClient extends MatchExternalClient {
     protected HttpResponse makeRequest() throws AssertException {
         HttpResponse httpResponse = null;
 
-        long delay = config.getWait() > 0 ? config.getWait() * 1000L : 0L;
-        for (int count = 0; count < config.getRetry(); count++) {
-            Sleep.nap((int) delay);
-            log.info("AssertExternal request attempt {} of {}", count + 1, config.getRetry());
+        Backoff backoff = getBackoff();
+        while (backoff.next()) {
+            log.info("AssertExternal request attempt {} of {}", backoff.getAttempt(), config.getRetry());
 
             try {
                 RequestConfig requestConfig = new RequestConfig(config.getMapProperty("request"), connection.getSession());
                 httpResponse = new RequestClient(connection.getSession())
                         .request(requestConfig);
 
-                // Retry delay if needed.
-                delay = config.getDelay() * 1000L;
-
                 // Verify response.
                 if (httpResponse == null || !httpResponse.isSuccessfull()) {
-                    log.info("AssertExternal request verify {}", (count < config.getRetry() - 1 ? "failure" : "attempts spent"));
+                    log.info("AssertExternal request verify {}", (!backoff.isLast() ? "failure" : "attempts spent"));
                     continue;
                 }
 
@@ -58,6 +58,8 @@ public class ConfigMapper {
                 .setPort(config.getPort())
                 .setTls(config.isTls())
                 .setAuthBeforeTls(config.isAuthBeforeTls())
+                .setPipelining(config.isPipelining())
+                .setPool(config.isPool())
                 .setProtocols(config.getProtocols())
                 .setCiphers(config.getCiphers());
 
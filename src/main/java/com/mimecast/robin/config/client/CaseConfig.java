@@ -220,6 +220,24 @@ public class CaseConfig extends ConfigFoundation {
         return getBooleanProperty("authBeforeTls", false);
     }
 
+    /**
+     * Is PIPELINING.
+     *
+     * @return Boolean.
+     */
+    public boolean isPipelining() {
+        return getBooleanProperty("pipelining", false);
+    }
+
+    /**
+     * Is connection pooling.
+     *
+     * @return Boolean.
+     */
+    public boolean isPool() {
+        return getBooleanProperty("pool", false);
+    }
+
     /**
      * Gets TLS protocols to enable.
      *
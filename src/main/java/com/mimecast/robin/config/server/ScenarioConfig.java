@@ -3,8 +3,12 @@ package com.mimecast.robin.config.server;
 import com.mimecast.robin.config.BasicConfig;
 import com.mimecast.robin.config.ConfigFoundation;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
 
 /**
  * Server scenario configuration container.
@@ -13,12 +17,18 @@ import java.util.Map;
  * <p>One instance will be made for every scenario defined.
  * <p>This can be used to define specific behaviours for the server.
  * <p>As in when to reject a command and with what response.
+ * <p>RCPT values are compiled to patterns once on construction.
  *
  * @see ServerConfig
  */
 @SuppressWarnings("unchecked")
 public class ScenarioConfig extends ConfigFoundation {
 
+    /**
+     * RCPT patterns in RCPT list order.
+     */
+    private final List<Pattern> rcptPatterns;
+
     /**
      * Constructs a new ScenarioConfig instance with given map.
      *
@@ -27,6 +37,12 @@ public class ScenarioConfig extends ConfigFoundation {
     @SuppressWarnings("rawtypes")
     public ScenarioConfig(Map map) {
         super(map);
+
+        List<Pattern> patterns = new ArrayList<>();
+        for (Map<String, String> entry : getRcpt()) {
+            patterns.add(entry.get("value") != null ? Pattern.compile(entry.get("value")) : null);
+        }
+        rcptPatterns = Collections.unmodifiableList(patterns);
     }
 
     /**
@@ -85,6 +101,25 @@ public class ScenarioConfig extends ConfigFoundation {
         return getListProperty("rcpt");
     }
 
+    /**
+     * Gets RCPT response for given address.
+     * <p>Response of the first RCPT entry whose value fully matches the address.
+     *
+     * @param address Address string.
+     * @return Optional of response string.
+     */
+    public Optional<String> getRcptResponse(String address) {
+        List<Map<String, String>> rcpt = getRcpt();
+        for (int i = 0; i < rcptPatterns.size(); i++) {
+            Pattern pattern = rcptPatterns.get(i);
+            if (pattern != null && pattern.matcher(address).matches()) {
+                return Optional.ofNullable(rcpt.get(i).get("response"));
+            }
+        }
+
+        return Optional.empty();
+    }
+
     /**
      * Gets DATA response.
      * <p>If none defined the server will 250.
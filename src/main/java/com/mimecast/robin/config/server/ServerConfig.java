@@ -11,6 +11,8 @@ import java.util.*;
  *
  * <p>This class provides type safe access to server configuration.
  * <p>It also maps authentication users and behaviour scenarios to corresponding objects.
+ * <p>Users and scenarios are compiled once on construction into immutable collections.
+ * <p>Instances are treated as snapshots and replaced as a whole when the configuration file changes.
  *
  * @see UserConfig
  * @see ScenarioConfig
@@ -18,11 +20,27 @@ import java.util.*;
 @SuppressWarnings("unchecked")
 public class ServerConfig extends ConfigFoundation {
 
+    /**
+     * Users list.
+     */
+    private List<UserConfig> users;
+
+    /**
+     * Users by username.
+     */
+    private Map<String, UserConfig> usersIndex;
+
+    /**
+     * Scenarios by HELO/EHLO.
+     */
+    private Map<String, ScenarioConfig> scenarios;
+
     /**
      * Constructs a new ServerConfig instance.
      */
     public ServerConfig() {
         super();
+        compile();
     }
 
     /**
@@ -33,6 +51,34 @@ public class ServerConfig extends ConfigFoundation {
      */
     public ServerConfig(String path) throws IOException {
         super(path);
+        compile();
+    }
+
+    /**
+     * Compile users and scenarios.
+     */
+    @SuppressWarnings("rawtypes")
+    private void compile() {
+        if (map == null) {
+            map = new HashMap<>(); // Empty file.
+        }
+
+        List<UserConfig> userList = new ArrayList<>();
+        Map<String, UserConfig> userMap = new HashMap<>();
+        for (Map<String, String> user : (List<Map<String, String>>) getListProperty("users")) {
+            UserConfig userConfig = new UserConfig(user);
+            userList.add(userConfig);
+            userMap.putIfAbsent(userConfig.getName(), userConfig);
+        }
+        users = Collections.unmodifiableList(userList);
+        usersIndex = Collections.unmodifiableMap(userMap);
+
+        Map<String, ScenarioConfig> scenarioMap = new HashMap<>();
+        for (Object object : getMapProperty("scenarios").entrySet()) {
+            Map.Entry entry = (Map.Entry) object;
+            scenarioMap.put((String) entry.getKey(), new ScenarioConfig((Map) entry.getValue()));
+        }
+        scenarios = Collections.unmodifiableMap(scenarioMap);
     }
 
     /**
@@ -98,6 +144,47 @@ public class ServerConfig extends ConfigFoundation {
         return Math.toIntExact(getLongProperty("threadKeepAliveTime", 60L));
     }
 
+    /**
+     * Is non-blocking listener enabled.
+     * <p>Parks idle connections on a selector instead of a thread each.
+     *
+     * @return Boolean.
+     */
+    public boolean isNio() {
+        return getStringProperty("engine", "socket").equalsIgnoreCase("nio");
+    }
+
+    /**
+     * Is virtual threads executor enabled.
+     * <p>Runs each receipt on its own virtual thread instead of the thread pool.
+     *
+     * @return Boolean.
+     */
+    public boolean isVirtualThreads() {
+        return getStringProperty("executor", "pool").equalsIgnoreCase("virtual");
+    }
+
+    /**
+     * Gets maximum connections.
+     * <p>Only used with virtual threads executor or non-blocking listener.
+     *
+     * @return Maximum concurrent connections.
+     */
+    public int getMaximumConnections() {
+        return Math.toIntExact(getLongProperty("maximumConnections", 10000L));
+    }
+
+    /**
+     * Gets backlog policy.
+     * <p>Defines what happens to connections over the maximum connections limit.
+     * <p>Wait leaves them in the socket backlog while reject answers with a 421 and closes.
+     *
+     * @return Policy string (wait or reject).
+     */
+    public String getBacklogPolicy() {
+        return getStringProperty("backlogPolicy", "wait");
+    }
+
     /**
      * Gets transactions limit.
      * <p>This defines how many commands will be processed before breaking receipt loop.
@@ -178,10 +265,6 @@ public class ServerConfig extends ConfigFoundation {
      * @return Users list.
      */
     public List<UserConfig> getUsers() {
-        List<UserConfig> users = new ArrayList<>();
-        for (Map<String, String> user : (List<Map<String, String>>) getListProperty("users")) {
-            users.add(new UserConfig(user));
-        }
         return users;
     }
 
@@ -192,12 +275,7 @@ public class ServerConfig extends ConfigFoundation {
      * @return Optional of UserConfig.
      */
     public Optional<UserConfig> getUser(String find) {
-        for (UserConfig user : getUsers()) {
-            if (user.getName().equals(find)) {
-                return Optional.of(user);
-            }
-        }
-        return Optional.empty();
+        return find != null ? Optional.ofNullable(usersIndex.get(find)) : Optional.empty();
     }
 
     /**
@@ -205,13 +283,7 @@ public class ServerConfig extends ConfigFoundation {
      *
      * @return Scenarios map.
      */
-    @SuppressWarnings("rawtypes")
     public Map<String, ScenarioConfig> getScenarios() {
-        Map<String, ScenarioConfig> scenarios = new HashMap<>();
-        for (Object object : getMapProperty("scenarios").entrySet()) {
-            Map.Entry entry = (Map.Entry) object;
-            scenarios.put((String) entry.getKey(), new ScenarioConfig((Map) entry.getValue()));
-        }
         return scenarios;
     }
 }
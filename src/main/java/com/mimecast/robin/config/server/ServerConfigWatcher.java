@@ -0,0 +1,146 @@
+package com.mimecast.robin.config.server;
+
+import com.mimecast.robin.main.Config;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server configuration watcher.
+ *
+ * <p>Watches the server configuration file and reloads it when changed.
+ * <p>The new configuration is compiled in full and swapped in atomically.
+ * <p>Connections pick it up on their next lookup while in flight ones keep their scenario.
+ * <p>Files that fail to parse or are empty are ignored and the previous configuration is kept.
+ *
+ * @see ServerConfig
+ */
+public final class ServerConfigWatcher {
+    private static final Logger log = LogManager.getLogger(ServerConfigWatcher.class);
+
+    /**
+     * Protected constructor.
+     */
+    private ServerConfigWatcher() {
+        throw new IllegalStateException("Static class");
+    }
+
+    /**
+     * Quiet period in milliseconds to let writes settle before reloading.
+     */
+    private static final long SETTLE = 250L;
+
+    /**
+     * Watcher thread.
+     */
+    private static Thread thread;
+
+    /**
+     * Start watching given server configuration file.
+     *
+     * @param path Server configuration file path.
+     */
+    public static synchronized void start(String path) {
+        if (thread != null) {
+            return;
+        }
+
+        Path file = Paths.get(path).toAbsolutePath();
+        WatchService service;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+            file.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            log.error("Server config watcher unable to start: {}", e.getMessage());
+            return;
+        }
+
+        thread = new Thread(() -> watch(service, file), "config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Server config watcher started for: {}", file);
+    }
+
+    /**
+     * Watch loop.
+     *
+     * @param service WatchService instance.
+     * @param file    Server configuration file path.
+     */
+    private static void watch(WatchService service, Path file) {
+        try (WatchService watchService = service) {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                boolean changed = isChanged(key, file);
+
+                // Coalesce events of the same save.
+                while (changed && (key = watchService.poll(SETTLE, TimeUnit.MILLISECONDS)) != null) {
+                    isChanged(key, file);
+                }
+
+                if (changed) {
+                    reload(file.toString());
+                }
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+        } catch (IOException e) {
+            log.error("Server config watcher error: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Is given file among key events.
+     * <p>Resets the key.
+     *
+     * @param key  WatchKey instance.
+     * @param file Server configuration file path.
+     * @return Boolean.
+     */
+    private static boolean isChanged(WatchKey key, Path file) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+
+        return changed;
+    }
+
+    /**
+     * Reload server configuration from given file.
+     *
+     * @param path Server configuration file path.
+     * @return True if reloaded.
+     */
+    public static boolean reload(String path) {
+        try {
+            ServerConfig config = new ServerConfig(path);
+            if (config.isEmpty()) {
+                log.warn("Server config reload skipped empty file: {}", path);
+                return false;
+            }
+
+            Config.setServer(config);
+            log.info("Server config reloaded: {}", path);
+            return true;
+
+        } catch (IOException | RuntimeException e) {
+            log.error("Server config reload failed, keeping previous: {}", e.getMessage());
+            return false;
+        }
+    }
+}
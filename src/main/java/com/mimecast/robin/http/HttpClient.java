@@ -2,6 +2,8 @@ package com.mimecast.robin.http;
 
 import com.google.gson.Gson;
 import com.mimecast.robin.config.BasicConfig;
+import com.mimecast.robin.main.Config;
+import com.mimecast.robin.smtp.security.TLSContextCache;
 import okhttp3.*;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.logging.log4j.LogManager;
@@ -9,21 +11,53 @@ import org.apache.logging.log4j.Logger;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
-import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.security.GeneralSecurityException;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
  * HTTP/S client.
+ *
+ * <p>OkHttpClient instances are cached process-wide by timeouts and trust manager.
+ * <p>All of them share one connection pool and dispatcher so keep-alive connections are reused.
+ * <p>HTTP/2 is negotiated where the server supports it.
+ * <p>The TLSv1.2 SSLContext comes from the shared TLS context cache.
+ *
+ * @see TLSContextCache
  */
 public class HttpClient {
     protected static final Logger log = LogManager.getLogger(HttpClient.class);
 
+    /**
+     * Maximum cached clients.
+     */
+    private static final int CLIENTS_SIZE = 64;
+
+    /**
+     * Clients by timeouts and trust manager in access order.
+     */
+    private static final Map<List<Object>, OkHttpClient> clients = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, OkHttpClient> eldest) {
+            return size() > CLIENTS_SIZE;
+        }
+    });
+
+    /**
+     * Base client holding the shared connection pool and dispatcher.
+     */
+    private static OkHttpClient base;
+
     /**
      * Permissive trust manager.
      */
@@ -55,8 +89,14 @@ public class HttpClient {
      * @throws NoSuchAlgorithmException No such algorithm exception.
      */
     public HttpResponse execute(HttpRequest request) throws IOException, KeyManagementException, NoSuchAlgorithmException {
-        SSLContext sslContext = SSLContext.getInstance("TLSv1.2");
-        sslContext.init(null, new TrustManager[]{trustManager}, null);
+        SSLContext sslContext;
+        try {
+            sslContext = TLSContextCache.get("TLSv1.2", null, null, trustManager);
+        } catch (KeyManagementException | NoSuchAlgorithmException e) {
+            throw e;
+        } catch (GeneralSecurityException e) {
+            throw new KeyManagementException(e);
+        }
 
         try (Response response = getClient(sslContext.getSocketFactory())
                 .newCall(getRequest(request))
@@ -134,22 +174,49 @@ public class HttpClient {
     }
 
     /**
-     * Gets OkHttpClient.Builder.
+     * Gets OkHttpClient.
      * <p>Isolated for testing.
      * <p>Disabled redirects per RFC specification.
+     * <p>Cached by timeouts and trust manager so the socket factory is only used when building.
+     * <p>Trust managers are matched as in TLSContextCache.
      *
      * @param socketFactory SSLSocketFactory instance.
-     * @return OkHttpClient.Builder instance.
+     * @return OkHttpClient instance.
      */
     protected OkHttpClient getClient(SSLSocketFactory socketFactory) {
-        return new OkHttpClient.Builder()
-                .connectTimeout(config.getLongProperty("connectTimeout", 10L), TimeUnit.SECONDS)
-                .writeTimeout(config.getLongProperty("writeTimeout", 10L), TimeUnit.SECONDS)
-                .readTimeout(config.getLongProperty("readTimeout", 30L), TimeUnit.SECONDS)
+        long connectTimeout = config.getLongProperty("connectTimeout", 10L);
+        long writeTimeout = config.getLongProperty("writeTimeout", 10L);
+        long readTimeout = config.getLongProperty("readTimeout", 30L);
+        List<Object> key = Arrays.asList(connectTimeout, writeTimeout, readTimeout, TLSContextCache.getTrustKey(trustManager));
+
+        return clients.computeIfAbsent(key, k -> getBase().newBuilder()
+                .connectTimeout(connectTimeout, TimeUnit.SECONDS)
+                .writeTimeout(writeTimeout, TimeUnit.SECONDS)
+                .readTimeout(readTimeout, TimeUnit.SECONDS)
                 .sslSocketFactory(socketFactory, trustManager)
                 .followRedirects(true)
                 .followSslRedirects(true)
-                .build();
+                .build());
+    }
+
+    /**
+     * Gets base client.
+     * <p>Pool is configured via httpPoolMaxIdle and httpPoolKeepAlive in seconds properties.
+     *
+     * @return OkHttpClient instance.
+     */
+    private static synchronized OkHttpClient getBase() {
+        if (base == null) {
+            base = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(
+                            Config.getProperties().getLongProperty("httpPoolMaxIdle", 16L).intValue(),
+                            Config.getProperties().getLongProperty("httpPoolKeepAlive", 300L),
+                            TimeUnit.SECONDS))
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .build();
+        }
+
+        return base;
     }
 
     /**
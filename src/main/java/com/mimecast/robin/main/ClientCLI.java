@@ -3,6 +3,7 @@ package com.mimecast.robin.main;
 import com.mimecast.robin.Main;
 import com.mimecast.robin.assertion.AssertException;
 import com.mimecast.robin.config.client.CaseConfig;
+import com.mimecast.robin.smtp.transaction.TransactionMetrics;
 import com.mimecast.robin.util.PathUtils;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.Option;
@@ -95,6 +96,10 @@ public class ClientCLI {
                 ).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))));
                 client.send(caseConfig);
             }
+
+            if (StringUtils.isNotBlank(cmd.getOptionValue("latencies"))) {
+                TransactionMetrics.export(cmd.getOptionValue("latencies"));
+            }
         } catch (IOException e) {
             main.log("Error reading: " + e.getMessage());
         }
@@ -114,6 +119,7 @@ public class ClientCLI {
         options.addOption("j", "json", true, "Path to case file JSON");
         options.addOption("m", "mail", true, "MAIL FROM address");
         options.addOption("f", "file", true, "EML file to send");
+        options.addOption("l", "latencies", true, "Path to export latency histograms JSON");
         options.addOption("h", "help", false, "Show usage help");
 
         // Optional with unlimited values.
@@ -36,8 +36,9 @@ public class Config {
 
     /**
      * Server configuration.
+     * <p>Replaced as a whole on reload.
      */
-    private static ServerConfig server = new ServerConfig();
+    private static volatile ServerConfig server = new ServerConfig();
 
     /**
      * Client default configuration.
@@ -82,6 +83,15 @@ public class Config {
         server = new ServerConfig(path);
     }
 
+    /**
+     * Sets server config.
+     *
+     * @param config ServerConfig instance.
+     */
+    public static void setServer(ServerConfig config) {
+        server = config;
+    }
+
     /**
      * Gets client config.
      *
@@ -14,6 +14,7 @@ import com.mimecast.robin.smtp.security.PermissiveTrustManager;
 import com.mimecast.robin.smtp.security.TLSSocket;
 import com.mimecast.robin.smtp.session.Session;
 import com.mimecast.robin.storage.LocalStorageClient;
+import com.mimecast.robin.storage.SegmentStorageClient;
 import com.mimecast.robin.storage.StorageClient;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -242,6 +243,10 @@ public class Factories {
             }
         }
 
+        if (Config.getServer().getStorage().getStringProperty("type", "local").equals("segment")) {
+            return new SegmentStorageClient().setConnection(connection).setExtension(extension);
+        }
+
         return new LocalStorageClient().setConnection(connection).setExtension(extension);
     }
 
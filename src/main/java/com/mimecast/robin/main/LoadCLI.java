@@ -0,0 +1,151 @@
+package com.mimecast.robin.main;
+
+import com.mimecast.robin.Main;
+import com.mimecast.robin.config.client.CaseConfig;
+import com.mimecast.robin.smtp.transaction.TransactionMetrics;
+import com.mimecast.robin.util.PathUtils;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Options;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.naming.ConfigurationException;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Implementation of load CLI.
+ *
+ * @see LoadClient
+ */
+public class LoadCLI {
+
+    /**
+     * Load usage.
+     */
+    public static final String USAGE = Main.USAGE + " --load";
+
+    /**
+     * Load description.
+     */
+    public static final String DESCRIPTION = "Load generation client";
+
+    /**
+     * Main instance
+     */
+    private final Main main;
+
+    /**
+     * Constructs a new LoadCLI instance.
+     *
+     * @param main Main instance.
+     */
+    public LoadCLI(Main main) {
+        this.main = main;
+
+        Options options = options();
+
+        Optional<CommandLine> opt = main.parseArgs(options);
+        if (opt.isPresent()) {
+            CommandLine cmd = opt.get();
+
+            if (validateArgs(cmd)) {
+                try {
+                    run(cmd);
+                } catch (ConfigurationException e) {
+                    main.log("Load error: " + e.getMessage());
+                }
+            } else {
+                main.log("");
+                main.optionsUsage(options);
+            }
+        }
+    }
+
+    /**
+     * Instantiate load client and run.
+     *
+     * @param cmd CommandLine instance.
+     * @throws ConfigurationException Unable to read/parse config file.
+     */
+    private void run(CommandLine cmd) throws ConfigurationException {
+        try {
+            int connections = NumberUtils.toInt(cmd.getOptionValue("connections"), 1);
+            LoadClient client = new LoadClient(cmd.getOptionValue("conf"))
+                    .setConnections(connections)
+                    .setMessages(NumberUtils.toLong(cmd.getOptionValue("messages"), connections))
+                    .setRate(NumberUtils.toDouble(cmd.getOptionValue("rate"), 0D));
+
+            client.run(new CaseConfig(cmd.getOptionValue("json")));
+
+            for (String line : client.getReport()) {
+                main.log(line);
+            }
+
+            if (StringUtils.isNotBlank(cmd.getOptionValue("latencies"))) {
+                TransactionMetrics.export(cmd.getOptionValue("latencies"));
+            }
+
+        } catch (IOException e) {
+            main.log("Error reading: " + e.getMessage());
+
+        } catch (InterruptedException e) {
+            main.log("Load interrupted");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * CLI getOptions.
+     * <i>Listing order will be alphabetical</i>.
+     *
+     * @return Options instance.
+     */
+    private Options options() {
+        Options options = new Options();
+        options.addOption("c", "conf", true, "Path to configuration dir (Default: cfg/)");
+        options.addOption("j", "json", true, "Path to case file JSON");
+        options.addOption("n", "connections", true, "Parallel connections (Default: 1)");
+        options.addOption("m", "messages", true, "Messages to send (Default: connections)");
+        options.addOption("r", "rate", true, "Target messages per second (Default: unlimited)");
+        options.addOption("l", "latencies", true, "Path to export latency histograms JSON");
+        options.addOption("h", "help", false, "Show usage help");
+        return options;
+    }
+
+    /**
+     * Validate arguments.
+     *
+     * @param cmd Commandline instance.
+     * @return Boolean.
+     */
+    private boolean validateArgs(CommandLine cmd) {
+        String json = cmd.getOptionValue("json");
+        String conf = cmd.getOptionValue("conf");
+
+        if (StringUtils.isBlank(json)) {
+            main.log("Config error: A JSON is required");
+            return false;
+        }
+
+        if (!PathUtils.isFile(json)) {
+            main.log("Config error: JSON not found");
+            return false;
+        }
+
+        for (String name : new String[]{"connections", "messages", "rate"}) {
+            String value = cmd.getOptionValue(name);
+            if (value != null && (!NumberUtils.isCreatable(value) || NumberUtils.toDouble(value) < 0)) {
+                main.log("Config error: Invalid " + name);
+                return false;
+            }
+        }
+
+        if (!StringUtils.isBlank(conf) && !PathUtils.isDirectory(conf)) {
+            main.log("Config error: Config directory not found: " + conf);
+            return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,320 @@
+package com.mimecast.robin.main;
+
+import com.mimecast.robin.config.client.CaseConfig;
+import com.mimecast.robin.smtp.EmailDelivery;
+import com.mimecast.robin.smtp.session.Session;
+import com.mimecast.robin.smtp.transaction.EnvelopeTransactionList;
+import com.mimecast.robin.smtp.transaction.SessionTransactionList;
+import com.mimecast.robin.smtp.transaction.TransactionMetrics;
+import com.mimecast.robin.util.LatencyHistogram;
+import org.apache.commons.lang3.SerializationUtils;
+
+import javax.naming.ConfigurationException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generation client.
+ *
+ * <p>Delivers one case repeatedly over a number of parallel connections.
+ * <p>Each delivery gets its own Session from the factory and its own connection.
+ * <p>Deliveries can be paced to a target rate in messages per second.
+ * <p>Latencies come from the per command histograms in TransactionMetrics which are reset on run.
+ * <p>Connect time is the greeting of fresh connections and pooled connections show up as RSET instead.
+ * <p>Assertions are not run in load mode.
+ *
+ * @see LoadCLI
+ * @see TransactionMetrics
+ */
+public class LoadClient extends Foundation {
+
+    /**
+     * Histogram key for connect and greeting.
+     */
+    public static final String CONNECT = "SMTP";
+
+    /**
+     * Report phase names by histogram key in order.
+     */
+    private static final Map<String, String> PHASES = new LinkedHashMap<>();
+
+    static {
+        PHASES.put(CONNECT, "connect");
+        PHASES.put("RSET", "reuse");
+        PHASES.put("EHLO", "ehlo");
+        PHASES.put("STARTTLS", "starttls");
+        PHASES.put("TLS", "tls");
+        PHASES.put("SHLO", "shlo");
+        PHASES.put("AUTH", "auth");
+        PHASES.put("MAIL", "mail");
+        PHASES.put("RCPT", "rcpt");
+        PHASES.put("DATA", "data");
+        PHASES.put("BDAT", "bdat");
+    }
+
+    /**
+     * Number of parallel connections.
+     */
+    private int connections = 1;
+
+    /**
+     * Number of messages to send.
+     */
+    private long messages = 1;
+
+    /**
+     * Target rate in messages per second or 0 for unlimited.
+     */
+    private double rate = 0;
+
+    /**
+     * Count of deliveries started.
+     */
+    private final AtomicLong started = new AtomicLong();
+
+    /**
+     * Count of deliveries with errors.
+     */
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * Elapsed run time in nanoseconds.
+     */
+    private long elapsed = 0L;
+
+    /**
+     * Constructs a new LoadClient instance.
+     * <p>To be used when configuration is already loaded.
+     */
+    public LoadClient() {
+        // Do nothing.
+    }
+
+    /**
+     * Constructs a new LoadClient instance with given client configuration path.
+     *
+     * @param configDirPath Directory path.
+     * @throws ConfigurationException Unable to read/parse config file.
+     */
+    public LoadClient(String configDirPath) throws ConfigurationException {
+        init(configDirPath);
+    }
+
+    /**
+     * Sets number of parallel connections.
+     *
+     * @param connections Connections count.
+     * @return Self.
+     */
+    public LoadClient setConnections(int connections) {
+        this.connections = Math.max(connections, 1);
+        return this;
+    }
+
+    /**
+     * Sets number of messages to send.
+     *
+     * @param messages Messages count.
+     * @return Self.
+     */
+    public LoadClient setMessages(long messages) {
+        this.messages = Math.max(messages, 1);
+        return this;
+    }
+
+    /**
+     * Sets target rate.
+     *
+     * @param rate Messages per second or 0 for unlimited.
+     * @return Self.
+     */
+    public LoadClient setRate(double rate) {
+        this.rate = Math.max(rate, 0);
+        return this;
+    }
+
+    /**
+     * Run load with given CaseConfig instance.
+     *
+     * @param caseConfig CaseConfig instance.
+     * @return Self.
+     * @throws InterruptedException Interrupted while waiting for deliveries.
+     */
+    public LoadClient run(CaseConfig caseConfig) throws InterruptedException {
+        TransactionMetrics.reset();
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        for (int i = 0; i < connections; i++) {
+            executor.execute(() -> work(caseConfig, start));
+        }
+        executor.shutdown();
+
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                log.info("Load progress: {}/{} started, {} errors", Math.min(started.get(), messages), messages, errors.get());
+            }
+        } finally {
+            executor.shutdownNow();
+            elapsed = System.nanoTime() - start;
+        }
+
+        return this;
+    }
+
+    /**
+     * Worker loop.
+     * <p>Takes the next message slot until all are taken and waits for its scheduled time if rate limited.
+     *
+     * @param caseConfig CaseConfig instance.
+     * @param start      Run start time in nanoseconds.
+     */
+    private void work(CaseConfig caseConfig, long start) {
+        long slot;
+        while ((slot = started.getAndIncrement()) < messages && !Thread.currentThread().isInterrupted()) {
+            if (rate > 0) {
+                long due = start + (long) (slot * 1_000_000_000D / rate);
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+
+            deliver(caseConfig);
+        }
+    }
+
+    /**
+     * Deliver one message.
+     *
+     * @param caseConfig CaseConfig instance.
+     */
+    private void deliver(CaseConfig caseConfig) {
+        try {
+            // Mapping rewrites the config so each session gets its own copy.
+            Session session = Factories.getSession();
+            session.map(new CaseConfig(SerializationUtils.clone(new HashMap<>(caseConfig.getMap()))));
+
+            new EmailDelivery(session).send();
+
+            if (hasErrors(session.getSessionTransactionList())) {
+                errors.incrementAndGet();
+            }
+
+        } catch (Exception e) {
+            log.error("Load delivery error: {}", e.getMessage());
+            errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Has session or envelope errors.
+     *
+     * @param transactions SessionTransactionList instance.
+     * @return Boolean.
+     */
+    private boolean hasErrors(SessionTransactionList transactions) {
+        if (!transactions.getErrors().isEmpty()) {
+            return true;
+        }
+
+        for (EnvelopeTransactionList envelope : transactions.getEnvelopes()) {
+            if (!envelope.getErrors().isEmpty()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets count of messages sent.
+     *
+     * @return Messages count.
+     */
+    public long getSent() {
+        return Math.min(started.get(), messages);
+    }
+
+    /**
+     * Gets count of deliveries with errors.
+     *
+     * @return Errors count.
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * Gets elapsed run time.
+     *
+     * @return Time in nanoseconds.
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Gets throughput.
+     *
+     * @return Messages per second.
+     */
+    public double getThroughput() {
+        return elapsed > 0 ? getSent() * 1_000_000_000D / elapsed : 0D;
+    }
+
+    /**
+     * Gets latency histograms by command.
+     *
+     * @return Map of LatencyHistogram by command.
+     */
+    public Map<String, LatencyHistogram> getLatencies() {
+        return TransactionMetrics.getHistograms();
+    }
+
+    /**
+     * Gets report lines.
+     * <p>Latencies are in milliseconds.
+     *
+     * @return List of String.
+     */
+    public List<String> getReport() {
+        List<String> report = new ArrayList<>();
+        report.add(String.format("Messages: %d sent, %d with errors", getSent(), getErrors()));
+        report.add(String.format("Elapsed: %.3f s", elapsed / 1_000_000_000D));
+        report.add(String.format("Throughput: %.2f msg/s", getThroughput()));
+        report.add(String.format("%-10s %8s %10s %10s %10s %10s %10s", "Phase", "Count", "p50", "p90", "p99", "p999", "Max"));
+
+        for (Map.Entry<String, String> phase : PHASES.entrySet()) {
+            LatencyHistogram histogram = getLatencies().get(phase.getKey());
+            if (histogram != null) {
+                report.add(String.format("%-10s %8d %10.3f %10.3f %10.3f %10.3f %10.3f", phase.getValue(), histogram.getCount(),
+                        millis(histogram.getPercentile(50)),
+                        millis(histogram.getPercentile(90)),
+                        millis(histogram.getPercentile(99)),
+                        millis(histogram.getPercentile(99.9)),
+                        millis(histogram.getMax())));
+            }
+        }
+
+        return report;
+    }
+
+    /**
+     * Nanoseconds to milliseconds.
+     *
+     * @param nanos Nanoseconds.
+     * @return Milliseconds.
+     */
+    private static double millis(long nanos) {
+        return nanos / 1_000_000D;
+    }
+}
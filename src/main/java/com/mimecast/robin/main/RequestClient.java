@@ -8,7 +8,7 @@ import com.mimecast.robin.config.client.RequestConfig;
 import com.mimecast.robin.http.HttpResponse;
 import com.mimecast.robin.smtp.connection.Connection;
 import com.mimecast.robin.smtp.session.Session;
-import com.mimecast.robin.util.MapUtils;
+import com.mimecast.robin.util.JsonFlattener;
 
 import javax.naming.ConfigurationException;
 import java.io.IOException;
@@ -17,7 +17,6 @@ import java.net.URISyntaxException;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * HTTP/S request client.
@@ -58,7 +57,6 @@ public class RequestClient extends RequestBase {
      * @throws AssertException Assertion exception.
      * @throws IOException     Unable to communicate.
      */
-    @SuppressWarnings("unchecked")
     public RequestClient request(String casePath) throws AssertException, IOException {
         CaseConfig caseConfig = getConfig(casePath);
 
@@ -77,7 +75,7 @@ public class RequestClient extends RequestBase {
                 String responseCT = httpResponse.getHeaders().get("Content-Type");
 
                 if (responseCT != null && responseCT.toLowerCase().contains("/json")) {
-                    MapUtils.flattenMap(new Gson().fromJson(httpResponse.getBody(), Map.class), "", response);
+                    response.addAll(new JsonFlattener().flatten(httpResponse.getBody()));
                 } else {
                     response.addAll(List.of(httpResponse.getBody().split("\n")));
                 }
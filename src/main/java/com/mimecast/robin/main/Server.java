@@ -1,7 +1,11 @@
 package com.mimecast.robin.main;
 
+import com.mimecast.robin.config.server.ServerConfigWatcher;
+import com.mimecast.robin.smtp.NioSmtpListener;
 import com.mimecast.robin.smtp.SmtpListener;
+import com.mimecast.robin.storage.RelayQueue;
 import com.mimecast.robin.storage.StorageCleaner;
+import com.mimecast.robin.util.PathUtils;
 
 import javax.naming.ConfigurationException;
 import java.io.IOException;
@@ -17,6 +21,7 @@ import java.nio.file.Paths;
  * <p>Loads both client and server configuration files.
  *
  * @see SmtpListener
+ * @see NioSmtpListener
  */
 public class Server extends Foundation {
 
@@ -36,13 +41,36 @@ public class Server extends Foundation {
         registerShutdown(); // Shutdown hook.
         loadKeystore(); // Load Keystore.
         StorageCleaner.clean(Config.getServer().getStorage()); // Clean storage.
+        RelayQueue.start(); // Resume spooled relays.
+        watchConfig(path); // Server config hot reload.
 
         // Listener.
-        port25 = new SmtpListener(
-                Config.getServer().getPort(),
-                Config.getServer().getBacklog(),
-                Config.getServer().getBind()
-        );
+        if (Config.getServer().isNio()) {
+            port25 = new NioSmtpListener(
+                    Config.getServer().getPort(),
+                    Config.getServer().getBacklog(),
+                    Config.getServer().getBind()
+            );
+        } else {
+            port25 = new SmtpListener(
+                    Config.getServer().getPort(),
+                    Config.getServer().getBacklog(),
+                    Config.getServer().getBind()
+            );
+        }
+    }
+
+    /**
+     * Watch server config for changes.
+     * <p>Enabled via serverReload property.
+     *
+     * @param path Directory path.
+     */
+    private static void watchConfig(String path) {
+        String serverPath = Paths.get(path != null ? path : "cfg", "server.json5").toString();
+        if (Config.getProperties().getBooleanProperty("serverReload", true) && PathUtils.isFile(serverPath)) {
+            ServerConfigWatcher.start(serverPath);
+        }
     }
 
     /**
@@ -10,14 +10,19 @@ import com.mimecast.robin.smtp.io.LineInputStream;
 import com.mimecast.robin.util.QuotedPrintableDecoder;
 import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64OutputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.*;
+import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -326,6 +331,8 @@ public class EmailParser {
 
     /**
      * Parse part content.
+     * <p>Content is decoded and hashed as it is read in a single pass.
+     * <p>Only text parts keep their decoded content in memory.
      *
      * @param isTextPart Is text/* type?
      * @param headers    MimeHeaders instance.
@@ -351,38 +358,33 @@ public class EmailParser {
             MessageDigest digestSha1 = MessageDigest.getInstance(HashType.SHA_1.getKey());
             MessageDigest digestSha256 = MessageDigest.getInstance(HashType.SHA_256.getKey());
             MessageDigest digestMD5 = MessageDigest.getInstance(HashType.MD_5.getKey());
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ByteArrayOutputStream content = new ByteArrayOutputStream();
-
-            byte[] bytes;
-            while ((bytes = stream.readLine()) != null) {
-                String line = new String(bytes);
-                if (boundary != null && !boundary.isEmpty() && line.contains(boundary)) {
-                    if (line.contains(boundary + "--")) {
-                        stream.unread(bytes);
+
+            // Decoded content goes through the digests into a counter and is only kept for text parts.
+            ByteArrayOutputStream content = isTextPart ? new ByteArrayOutputStream() : null;
+            CountingOutputStream counter = new CountingOutputStream(content != null ? content : NullOutputStream.INSTANCE);
+            OutputStream digests = new DigestOutputStream(new DigestOutputStream(new DigestOutputStream(counter, digestMD5), digestSha256), digestSha1);
+            OutputStream decoder = isBase64 ? new Base64OutputStream(digests, false) : digests;
+
+            byte[] boundaryBytes = boundary != null && !boundary.isEmpty() ? boundary.getBytes() : null;
+            boolean softBreak = false;
+
+            int length;
+            while ((length = stream.readLineBuffer()) != -1) {
+                byte[] bytes = stream.getLineBuffer();
+                if (boundaryBytes != null && indexOf(bytes, length, boundaryBytes) != -1) {
+                    if (new String(bytes, 0, length).contains(boundary + "--")) {
+                        stream.unread(bytes, 0, length);
                     }
                     break;
                 }
 
-                baos.write(bytes);
-            }
-
-            // Decode if needed.
-            if (isBase64) {
-                content.write(Base64.decodeBase64(baos.toByteArray()));
-
-            } else if (isQuotedPrintable) {
-                try {
-                    content.write(QuotedPrintableDecoder.decode(baos.toByteArray()));
-
-                } catch (DecoderException de) {
-                    log.error("EmailParser decoder exception: {}", de.getMessage());
-                    content.write(baos.toByteArray());
+                if (isQuotedPrintable) {
+                    softBreak = writeQuotedPrintable(decoder, Arrays.copyOf(bytes, length), softBreak);
+                } else {
+                    decoder.write(bytes, 0, length);
                 }
-            } else {
-                content.write(baos.toByteArray());
             }
-            baos.close();
+            decoder.close();
 
             // Construct part.
             MimePart part;
@@ -394,16 +396,11 @@ public class EmailParser {
             }
 
             // Set part details.
-            digestSha1.update(content.toByteArray());
             part.setHash(HashType.SHA_1, Base64.encodeBase64String(digestSha1.digest()));
-
-            digestSha256.update(content.toByteArray());
             part.setHash(HashType.SHA_256, Base64.encodeBase64String(digestSha256.digest()));
-
-            digestMD5.update(content.toByteArray());
             part.setHash(HashType.MD_5, Base64.encodeBase64String(digestMD5.digest()));
 
-            part.setSize(content.size());
+            part.setSize(counter.getByteCount());
 
             return part;
 
@@ -411,4 +408,70 @@ public class EmailParser {
             throw new IOException("No such algorithm", nsae);
         }
     }
+
+    /**
+     * Write quoted-printable line decoded.
+     * <p>Empty lines following a soft line break are skipped.
+     * <p>Lines that fail to decode are written as is.
+     *
+     * @param outputStream OutputStream instance.
+     * @param bytes        Line bytes.
+     * @param softBreak    Previous line ended with a soft line break.
+     * @return True if line ends with a soft line break.
+     * @throws IOException Unable to write.
+     */
+    private boolean writeQuotedPrintable(OutputStream outputStream, byte[] bytes, boolean softBreak) throws IOException {
+        if (softBreak && isLineBreak(bytes)) {
+            return true;
+        }
+
+        try {
+            outputStream.write(QuotedPrintableDecoder.decode(bytes));
+
+        } catch (DecoderException de) {
+            log.error("EmailParser decoder exception: {}", de.getMessage());
+            outputStream.write(bytes);
+        }
+
+        int length = bytes.length;
+        return (length >= 2 && bytes[length - 2] == '=' && bytes[length - 1] == '\r') ||
+                (length >= 3 && bytes[length - 3] == '=' && bytes[length - 2] == '\r' && bytes[length - 1] == '\n');
+    }
+
+    /**
+     * Is line only CR/LF.
+     *
+     * @param bytes Line bytes.
+     * @return Boolean.
+     */
+    private static boolean isLineBreak(byte[] bytes) {
+        for (byte b : bytes) {
+            if (b != '\r' && b != '\n') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find bytes in line.
+     *
+     * @param bytes  Line bytes.
+     * @param length Line length.
+     * @param search Bytes to find.
+     * @return Position or -1 if not found.
+     */
+    private static int indexOf(byte[] bytes, int length, byte[] search) {
+        outer:
+        for (int i = 0; i <= length - search.length; i++) {
+            for (int j = 0; j < search.length; j++) {
+                if (bytes[i + j] != search[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+
+        return -1;
+    }
 }
@@ -1,20 +1,19 @@
 package com.mimecast.robin.mime.parts;
 
 import com.mimecast.robin.config.assertion.MimeConfig;
+import com.mimecast.robin.main.Config;
 import com.mimecast.robin.mime.headers.MimeHeader;
 import com.mimecast.robin.smtp.MessageEnvelope;
 import com.mimecast.robin.util.Magic;
 import com.mimecast.robin.util.PathUtils;
-import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
-import com.openhtmltopdf.util.XRLog;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Paths;
 import java.util.Arrays;
-import java.util.logging.Level;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * MIME part container from pdf config.
@@ -46,24 +45,46 @@ public class PdfMimePart extends MimePart {
         build();
     }
 
+    /**
+     * Image file referenced by HTML.
+     */
+    protected File image;
+
+    /**
+     * Background rendered PDF.
+     */
+    private CompletableFuture<byte[]> pdf;
+
     /**
      * Builds PDF.
+     * <p>Rendered PDFs are cached and may be rendered in the background if pdfPrerender is enabled.
      *
      * @throws IOException Unable to open/read from file.
      */
     protected void build() throws IOException {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            XRLog.listRegisteredLoggers().forEach(logger -> {
-                if (logger.contains("com.openhtmltopdf")) XRLog.setLevel(logger, Level.WARNING);
-            });
+        String html = html();
 
-            new PdfRendererBuilder()
-                    .withHtmlContent(html(), System.getProperty("user.dir"))
-                    .toStream(baos)
-                    .run();
+        if (Config.getProperties().getBooleanProperty("pdfPrerender", false)) {
+            pdf = PdfRenderCache.get(html, image, true);
+        } else {
+            body = new ByteArrayInputStream(PdfRenderCache.get(html, image));
+        }
+    }
 
-            body = new ByteArrayInputStream(baos.toByteArray());
+    /**
+     * Gets content as bytes.
+     * <p>Waits for background render if pending.
+     *
+     * @return Byte array.
+     * @throws IOException Unable to render.
+     */
+    @Override
+    public byte[] getBytes() throws IOException {
+        if (body == null && pdf != null) {
+            body = new ByteArrayInputStream(PdfRenderCache.join(pdf));
         }
+
+        return super.getBytes();
     }
 
     /**
@@ -89,13 +110,15 @@ public class PdfMimePart extends MimePart {
         }
 
         if (config.hasProperty("folder")) {
-            html.append("<p><img src=\"file://");
-            html.append(Paths.get(System.getProperty("user.dir"), PathUtils.folderFile(config.getStringProperty("folder"), Arrays.asList("jpg", "jpeg", "png", "gif"))));
-            html.append("\"/></p>");
+            image = Paths.get(System.getProperty("user.dir"), PathUtils.folderFile(config.getStringProperty("folder"), Arrays.asList("jpg", "jpeg", "png", "gif"))).toFile();
 
         } else if (config.hasProperty("image")) {
+            image = Paths.get(System.getProperty("user.dir"), config.getStringProperty("image")).toFile();
+        }
+
+        if (image != null) {
             html.append("<p><img src=\"file://");
-            html.append(Paths.get(System.getProperty("user.dir"), config.getStringProperty("image")));
+            html.append(image.getPath());
             html.append("\"/></p>");
         }
 
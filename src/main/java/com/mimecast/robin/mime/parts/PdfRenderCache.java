@@ -0,0 +1,203 @@
+package com.mimecast.robin.mime.parts;
+
+import com.mimecast.robin.main.Config;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.openhtmltopdf.util.XRLog;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+
+/**
+ * PDF render cache.
+ *
+ * <p>Rendering HTML to PDF loads fonts and decodes images which is slow when repeated for every message.
+ * <p>Rendered PDFs are kept in a bounded least recently used cache keyed by HTML and image file identity.
+ * <p>Concurrent requests for the same key share a single render.
+ * <p>Renders can optionally run in the background on a worker pool so parts are built ahead of writing.
+ *
+ * @see PdfMimePart
+ */
+public final class PdfRenderCache {
+    private static final Logger log = LogManager.getLogger(PdfRenderCache.class);
+
+    /**
+     * Protected constructor.
+     */
+    private PdfRenderCache() {
+        throw new IllegalStateException("Static class");
+    }
+
+    /**
+     * Rendered PDFs by key in access order.
+     */
+    private static final Map<String, CompletableFuture<byte[]>> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<byte[]>> eldest) {
+            return size() > Config.getProperties().getLongProperty("pdfCacheSize", 64L);
+        }
+    };
+
+    /**
+     * Background render executor.
+     */
+    private static ExecutorService executor;
+
+    /**
+     * Gets PDF for given HTML.
+     * <p>Renders in the calling thread on cache miss.
+     *
+     * @param html  HTML string.
+     * @param image Image file referenced by HTML or null.
+     * @return PDF byte array.
+     * @throws IOException Unable to render.
+     */
+    public static byte[] get(String html, File image) throws IOException {
+        return join(get(html, image, false));
+    }
+
+    /**
+     * Gets future PDF for given HTML.
+     * <p>On cache miss it renders in the background if requested else in the calling thread.
+     *
+     * @param html       HTML string.
+     * @param image      Image file referenced by HTML or null.
+     * @param background Render on worker pool.
+     * @return CompletableFuture of PDF byte array.
+     */
+    public static CompletableFuture<byte[]> get(String html, File image, boolean background) {
+        String key = image != null ? html + "|" + image.lastModified() + ":" + image.length() : html;
+
+        CompletableFuture<byte[]> future;
+        synchronized (cache) {
+            future = cache.get(key);
+            if (future != null) {
+                return future;
+            }
+
+            future = new CompletableFuture<>();
+            cache.put(key, future);
+        }
+
+        if (background) {
+            final CompletableFuture<byte[]> pending = future;
+            getExecutor().execute(() -> render(key, html, pending));
+        } else {
+            render(key, html, future);
+        }
+
+        return future;
+    }
+
+    /**
+     * Wait for future PDF.
+     *
+     * @param future CompletableFuture of PDF byte array.
+     * @return PDF byte array.
+     * @throws IOException Unable to render.
+     */
+    public static byte[] join(CompletableFuture<byte[]> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Render HTML to PDF and complete future.
+     * <p>Failed renders are removed from cache.
+     *
+     * @param key    Cache key.
+     * @param html   HTML string.
+     * @param future CompletableFuture of PDF byte array.
+     */
+    private static void render(String key, String html, CompletableFuture<byte[]> future) {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            XRLog.listRegisteredLoggers().forEach(logger -> {
+                if (logger.contains("com.openhtmltopdf")) XRLog.setLevel(logger, Level.WARNING);
+            });
+
+            new PdfRendererBuilder()
+                    .withHtmlContent(html, System.getProperty("user.dir"))
+                    .toStream(baos)
+                    .run();
+
+            future.complete(baos.toByteArray());
+
+        } catch (IOException e) {
+            log.error("Error rendering PDF: {}", e.getMessage());
+            remove(key, future);
+            future.completeExceptionally(new UncheckedIOException(e));
+
+        } catch (RuntimeException e) {
+            log.error("Error rendering PDF: {}", e.getMessage());
+            remove(key, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Remove cache entry if still mapped to given future.
+     *
+     * @param key    Cache key.
+     * @param future CompletableFuture of PDF byte array.
+     */
+    private static void remove(String key, CompletableFuture<byte[]> future) {
+        synchronized (cache) {
+            cache.remove(key, future);
+        }
+    }
+
+    /**
+     * Gets background render executor.
+     * <p>Pool size is configured via pdfRenderThreads property.
+     *
+     * @return ExecutorService instance.
+     */
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            int threads = Config.getProperties().getLongProperty("pdfRenderThreads", 2L).intValue();
+            executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+                Thread thread = new Thread(runnable, "pdf-render");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return executor;
+    }
+
+    /**
+     * Gets count of cached PDFs.
+     *
+     * @return Count.
+     */
+    public static int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Clear all cached PDFs.
+     */
+    public static void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+}
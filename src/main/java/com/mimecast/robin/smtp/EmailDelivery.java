@@ -2,12 +2,14 @@ package com.mimecast.robin.smtp;
 
 import com.mimecast.robin.main.Factories;
 import com.mimecast.robin.smtp.connection.Connection;
+import com.mimecast.robin.smtp.connection.ConnectionPool;
 import com.mimecast.robin.smtp.connection.SmtpException;
 import com.mimecast.robin.smtp.extension.client.Behaviour;
 import com.mimecast.robin.smtp.extension.client.CustomBehaviour;
 import com.mimecast.robin.smtp.session.Session;
 import com.mimecast.robin.smtp.transaction.EnvelopeTransactionList;
 import com.mimecast.robin.smtp.transaction.Transaction;
+import com.mimecast.robin.smtp.transaction.TransactionMetrics;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -53,13 +55,18 @@ public class EmailDelivery {
      */
     public EmailDelivery send() {
         try {
-            connection.connect();
-            log.debug("Remote ready and willing.");
-
             Behaviour behaviour = connection.getSession().getBehaviour().isEmpty() ?
                     Factories.getBehaviour() :
                     new CustomBehaviour();
 
+            // Reuse a pooled connection only if the behaviour can skip the handshake.
+            boolean reuse = connection.getSession().isPool() && behaviour != null && behaviour.isReusable();
+
+            if (!reuse || !ConnectionPool.borrow(connection)) {
+                connection.connect();
+            }
+            log.debug("Remote ready and willing.");
+
             if (behaviour != null) {
                 behaviour.process(connection);
             } else log.error("Error getting behaviour. This is bad.");
@@ -77,6 +84,7 @@ public class EmailDelivery {
 
         } finally {
             connection.close();
+            TransactionMetrics.record(connection.getSession().getSessionTransactionList());
         }
 
         return this;
@@ -62,6 +62,11 @@ public class EmailReceipt implements Runnable {
         }
     }
 
+    /**
+     * Transactions counter.
+     */
+    private int transactions = 0;
+
     /**
      * Server receipt runner.
      * <p>The loop begins after a connection is received and the welcome message sent.
@@ -72,25 +77,12 @@ public class EmailReceipt implements Runnable {
      */
     public void run() {
         try {
-            connection.write("220 " + Config.getServer().getHostname() + " Robin ready at " + connection.getSession().getRdns() + " with ESMTP; " + connection.getSession().getDate());
-
-            Verb verb;
-            for (int i = 0; i < transactionsLimit; i++) {
-                String read = connection.read().trim();
-                verb = new Verb(read);
-
-                // Don't process if error.
-                if (!isError(verb)) process(verb);
-
-                // Break the loop.
-                // Break if error limit reached.
-                if (verb.getCommand().equalsIgnoreCase("quit") || errorLimit <= 0) {
-                    if (errorLimit <= 0) {
-                        log.warn("Error limit reached.");
-                    }
-                    break;
-                }
-            }
+            welcome();
+
+            boolean open;
+            do {
+                open = next();
+            } while (open);
         } catch (IOException e) {
             log.info("Error reading/writing: {}", e.getMessage());
         }
@@ -98,6 +90,45 @@ public class EmailReceipt implements Runnable {
         connection.close();
     }
 
+    /**
+     * Writes welcome message.
+     *
+     * @throws IOException Unable to communicate.
+     */
+    protected void welcome() throws IOException {
+        connection.write("220 " + Config.getServer().getHostname() + " Robin ready at " + connection.getSession().getRdns() + " with ESMTP; " + connection.getSession().getDate());
+    }
+
+    /**
+     * Reads and processes the next command.
+     * <p>Returns false once QUIT was received or the transactions or error limits were reached.
+     *
+     * @return Boolean.
+     * @throws IOException Unable to communicate.
+     */
+    protected boolean next() throws IOException {
+        if (transactions++ >= transactionsLimit) {
+            return false;
+        }
+
+        String read = connection.read().trim();
+        Verb verb = new Verb(read);
+
+        // Don't process if error.
+        if (!isError(verb)) process(verb);
+
+        // Break the loop.
+        // Break if error limit reached.
+        if (verb.getCommand().equalsIgnoreCase("quit") || errorLimit <= 0) {
+            if (errorLimit <= 0) {
+                log.warn("Error limit reached.");
+            }
+            return false;
+        }
+
+        return true;
+    }
+
     /**
      * Server extension processor.
      *
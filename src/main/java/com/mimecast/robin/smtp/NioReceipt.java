@@ -0,0 +1,171 @@
+package com.mimecast.robin.smtp;
+
+import com.mimecast.robin.smtp.connection.NioConnection;
+import com.mimecast.robin.smtp.io.ChannelInputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Email receipt state machine for the non-blocking listener.
+ *
+ * <p>A receipt moves between the following states:
+ * <ul>
+ *     <li><b>PARKED</b> - Registered with the selector waiting for a complete command line.
+ *     <li><b>PROCESSING</b> - Running on a worker processing buffered commands via the server extensions.
+ *     <li><b>CLOSED</b> - QUIT, limits reached or socket error.
+ * </ul>
+ * <p>Once TLS is negociated the receipt stays in PROCESSING until closed.
+ *
+ * @see NioSmtpListener
+ */
+class NioReceipt extends EmailReceipt {
+    private static final Logger log = LogManager.getLogger(NioReceipt.class);
+
+    /**
+     * Receipt states.
+     */
+    enum State {
+        PARKED,
+        PROCESSING,
+        CLOSED
+    }
+
+    /**
+     * NioSmtpListener instance.
+     */
+    private final NioSmtpListener listener;
+
+    /**
+     * SocketChannel instance.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * ChannelInputStream instance.
+     */
+    private final ChannelInputStream input;
+
+    /**
+     * Current state.
+     */
+    private volatile State state = State.PROCESSING;
+
+    /**
+     * Last read time in milliseconds.
+     */
+    private long lastActivity = System.currentTimeMillis();
+
+    /**
+     * Constructs a new NioReceipt instance with given SocketChannel.
+     *
+     * @param listener NioSmtpListener instance.
+     * @param channel  SocketChannel instance.
+     * @param input    ChannelInputStream instance.
+     * @throws IOException Unable to communicate.
+     */
+    NioReceipt(NioSmtpListener listener, SocketChannel channel, ChannelInputStream input) throws IOException {
+        super(new NioConnection(channel, input));
+        this.listener = listener;
+        this.channel = channel;
+        this.input = input;
+    }
+
+    /**
+     * Worker runner.
+     * <p>Processes all complete buffered commands then parks the receipt back on the selector.
+     * <p>A line longer than the channel buffer is read to its end in blocking mode first.
+     *
+     * @param greet Write welcome message first.
+     */
+    void work(boolean greet) {
+        ThreadContext.put("aCode", connection.getSession().getUID());
+        state = State.PROCESSING;
+
+        try {
+            if (greet) {
+                welcome();
+            }
+
+            // A full buffer without a line is read in blocking mode.
+            boolean overflow = input.isFull() && !input.hasLine();
+
+            while (overflow || ((NioConnection) connection).hasLine() || isSecure()) {
+                overflow = false;
+                if (!next()) {
+                    close();
+                    return;
+                }
+            }
+
+            // Send replies to the pipelined group before waiting on the selector.
+            connection.flush();
+
+            lastActivity = System.currentTimeMillis();
+            state = State.PARKED;
+            listener.park(this);
+
+        } catch (Exception e) {
+            log.info("Error reading/writing: {}", e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Non-blocking read of available bytes.
+     *
+     * @return True if a command is ready for processing.
+     * @throws IOException Unable to read or end of stream.
+     */
+    boolean fill() throws IOException {
+        if (input.fill() == -1) {
+            throw new IOException("End of stream");
+        }
+        lastActivity = System.currentTimeMillis();
+
+        // A full buffer without a line is handed over to be read in blocking mode.
+        return input.hasLine() || input.isFull();
+    }
+
+    /**
+     * Is idle for longer than the session timeout.
+     *
+     * @param now Current time in milliseconds.
+     * @return Boolean.
+     */
+    boolean isIdle(long now) {
+        return state == State.PARKED && now - lastActivity > connection.getSession().getTimeout();
+    }
+
+    /**
+     * Is TLS negociated.
+     *
+     * @return Boolean.
+     */
+    private boolean isSecure() {
+        return ((NioConnection) connection).isSecure();
+    }
+
+    /**
+     * Gets SocketChannel.
+     *
+     * @return SocketChannel instance.
+     */
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Close connection and release listener slot.
+     */
+    synchronized void close() {
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            connection.close();
+            listener.release();
+        }
+    }
+}
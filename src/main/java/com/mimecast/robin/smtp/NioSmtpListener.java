@@ -0,0 +1,308 @@
+package com.mimecast.robin.smtp;
+
+import com.mimecast.robin.main.Config;
+import com.mimecast.robin.smtp.io.ChannelInputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking SMTP socket listener.
+ *
+ * <p>This runs a ServerSocketChannel bound to configured interface and port and multiplexes connections with a Selector.
+ * <p>Connections waiting for their next command are parked on the selector without a thread.
+ * <p>Bytes are buffered per connection until a complete command line is available.
+ * <p>The connection is then handed to a worker which drives the standard server extensions.
+ * <p>DATA and BDAT payloads are read in blocking mode on the worker as are TLS sessions after STARTTLS.
+ *
+ * @see NioReceipt
+ * @see SmtpListener
+ */
+public class NioSmtpListener extends SmtpListener {
+    private static final Logger log = LogManager.getLogger(NioSmtpListener.class);
+
+    /**
+     * Per connection buffer size.
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Selector wake interval in milliseconds for idle checks.
+     */
+    private static final int SELECT_TIMEOUT = 1000;
+
+    /**
+     * Selector instance.
+     */
+    private Selector selector;
+
+    /**
+     * ServerSocketChannel instance.
+     */
+    private ServerSocketChannel channel;
+
+    /**
+     * Tasks to run on the selector thread.
+     */
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Active connections counter.
+     */
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * Maximum concurrent connections.
+     */
+    private int maximumConnections;
+
+    /**
+     * Last idle check time in milliseconds.
+     */
+    private long lastIdleCheck = System.currentTimeMillis();
+
+    /**
+     * Constructs a new NioSmtpListener instance.
+     *
+     * @param port    Port number.
+     * @param backlog Backlog size.
+     * @param bind    Interface to bind to.
+     */
+    public NioSmtpListener(int port, int backlog, String bind) {
+        configure();
+
+        try (Selector select = Selector.open(); ServerSocketChannel server = ServerSocketChannel.open()) {
+            selector = select;
+            channel = server;
+            channel.bind(new InetSocketAddress(InetAddress.getByName(bind), port), backlog);
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_ACCEPT);
+            log.info("Started non-blocking listener.");
+
+            log.info("Expecting connection.");
+            selectLoop();
+
+        } catch (IOException e) {
+            log.fatal("Error listening: {}", e.getMessage());
+
+        } finally {
+            log.info("Closed listener.");
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Configure executor.
+     * <p>Workers only run while commands are processed so platform workers are queued rather than rejected.
+     */
+    @Override
+    protected void configure() {
+        if (Config.getServer().isVirtualThreads()) {
+            executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("smtp-", 0).factory());
+        } else {
+            executor = Executors.newFixedThreadPool(Config.getServer().getMaximumPoolSize());
+        }
+
+        maximumConnections = Config.getServer().getMaximumConnections();
+        rejectOverLimit = Config.getServer().getBacklogPolicy().equalsIgnoreCase("reject");
+    }
+
+    /**
+     * Selector loop.
+     *
+     * @throws IOException Unable to communicate.
+     */
+    private void selectLoop() throws IOException {
+        while (!serverShutdown) {
+            selector.select(SELECT_TIMEOUT);
+
+            Runnable task;
+            while ((task = pending.poll()) != null) {
+                task.run();
+            }
+
+            List<NioReceipt> ready = new ArrayList<>();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+
+                if (!key.isValid()) continue;
+
+                if (key.isAcceptable()) {
+                    accept(key);
+
+                } else if (key.isReadable()) {
+                    NioReceipt receipt = (NioReceipt) key.attachment();
+                    try {
+                        if (receipt.fill()) {
+                            key.cancel();
+                            ready.add(receipt);
+                        }
+                    } catch (IOException e) {
+                        log.info("Error reading: {}", e.getMessage());
+                        key.cancel();
+                        receipt.close();
+                    }
+                }
+            }
+
+            // Flush cancelled keys before switching channels to blocking mode.
+            if (!ready.isEmpty()) {
+                selector.selectNow();
+                for (NioReceipt receipt : ready) {
+                    dispatch(receipt, false);
+                }
+            }
+
+            closeIdle();
+        }
+    }
+
+    /**
+     * Accept incomming connections.
+     *
+     * @param key Server SelectionKey instance.
+     */
+    private void accept(SelectionKey key) {
+        SocketChannel socketChannel;
+        do {
+            // Stop accepting and leave connections in backlog until a slot is released.
+            if (!rejectOverLimit && active.get() >= maximumConnections) {
+                log.warn("Connection limit reached, pausing accept.");
+                key.interestOps(0);
+                return;
+            }
+
+            try {
+                socketChannel = channel.accept();
+                if (socketChannel == null) return;
+
+                log.info("Accepted connection from {}.", socketChannel.getRemoteAddress());
+
+                if (active.get() >= maximumConnections) {
+                    reject(socketChannel.socket());
+                    continue;
+                }
+
+                NioReceipt receipt = new NioReceipt(this, socketChannel, new ChannelInputStream(socketChannel, BUFFER_SIZE));
+                active.incrementAndGet();
+                dispatch(receipt, true);
+
+            } catch (IOException e) {
+                log.info("Error accepting: {}", e.getMessage());
+                return;
+            }
+        } while (!serverShutdown);
+    }
+
+    /**
+     * Hand receipt to a worker in blocking mode.
+     *
+     * @param receipt NioReceipt instance.
+     * @param greet   Write welcome message first.
+     */
+    private void dispatch(NioReceipt receipt, boolean greet) {
+        try {
+            receipt.getChannel().configureBlocking(true);
+            executor.execute(() -> receipt.work(greet));
+
+        } catch (IOException | RejectedExecutionException e) {
+            log.error("Email receipt dispatch error: {}", e.getMessage());
+            receipt.close();
+        }
+    }
+
+    /**
+     * Park receipt on selector until the next command is buffered.
+     * <p>Called from worker threads.
+     *
+     * @param receipt NioReceipt instance.
+     */
+    void park(NioReceipt receipt) {
+        pending.add(() -> {
+            try {
+                receipt.getChannel().configureBlocking(false);
+                receipt.getChannel().register(selector, SelectionKey.OP_READ, receipt);
+
+            } catch (IOException | ClosedSelectorException e) {
+                log.info("Error parking connection: {}", e.getMessage());
+                receipt.close();
+            }
+        });
+        selector.wakeup();
+    }
+
+    /**
+     * Release connection slot and resume accepting if paused.
+     * <p>Called when a receipt closes.
+     */
+    void release() {
+        active.decrementAndGet();
+
+        pending.add(() -> {
+            SelectionKey key = channel.keyFor(selector);
+            if (key != null && key.isValid() && key.interestOps() == 0) {
+                key.interestOps(SelectionKey.OP_ACCEPT);
+            }
+        });
+        selector.wakeup();
+    }
+
+    /**
+     * Close parked connections idle for longer than the session timeout.
+     */
+    private void closeIdle() {
+        long now = System.currentTimeMillis();
+        if (now - lastIdleCheck < SELECT_TIMEOUT) return;
+        lastIdleCheck = now;
+
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid() && key.attachment() instanceof NioReceipt receipt && receipt.isIdle(now)) {
+                log.info("Closing idle connection.");
+                key.cancel();
+                receipt.close();
+            }
+        }
+    }
+
+    /**
+     * Shutdown.
+     *
+     * @throws IOException Unable to communicate.
+     */
+    @Override
+    public void serverShutdown() throws IOException {
+        serverShutdown = true;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Gets listener.
+     *
+     * @return ServerSocket instance.
+     */
+    @Override
+    public ServerSocket getListener() {
+        return channel != null ? channel.socket() : null;
+    }
+}
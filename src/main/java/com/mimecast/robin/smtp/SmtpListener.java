@@ -9,7 +9,11 @@ import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -18,6 +22,9 @@ import java.util.concurrent.TimeUnit;
  *
  * <p>This runs a ServerSocket bound to configured interface and port.
  * <p>An email receipt instance will be constructed for each accepted connection.
+ * <p>Receipts run either on a bounded platform thread pool or one virtual thread per connection.
+ * <p>In virtual mode concurrent connections are capped separately and the backlog policy decides
+ * <br>whether to hold new connections in the accept backlog or reject them with a 421.
  *
  * @see EmailReceipt
  */
@@ -30,14 +37,33 @@ public class SmtpListener {
     private ServerSocket listener;
 
     /**
-     * ThreadPoolExecutor instance.
+     * ExecutorService instance.
      */
-    private final ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+    protected ExecutorService executor;
+
+    /**
+     * Connections semaphore.
+     * <p>Only used in virtual thread mode to enforce maximum connections.
+     */
+    private Semaphore connections;
+
+    /**
+     * Reject connections over limit instead of waiting for a free slot.
+     */
+    protected boolean rejectOverLimit = false;
 
     /**
      * Server shutdown boolean.
      */
-    private boolean serverShutdown = false;
+    protected volatile boolean serverShutdown = false;
+
+    /**
+     * Constructs a new SmtpListener instance.
+     * <p>For listener implementations that bind themselves.
+     */
+    protected SmtpListener() {
+        // Clean initialisation.
+    }
 
     /**
      * Constructs a new SmtpListener instance.
@@ -73,12 +99,22 @@ public class SmtpListener {
     }
 
     /**
-     * Configure thread pool.
+     * Configure executor.
      */
     protected void configure() {
-        executor.setKeepAliveTime(Config.getServer().getThreadKeepAliveTime(), TimeUnit.SECONDS);
-        executor.setCorePoolSize(Config.getServer().getMinimumPoolSize());
-        executor.setMaximumPoolSize(Config.getServer().getMaximumPoolSize());
+        if (Config.getServer().isVirtualThreads()) {
+            executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("smtp-", 0).factory());
+            connections = new Semaphore(Config.getServer().getMaximumConnections());
+            rejectOverLimit = Config.getServer().getBacklogPolicy().equalsIgnoreCase("reject");
+            log.info("Using virtual threads with maximum connections: {}", Config.getServer().getMaximumConnections());
+
+        } else {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+            pool.setKeepAliveTime(Config.getServer().getThreadKeepAliveTime(), TimeUnit.SECONDS);
+            pool.setCorePoolSize(Config.getServer().getMinimumPoolSize());
+            pool.setMaximumPoolSize(Config.getServer().getMaximumPoolSize());
+            executor = pool;
+        }
     }
 
     /**
@@ -87,17 +123,20 @@ public class SmtpListener {
     private void acceptConnection() {
         try {
             do {
+                // Wait for a free slot before accepting if not rejecting over limit.
+                if (connections != null && !rejectOverLimit) {
+                    connections.acquireUninterruptibly();
+                }
+
                 Socket sock = listener.accept();
                 log.info("Accepted connection from {}:{}.", sock.getInetAddress().getHostAddress(), sock.getPort());
 
-                executor.submit(() -> {
-                    try {
-                        new EmailReceipt(sock).run();
-                    } catch (Exception e) {
-                        log.error("Email receipt unexpected exception: {}", e.getMessage());
-                    }
-                    return null;
-                });
+                if (connections != null && rejectOverLimit && !connections.tryAcquire()) {
+                    reject(sock);
+                    continue;
+                }
+
+                submit(sock);
             } while (!serverShutdown);
 
         } catch (SocketException e) {
@@ -108,6 +147,48 @@ public class SmtpListener {
         }
     }
 
+    /**
+     * Submit receipt for execution.
+     *
+     * @param sock Socket instance.
+     */
+    private void submit(Socket sock) {
+        try {
+            executor.submit(() -> {
+                try {
+                    new EmailReceipt(sock).run();
+                } catch (Exception e) {
+                    log.error("Email receipt unexpected exception: {}", e.getMessage());
+                } finally {
+                    if (connections != null) {
+                        connections.release();
+                    }
+                }
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Email receipt rejected: {}", e.getMessage());
+            if (connections != null) {
+                connections.release();
+            }
+            reject(sock);
+        }
+    }
+
+    /**
+     * Reject connection over limit.
+     *
+     * @param sock Socket instance.
+     */
+    protected void reject(Socket sock) {
+        log.warn("Connection limit reached, rejecting {}.", sock.getInetAddress().getHostAddress());
+        try (Socket socket = sock) {
+            socket.getOutputStream().write(("421 4.7.0 " + Config.getServer().getHostname() + " Too many connections, try again later\r\n").getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            log.info("Error rejecting connection: {}", e.getMessage());
+        }
+    }
+
     /**
      * Shutdown.
      *
@@ -16,6 +16,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.net.ssl.SSLSocket;
+import java.io.BufferedOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.InetSocketAddress;
@@ -47,6 +48,16 @@ public class Connection extends SmtpFoundation {
      */
     private ScenarioConfig scenario = null;
 
+    /**
+     * [Client] Taken from the connection pool.
+     */
+    private boolean reused = false;
+
+    /**
+     * [Client] Handed over to the connection pool.
+     */
+    private boolean released = false;
+
     /**
      * [Client] Constructs a new Connection instance with given Session.
      *
@@ -55,6 +66,7 @@ public class Connection extends SmtpFoundation {
     @SuppressWarnings("unchecked")
     public Connection(Session session) {
         this.session = session;
+        this.session.getSessionTransactionList().setTimer(this::getExchangeStart);
 
         if (Config.getProperties().hasProperty("logging")) {
             LoggingConfig logging = new LoggingConfig(Config.getProperties().getMapProperty("logging"));
@@ -105,6 +117,7 @@ public class Connection extends SmtpFoundation {
             try {
                 log.info("Connecting to: {}:{}", server, session.getPort());
 
+                markExchange();
                 socket = new Socket();
                 socket.connect(new InetSocketAddress(server, session.getPort()), this.session.getConnectTimeout());
                 buildStreams();
@@ -141,7 +154,7 @@ public class Connection extends SmtpFoundation {
      */
     public void buildStreams() throws IOException {
         inc = new LineInputStream(socket.getInputStream());
-        out = new DataOutputStream(socket.getOutputStream());
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
     }
 
     /**
@@ -182,6 +195,57 @@ public class Connection extends SmtpFoundation {
         return server;
     }
 
+    /**
+     * [Client] Is connection taken from the pool.
+     * <p>The handshake was done by an earlier delivery.
+     *
+     * @return Boolean.
+     */
+    public boolean isReused() {
+        return reused;
+    }
+
+    /**
+     * [Client] Sets connection taken from the pool.
+     *
+     * @param reused Boolean.
+     * @return Self.
+     */
+    Connection setReused(boolean reused) {
+        this.reused = reused;
+        return this;
+    }
+
+    /**
+     * [Client] Is connection handed over to the pool.
+     *
+     * @return Boolean.
+     */
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * [Client] Sets connection handed over to the pool.
+     *
+     * @param released Boolean.
+     * @return Self.
+     */
+    Connection setReleased(boolean released) {
+        this.released = released;
+        return this;
+    }
+
+    /**
+     * Close socket unless handed over to the pool.
+     */
+    @Override
+    public void close() {
+        if (!released) {
+            super.close();
+        }
+    }
+
     /**
      * [Server] Gets server username.
      *
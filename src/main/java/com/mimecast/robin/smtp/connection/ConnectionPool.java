@@ -0,0 +1,279 @@
+package com.mimecast.robin.smtp.connection;
+
+import com.mimecast.robin.main.Config;
+import com.mimecast.robin.smtp.io.LineInputStream;
+import com.mimecast.robin.smtp.session.Session;
+import com.mimecast.robin.smtp.transaction.EnvelopeTransactionList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Client connection pool.
+ *
+ * <p>Keeps connections open after delivery so later deliveries to the same destination skip the handshake.
+ * <p>Connections are keyed by session pool key so only compatible sessions share them.
+ * <p>A pooled connection is checked with RSET before reuse and dropped if the server does not accept it.
+ * <p>Idle connections are closed with QUIT once expired and on shutdown.
+ *
+ * @see Connection
+ * @see Session#getPoolKey()
+ */
+public final class ConnectionPool {
+    private static final Logger log = LogManager.getLogger(ConnectionPool.class);
+
+    /**
+     * Protected constructor.
+     */
+    private ConnectionPool() {
+        throw new IllegalStateException("Static class");
+    }
+
+    /**
+     * Socket timeout for QUIT in milliseconds.
+     */
+    private static final int QUIT_TIMEOUT = 5000;
+
+    /**
+     * Idle connections by key.
+     */
+    private static final Map<String, Deque<Idle>> pool = new ConcurrentHashMap<>();
+
+    /*
+      Close idle connections on shutdown.
+     */
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ConnectionPool::clear));
+    }
+
+    /**
+     * Borrow pooled connection for given connection.
+     * <p>Moves the socket of the most recently used idle connection over and checks it with RSET.
+     *
+     * @param connection Connection instance.
+     * @return True if a pooled connection was taken.
+     */
+    public static boolean borrow(Connection connection) {
+        Session session = connection.getSession();
+        Deque<Idle> idles = pool.get(session.getPoolKey());
+        if (idles == null) {
+            return false;
+        }
+
+        Idle idle;
+        while ((idle = idles.pollFirst()) != null) {
+            if (idle.isExpired() || idle.socket.isClosed()) {
+                idle.quit();
+                continue;
+            }
+
+            idle.moveTo(connection);
+            if (reset(connection)) {
+                session.copyNegotiated(idle.session);
+                connection.setReused(true);
+                log.info("Reusing connection to: {}:{}", connection.getServer(), session.getPort());
+                return true;
+            }
+
+            connection.close();
+        }
+
+        return false;
+    }
+
+    /**
+     * Reset pooled connection.
+     *
+     * @param connection Connection instance.
+     * @return True if RSET was accepted.
+     */
+    private static boolean reset(Connection connection) {
+        try {
+            connection.setTimeout(connection.getSession().getTimeout());
+            connection.write("RSET");
+
+            String read = connection.read("250");
+            if (read.startsWith("250")) {
+                connection.getSession().getSessionTransactionList().addTransaction("RSET", "RSET", read, false);
+                return true;
+            }
+        } catch (IOException e) {
+            log.info("Pooled connection unusable: {}", e.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Release connection to the pool.
+     * <p>Only connections still open and without session or envelope errors are kept.
+     *
+     * @param connection Connection instance.
+     * @return True if connection was pooled.
+     */
+    public static boolean release(Connection connection) {
+        Session session = connection.getSession();
+        if (connection.socket == null || connection.socket.isClosed() || hasErrors(session)) {
+            return false;
+        }
+
+        Deque<Idle> idles = pool.computeIfAbsent(session.getPoolKey(), k -> new ConcurrentLinkedDeque<>());
+        if (idles.size() >= Config.getProperties().getLongProperty("poolMaxIdle", 8L)) {
+            return false;
+        }
+
+        try {
+            connection.flush();
+        } catch (IOException e) {
+            return false;
+        }
+
+        idles.offerFirst(new Idle(connection));
+        connection.setReleased(true);
+        log.info("Pooled connection to: {}:{}", connection.getServer(), session.getPort());
+
+        return true;
+    }
+
+    /**
+     * Has session or any of its envelopes got transaction errors.
+     * <p>A failed envelope may leave the connection mid transaction.
+     *
+     * @param session Session instance.
+     * @return Boolean.
+     */
+    private static boolean hasErrors(Session session) {
+        if (!session.getSessionTransactionList().getErrors().isEmpty()) {
+            return true;
+        }
+        for (EnvelopeTransactionList envelope : session.getSessionTransactionList().getEnvelopes()) {
+            if (!envelope.getErrors().isEmpty()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets count of idle connections.
+     *
+     * @return Count.
+     */
+    public static int size() {
+        return pool.values().stream().mapToInt(Deque::size).sum();
+    }
+
+    /**
+     * Close all idle connections.
+     */
+    public static void clear() {
+        for (Deque<Idle> idles : pool.values()) {
+            Idle idle;
+            while ((idle = idles.pollFirst()) != null) {
+                idle.quit();
+            }
+        }
+    }
+
+    /**
+     * Idle connection.
+     */
+    private static class Idle {
+
+        /**
+         * Socket instance.
+         */
+        private final Socket socket;
+
+        /**
+         * Socket input stream container.
+         */
+        private final LineInputStream inc;
+
+        /**
+         * Socket output stream container.
+         */
+        private final DataOutputStream out;
+
+        /**
+         * Connection server.
+         */
+        private final String server;
+
+        /**
+         * Session instance the connection was negotiated with.
+         */
+        private final Session session;
+
+        /**
+         * Time released in milliseconds.
+         */
+        private final long since = System.currentTimeMillis();
+
+        /**
+         * Constructs a new Idle instance with given connection.
+         *
+         * @param connection Connection instance.
+         */
+        Idle(Connection connection) {
+            this.socket = connection.socket;
+            this.inc = connection.inc;
+            this.out = connection.out;
+            this.server = connection.getServer();
+            this.session = connection.getSession();
+        }
+
+        /**
+         * Is idle for longer than allowed.
+         *
+         * @return Boolean.
+         */
+        boolean isExpired() {
+            return System.currentTimeMillis() - since > Config.getProperties().getLongProperty("poolIdleTimeout", 30L) * 1000L;
+        }
+
+        /**
+         * Move socket and streams to given connection.
+         *
+         * @param connection Connection instance.
+         */
+        void moveTo(Connection connection) {
+            connection.socket = socket;
+            connection.inc = inc;
+            connection.out = out;
+            connection.setServer(server);
+        }
+
+        /**
+         * Send QUIT and close socket.
+         */
+        void quit() {
+            try {
+                if (!socket.isClosed()) {
+                    socket.setSoTimeout(QUIT_TIMEOUT);
+                    out.write("QUIT\r\n".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    inc.readLine();
+                }
+            } catch (IOException e) {
+                log.debug("Error closing pooled connection: {}", e.getMessage());
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    log.debug("Socket already closed.");
+                }
+            }
+            log.info("Closed pooled connection to: {}:{}", server, session.getPort());
+        }
+    }
+}
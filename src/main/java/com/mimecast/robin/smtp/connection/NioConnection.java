@@ -0,0 +1,75 @@
+package com.mimecast.robin.smtp.connection;
+
+import com.mimecast.robin.smtp.io.ChannelInputStream;
+import com.mimecast.robin.smtp.io.LineInputStream;
+
+import javax.net.ssl.SSLSocket;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+
+/**
+ * [Server] Connection over a socket channel.
+ *
+ * <p>Reads go through the channel buffer so bytes buffered by the selector are not lost.
+ * <p>After STARTTLS the streams are rebuilt over the TLS socket and the buffer is no longer used.
+ *
+ * @see ChannelInputStream
+ */
+public class NioConnection extends Connection {
+
+    /**
+     * ChannelInputStream instance.
+     */
+    private ChannelInputStream input;
+
+    /**
+     * Constructs a new NioConnection instance with given SocketChannel and ChannelInputStream.
+     *
+     * @param channel SocketChannel instance.
+     * @param input   ChannelInputStream instance.
+     * @throws IOException Unable to communicate.
+     */
+    public NioConnection(SocketChannel channel, ChannelInputStream input) throws IOException {
+        super(channel.socket());
+        this.input = input;
+        buildStreams();
+    }
+
+    /**
+     * Build input/output streams.
+     *
+     * @throws IOException Unable to communicate.
+     */
+    @Override
+    public void buildStreams() throws IOException {
+        if (input != null && !isSecure()) {
+            inc = new LineInputStream(input);
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        } else {
+            super.buildStreams();
+        }
+    }
+
+    /**
+     * Is a complete command line buffered.
+     * <p>Checks both the line reader and the channel buffer behind it.
+     *
+     * @return Boolean.
+     */
+    @Override
+    public boolean hasLine() {
+        return inc.hasLine() || input.hasLine();
+    }
+
+    /**
+     * Is TLS negociated.
+     * <p>A TLS socket can only be read in blocking mode.
+     *
+     * @return Boolean.
+     */
+    public boolean isSecure() {
+        return socket instanceof SSLSocket;
+    }
+}
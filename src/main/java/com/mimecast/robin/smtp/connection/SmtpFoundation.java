@@ -1,6 +1,7 @@
 package com.mimecast.robin.smtp.connection;
 
 import com.mimecast.robin.main.Factories;
+import com.mimecast.robin.smtp.io.DataDecoder;
 import com.mimecast.robin.smtp.io.LineInputStream;
 import com.mimecast.robin.smtp.io.SlowOutputStream;
 import com.mimecast.robin.util.Random;
@@ -10,13 +11,14 @@ import org.apache.logging.log4j.Logger;
 
 import javax.net.ssl.SSLSocket;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -42,6 +44,11 @@ public abstract class SmtpFoundation {
      */
     public static final int EXTENDEDTIMEOUT = 120000;
 
+    /**
+     * DATA read buffer size.
+     */
+    private static final int DATA_BUFFER_SIZE = 65536;
+
     /**
      * Socket instance.
      */
@@ -54,9 +61,28 @@ public abstract class SmtpFoundation {
 
     /**
      * Socket output stream container.
+     * <p>Buffered so replies to pipelined commands go out in a single write.
+     * <p>Flushed before any read that would block.
      */
     DataOutputStream out;
 
+    /**
+     * Start of the current exchange in nanoseconds.
+     * <p>Set by the first write after a read, on connect and on TLS negociation.
+     */
+    private long exchangeStart = 0L;
+
+    /**
+     * Is a response awaited for the current exchange.
+     */
+    private boolean awaiting = false;
+
+    /**
+     * DATA and BDAT read buffer.
+     * <p>Allocated on first use and reused for the lifetime of the connection.
+     */
+    private ByteBuffer dataBuffer;
+
     /**
      * Default TLS protocols supported as string array.
      */
@@ -147,22 +173,32 @@ public abstract class SmtpFoundation {
         String receivedCode = "";
 
         try {
-            byte[] read;
-            while ((read = inc.readLine()) != null) {
-                log.info("<< {}", StringUtils.stripEnd(new String(read, UTF_8), null));
+            // Pipelined commands get their replies on the next read that would block.
+            if (!hasLine()) {
+                flush();
+            }
+
+            int length;
+            while ((length = inc.readLineBuffer()) != -1) {
+                byte[] read = inc.getLineBuffer();
+                String line = new String(read, 0, length, UTF_8);
+                log.info("<< {}", StringUtils.stripEnd(line, null));
 
                 if (expectedCode.length() == 3) {
-                    receivedCode = new String(read).trim().substring(0, expectedCode.length());
+                    receivedCode = line.trim().substring(0, expectedCode.length());
                 }
-                received.append(new String(read));
+                received.append(line);
 
-                if (isSmtpStop(read)) {
+                if (isSmtpStop(read, length)) {
                     break;
                 }
             }
         } catch (IOException e) {
             log.info("Error reading: {}", e.getMessage());
             throw e;
+
+        } finally {
+            awaiting = false;
         }
 
         if (expectedCode.length() == 3 && !expectedCode.equalsIgnoreCase(receivedCode)) {
@@ -179,52 +215,63 @@ public abstract class SmtpFoundation {
     /**
      * Check for SMTP multiline last line.
      *
-     * @param bytes Byte array.
+     * @param bytes  Byte array.
+     * @param length Line length.
      * @return True if last line.
      */
-    private boolean isSmtpStop(byte[] bytes) {
-        return bytes.length < 4 || bytes[3] != DASH;
+    private boolean isSmtpStop(byte[] bytes, int length) {
+        return length < 4 || bytes[3] != DASH;
     }
 
     /**
      * Read fixed number of bytes from socket.
+     * <p>Bytes are copied in blocks through the reusable data buffer.
      *
      * @param bytesToRead  Number of bytes to read.
      * @param outputStream OutputStream instance.
-     * @throws IOException Unable to communicate.
+     * @throws IOException Unable to communicate or end of stream reached early.
      */
     public void readBytes(int bytesToRead, OutputStream outputStream) throws IOException {
-        for (int i = 0; i < bytesToRead; i++) {
-            outputStream.write((byte) inc.read());
+        flush();
+        byte[] buffer = getDataBuffer().array();
+
+        int remaining = bytesToRead;
+        while (remaining > 0) {
+            int read = inc.read(buffer, 0, Math.min(remaining, buffer.length));
+            if (read == -1) {
+                throw new EOFException("End of stream with " + remaining + " bytes left to read");
+            }
+
+            outputStream.write(buffer, 0, read);
+            remaining -= read;
         }
     }
 
     /**
      * Read multiline data from socket to given output stream.
-     * <p>To remove the &lt;CRLF&gt;.&lt;CRLF&gt; terminator we need to keep EOL's.
-     * <p>This lets us check previous line endings + current line for the terminator as per RFC 5321.
+     * <p>Socket bytes are read in bulk and passed through a DataDecoder.
+     * <p>The decoder removes the &lt;CRLF&gt;.&lt;CRLF&gt; terminator and dot stuffing as per RFC 5321.
+     * <p>Any bytes read past the terminator are pushed back for the next command.
      *
      * @param out OutputStream instance.
      * @throws IOException Unable to communicate.
      */
     public void readMultiline(OutputStream out) throws IOException {
         try {
-            byte[] read;
-            byte[] eol = new byte[0];
-            while ((read = inc.readLine()) != null) {
-                // Stop if terminator found
-                int length = eol.length + read.length;
-                if ((length == 5 || length == 3) && isTerminator(eol, read)) {
-                    break;
-                }
+            flush();
 
-                // Write previous EOL if any
-                out.write(eol);
-                // Get current EOL and store
-                eol = getEol(read);
+            ByteBuffer buffer = getDataBuffer();
+            DataDecoder decoder = new DataDecoder(out);
+            int read;
+            while ((read = inc.read(buffer.array(), 0, buffer.capacity())) != -1) {
+                buffer.clear().limit(read);
 
-                // Write line without EOL
-                out.write(trimBytes(read, eol.length));
+                if (decoder.decode(buffer)) {
+                    if (buffer.hasRemaining()) {
+                        inc.unread(buffer.array(), buffer.position(), buffer.remaining());
+                    }
+                    break;
+                }
             }
         } catch (IOException e) {
             log.info("Error reading: {}", e.getMessage());
@@ -233,29 +280,41 @@ public abstract class SmtpFoundation {
     }
 
     /**
-     * Is fullstop.
-     * <p>Check given byte arrays form &lt;CRLF&gt;.&lt;CRLF&gt; terminator sequence.
+     * Is a complete line buffered.
+     * <p>If so the next read will not block.
      *
-     * @param arrays Byte arrays.
      * @return Boolean.
      */
-    private boolean isTerminator(byte[]... arrays) {
-        int length = 0;
-        for (byte[] array : arrays) {
-            length += array.length;
-        }
+    public boolean hasLine() {
+        return inc != null && inc.hasLine();
+    }
 
-        byte[] total = new byte[length];
-        int pos = 0;
-        for (byte[] array : arrays) {
-            System.arraycopy(array, 0, total, pos, array.length);
-            pos += array.length;
+    /**
+     * Flush buffered writes to socket.
+     *
+     * @throws IOException Unable to communicate.
+     */
+    public void flush() throws IOException {
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                log.info("Error writing: {}", e.getMessage());
+                throw e;
+            }
         }
+    }
 
-        return (total.length == 5 && total[0] == 13 && total[1] == 10 && total[2] == 46 && total[3] == 13 && total[4] == 10) ||
-                // For non compliant cases
-                (total.length == 3 && total[0] == 10 && total[1] == 46 && total[2] == 10) ||
-                (total.length == 3 && total[0] == 13 && total[1] == 46 && total[2] == 13);
+    /**
+     * Gets DATA read buffer.
+     *
+     * @return ByteBuffer instance.
+     */
+    private ByteBuffer getDataBuffer() {
+        if (dataBuffer == null) {
+            dataBuffer = ByteBuffer.allocate(DATA_BUFFER_SIZE);
+        }
+        return dataBuffer;
     }
 
     /**
@@ -321,6 +380,7 @@ public abstract class SmtpFoundation {
      */
     @SuppressWarnings("java:S2629") // Info should always be enabled.
     public void write(byte[] bytes) throws IOException {
+        markWrite();
         try {
             out.write(bytes);
             log.info(LOG_WRITE, new String(bytes).trim());
@@ -340,12 +400,29 @@ public abstract class SmtpFoundation {
      * @param slowWait   Time out miliseconds.
      * @throws IOException Unable to communicate.
      */
-    @SuppressWarnings("java:S3776")
     public void write(byte[] bytes, boolean chunkWrite, int slowBytes, int slowWait) throws IOException {
+        write(bytes, 0, bytes.length, chunkWrite, slowBytes, slowWait);
+    }
+
+    /**
+     * Write byte array range to a socket via the instance DataOutputStream.
+     * <p>Used for BDAT deliveries from a reusable chunk buffer.
+     *
+     * @param bytes      Byte array.
+     * @param offset     Start offset.
+     * @param length     Number of bytes.
+     * @param chunkWrite True to chunk string into multiple uneven writes.
+     * @param slowBytes  Size of bytes.
+     * @param slowWait   Time out miliseconds.
+     * @throws IOException Unable to communicate.
+     */
+    @SuppressWarnings("java:S3776")
+    public void write(byte[] bytes, int offset, int length, boolean chunkWrite, int slowBytes, int slowWait) throws IOException {
+        markWrite();
         OutputStream outStream = slowBytes >= 1 && slowWait >= 100 ? new SlowOutputStream(out, slowBytes, slowWait) : out;
 
         try {
-            int totalBytes = bytes.length;
+            int totalBytes = length;
 
             // Chunk payload into multiple uneven length writes.
             if (chunkWrite && totalBytes >= 2048) {
@@ -363,24 +440,21 @@ public abstract class SmtpFoundation {
                 chunks.add(totalBytes);
 
                 // Write chunks to socket and log.
-                int from = 0;
-                int to;
-                byte[] write;
+                int from = offset;
                 for (Integer chunk : chunks) {
-                    to = from + chunk;
-                    write = Arrays.copyOfRange(bytes, from, to);
-                    from = to;
-                    outStream.write(write);
+                    outStream.write(bytes, from, chunk);
+                    outStream.flush();
 
                     if (logData && log.isTraceEnabled()) {
-                        log.trace(LOG_WRITE, StringUtils.stripEnd(new String(write, UTF_8), null));
+                        log.trace(LOG_WRITE, StringUtils.stripEnd(new String(bytes, from, chunk, UTF_8), null));
                     }
+                    from += chunk;
                 }
             } else {
-                outStream.write(bytes);
+                outStream.write(bytes, offset, length);
 
                 if (logData && log.isTraceEnabled()) {
-                    log.trace(LOG_WRITE, StringUtils.stripEnd(new String(bytes, UTF_8), null));
+                    log.trace(LOG_WRITE, StringUtils.stripEnd(new String(bytes, offset, length, UTF_8), null));
                 }
             }
         } catch (IOException e) {
@@ -412,16 +486,14 @@ public abstract class SmtpFoundation {
      * @throws IOException Unable to communicate.
      */
     public void stream(LineInputStream inputStream, int slowBytes, int slowWait) throws IOException {
+        markWrite();
         OutputStream outStream = slowBytes >= 1 && slowWait >= 100 ? new SlowOutputStream(out, slowBytes, slowWait) : out;
 
-        String string;
         byte[] bytes;
         while ((bytes = inputStream.readLine()) != null) {
-            string = new String(bytes).trim();
-
             // Dot stuffing.
-            if (string.equals(".")) {
-                outStream.write(".".getBytes(UTF_8));
+            if (bytes.length > 0 && bytes[0] == '.') {
+                outStream.write('.');
             }
 
             outStream.write(bytes);
@@ -440,7 +512,9 @@ public abstract class SmtpFoundation {
      * @throws SmtpException SMTP delivery exception.
      */
     public void startTLS(boolean client) throws SmtpException {
+        markExchange();
         try {
+            flush();
             socket = Factories.getTLSSocket()
                     .setSocket(socket)
                     .setProtocols(protocols)
@@ -453,12 +527,39 @@ public abstract class SmtpFoundation {
         }
     }
 
+    /**
+     * Mark start of a new exchange.
+     */
+    protected void markExchange() {
+        exchangeStart = System.nanoTime();
+        awaiting = true;
+    }
+
+    /**
+     * Mark start of a new exchange if this is the first write after a read.
+     */
+    private void markWrite() {
+        if (!awaiting) {
+            markExchange();
+        }
+    }
+
+    /**
+     * Gets start of the current exchange.
+     *
+     * @return Time in nanoseconds or 0 if none yet.
+     */
+    public long getExchangeStart() {
+        return exchangeStart;
+    }
+
     /**
      * Close socket.
      */
     public void close() {
         try {
             if (socket != null && !socket.isClosed()) {
+                flush();
                 socket.close();
                 log.info("Socket closed.");
             }
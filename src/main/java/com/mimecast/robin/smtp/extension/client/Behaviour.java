@@ -16,4 +16,13 @@ public interface Behaviour {
      * @throws IOException Unable to communicate.
      */
     void process(Connection connection) throws IOException;
+
+    /**
+     * Can connections be pooled and reused with this behaviour.
+     *
+     * @return Boolean.
+     */
+    default boolean isReusable() {
+        return false;
+    }
 }
@@ -5,14 +5,13 @@ import com.mimecast.robin.smtp.MessageEnvelope;
 import com.mimecast.robin.smtp.connection.Connection;
 import com.mimecast.robin.smtp.io.ChunkedInputStream;
 import com.mimecast.robin.smtp.io.MagicInputStream;
+import com.mimecast.robin.smtp.io.SpillOutputStream;
 import com.mimecast.robin.smtp.transaction.EnvelopeTransactionList;
 import com.mimecast.robin.util.Magic;
 import com.mimecast.robin.util.StreamUtils;
 import org.apache.commons.io.input.BoundedInputStream;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.*;
 
 /**
@@ -59,17 +58,17 @@ public class ClientData extends ClientProcessor {
         // Get data stream.
         InputStream inputStream = getStream(connection, bdat);
 
-        boolean result;
-        if (bdat) {
-            result = processBdat(inputStream);
+        // Closing releases the MIME buffer or spilled file on every path.
+        try {
+            if (bdat) {
+                return processBdat(inputStream);
 
-        } else {
-            result = processData("DATA", inputStream);
+            } else {
+                return processData("DATA", inputStream);
+            }
+        } finally {
+            StreamUtils.closeQuietly(inputStream);
         }
-
-        StreamUtils.closeQuietly(inputStream);
-
-        return result;
     }
 
     /**
@@ -86,15 +85,14 @@ public class ClientData extends ClientProcessor {
         if (envelope.getMime() != null && !envelope.getMime().isEmpty()) {
             log.debug("Sending email from MIME.");
 
-            Path path = Files.createTempFile("robin-", ".eml");
-            try (Closeable ignored = () -> Files.delete(path)) {
-                Magic.putTransactionMagic(messageID, connection.getSession()); // Put magic early for EmailBuilder use.
-                new EmailBuilder(connection.getSession(), envelope)
-                        .buildMime()
-                        .writeTo(new FileOutputStream(path.toFile()));
+            // Built in a pooled memory buffer which spills to disk only for large messages.
+            SpillOutputStream outputStream = new SpillOutputStream();
+            Magic.putTransactionMagic(messageID, connection.getSession()); // Put magic early for EmailBuilder use.
+            new EmailBuilder(connection.getSession(), envelope)
+                    .buildMime()
+                    .writeTo(outputStream);
 
-                inputStream = new FileInputStream(path.toFile());
-            }
+            inputStream = outputStream.getInputStream();
 
         } else if (envelope.getFile() != null) {
             log.debug("Sending email from file: {}", envelope.getFile());
@@ -139,6 +137,19 @@ public class ClientData extends ClientProcessor {
         String write = verb != null ? verb : "DATA";
         connection.write(write);
 
+        return sendData(write, inputStream);
+    }
+
+    /**
+     * DATA sender.
+     * <p>Reads the response to the verb already written and streams the message if accepted.
+     *
+     * @param write       Verb written.
+     * @param inputStream InputStream instance.
+     * @return Boolean.
+     * @throws IOException Unable to communicate.
+     */
+    protected boolean sendData(String write, InputStream inputStream) throws IOException {
         String read;
         read = connection.read("354");
         if (!read.startsWith("354")) {
@@ -194,15 +205,15 @@ public class ClientData extends ClientProcessor {
      * @return Boolean.
      * @throws IOException Unable to communicate.
      */
-    private boolean processBdat(InputStream inputStream) throws IOException {
+    protected boolean processBdat(InputStream inputStream) throws IOException {
         String read = "";
 
         if (inputStream != null) {
             try (ChunkedInputStream chunks = new ChunkedInputStream(inputStream, envelope)) {
-                ByteArrayOutputStream chunk;
+                int length;
                 while (chunks.hasChunks()) {
-                    chunk = chunks.getChunk();
-                    read = writeChunk(chunk.toByteArray(), !chunks.hasChunks());
+                    length = chunks.readChunk();
+                    read = writeChunk(chunks.getChunkBuffer(), ChunkedInputStream.HEADROOM, length, !chunks.hasChunks());
 
                     if (!read.startsWith("250")) return false;
                 }
@@ -229,21 +240,37 @@ public class ClientData extends ClientProcessor {
      * @throws IOException Unable to communicate.
      */
     private String writeChunk(byte[] chunk, boolean last) throws IOException {
-        byte[] bdat = ("BDAT " + chunk.length + (last ? " LAST" : "") + "\r\n").getBytes();
-        byte[] payload;
+        byte[] payload = new byte[ChunkedInputStream.HEADROOM + chunk.length];
+        System.arraycopy(chunk, 0, payload, ChunkedInputStream.HEADROOM, chunk.length);
+
+        return writeChunk(payload, ChunkedInputStream.HEADROOM, chunk.length, last);
+    }
+
+    /**
+     * Writes BDAT chunk to socket from buffer.
+     * <p>The buffer must have room for the BDAT command ahead of the offset.
+     *
+     * @param buffer Buffer byte array.
+     * @param offset Chunk start offset.
+     * @param length Chunk length.
+     * @param last   Is last chunk?
+     * @return SMTP response string.
+     * @throws IOException Unable to communicate.
+     */
+    private String writeChunk(byte[] buffer, int offset, int length, boolean last) throws IOException {
+        byte[] bdat = ("BDAT " + length + (last ? " LAST" : "") + "\r\n").getBytes();
 
-        // Merge bdat to first chunk.
+        // Merge bdat to first chunk by writing it into the room ahead of the payload.
         if (envelope.isChunkBdat()) {
-            payload = new byte[bdat.length + chunk.length];
-            System.arraycopy(bdat, 0, payload, 0, bdat.length);
-            System.arraycopy(chunk, 0, payload, bdat.length, chunk.length);
+            offset -= bdat.length;
+            length += bdat.length;
+            System.arraycopy(bdat, 0, buffer, offset, bdat.length);
 
         } else {
             connection.write(bdat);
-            payload = chunk;
         }
 
-        connection.write(payload, envelope.isChunkWrite(), envelope.getSlowBytes(), envelope.getSlowWait());
+        connection.write(buffer, offset, length, envelope.isChunkWrite(), envelope.getSlowBytes(), envelope.getSlowWait());
 
         String read = connection.read("250");
         envelopeTransactions.addTransaction("BDAT", new String(bdat), read, !read.startsWith("250"));
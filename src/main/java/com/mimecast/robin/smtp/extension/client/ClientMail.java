@@ -32,27 +32,35 @@ public class ClientMail extends ClientProcessor {
         int messageID = connection.getSession().getSessionTransactionList().getEnvelopes().size();
         MessageEnvelope envelope = connection.getSession().getEnvelopes().get(messageID);
 
-        // Construct delivery envelope.
+        // Construct delivery envelope and add to session.
         EnvelopeTransactionList transactionList = new EnvelopeTransactionList();
-
-        // Check if envelope requires SMTPUTF8
-        boolean smtpUtf8 = isUTF8(envelope.getMail().getBytes()) || envelope.getRcpts().stream().anyMatch(r -> isUTF8(r.getBytes()));
+        connection.getSession().getSessionTransactionList().addEnvelope(transactionList);
 
         // Sender.
-        int size = sizeMessage(envelope);
-        String write = "MAIL FROM:<" + envelope.getMail() + ">" + (size > 0 ? " SIZE=" + size : "") + (smtpUtf8 ? " SMTPUTF8" : "") + envelope.getParams("mail");
+        String write = getMailFrom(envelope);
         connection.write(write);
 
         String read = connection.read("250");
 
         transactionList.addTransaction("MAIL", write, read, !read.startsWith("250"));
 
-        // Add transaction list to envelope.
-        connection.getSession().getSessionTransactionList().addEnvelope(transactionList);
-
         return read.startsWith("250");
     }
 
+    /**
+     * Gets MAIL command for given envelope.
+     *
+     * @param envelope MessageEnvelope instance.
+     * @return MAIL command string.
+     */
+    String getMailFrom(MessageEnvelope envelope) {
+        // Check if envelope requires SMTPUTF8
+        boolean smtpUtf8 = isUTF8(envelope.getMail().getBytes()) || envelope.getRcpts().stream().anyMatch(r -> isUTF8(r.getBytes()));
+
+        int size = sizeMessage(envelope);
+        return "MAIL FROM:<" + envelope.getMail() + ">" + (size > 0 ? " SIZE=" + size : "") + (smtpUtf8 ? " SMTPUTF8" : "") + envelope.getParams("mail");
+    }
+
     /**
      * Checks if string is UTF-8 but not ASCII.
      *
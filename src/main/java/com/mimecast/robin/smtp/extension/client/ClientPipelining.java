@@ -0,0 +1,112 @@
+package com.mimecast.robin.smtp.extension.client;
+
+import com.mimecast.robin.smtp.connection.Connection;
+import com.mimecast.robin.smtp.transaction.EnvelopeTransactionList;
+import com.mimecast.robin.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PIPELINING envelope processor.
+ *
+ * <p>Writes MAIL, all RCPT and DATA commands in one go and then reads the responses in order.
+ * <p>Writes are buffered by the connection and flushed on the first read.
+ * <p>With CHUNKING the BDAT chunks follow once the recipients are accepted.
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc2920">RFC 2920</a>
+ */
+public class ClientPipelining extends ClientData {
+
+    /**
+     * PIPELINING processor.
+     *
+     * @param connection Connection instance.
+     * @return Boolean.
+     * @throws IOException Unable to communicate.
+     */
+    @Override
+    public boolean process(Connection connection) throws IOException {
+        this.connection = connection;
+
+        // Select message to send.
+        messageID = connection.getSession().getSessionTransactionList().getEnvelopes().size();
+        envelope = connection.getSession().getEnvelopes().get(messageID);
+
+        // Construct delivery envelope and add to session.
+        envelopeTransactions = new EnvelopeTransactionList();
+        connection.getSession().getSessionTransactionList().addEnvelope(envelopeTransactions);
+
+        // Evaluate is BDAT enabled.
+        boolean bdat = connection.getSession().isEhloBdat() && envelope.getChunkSize() >= 128;
+
+        // Write envelope commands.
+        String mail = new ClientMail().getMailFrom(envelope);
+        connection.write(mail);
+
+        ClientRcpt clientRcpt = new ClientRcpt();
+        List<String> rcpts = new ArrayList<>();
+        for (String to : envelope.getRcpts()) {
+            String write = clientRcpt.getRcptTo(envelope, to);
+            rcpts.add(write);
+            connection.write(write);
+        }
+
+        if (!bdat) {
+            connection.write("DATA");
+        }
+
+        // Read responses in order.
+        String read = connection.read("250");
+        boolean sender = read.startsWith("250");
+        envelopeTransactions.addTransaction("MAIL", mail, read, !sender);
+
+        boolean accepting = false;
+        for (String write : rcpts) {
+            read = connection.read("250");
+
+            if (read.startsWith("250")) accepting = true;
+            envelopeTransactions.addTransaction("RCPT", write, read, !accepting);
+        }
+
+        if (!sender || !accepting) {
+            if (!bdat) {
+                abortData();
+            }
+            return false;
+        }
+
+        InputStream inputStream = getStream(connection, bdat);
+
+        // Closing releases the MIME buffer or spilled file on every path.
+        try {
+            if (bdat) {
+                return processBdat(inputStream);
+
+            } else {
+                return sendData("DATA", inputStream);
+            }
+        } finally {
+            StreamUtils.closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * Aborts pipelined DATA.
+     * <p>Ends the message straight away should the server accept DATA without a valid envelope.
+     *
+     * @throws IOException Unable to communicate.
+     */
+    private void abortData() throws IOException {
+        String read = connection.read("354");
+        if (read.startsWith("354")) {
+            log.debug("Sending [CRLF].[CRLF] without valid envelope");
+            connection.write(".");
+            read = connection.read();
+        }
+
+        envelopeTransactions.addTransaction("DATA", "DATA", read, true);
+    }
+}
@@ -34,7 +34,7 @@ public class ClientRcpt extends ClientProcessor {
         String read;
         boolean accepting = false;
         for (String to : envelope.getRcpts()) {
-            write = "RCPT TO:<" + to + ">" + envelope.getParams("rcpt");
+            write = getRcptTo(envelope, to);
             connection.write(write);
 
             read = connection.read("250");
@@ -45,4 +45,15 @@ public class ClientRcpt extends ClientProcessor {
 
         return accepting;
     }
+
+    /**
+     * Gets RCPT command for given envelope and recipient.
+     *
+     * @param envelope MessageEnvelope instance.
+     * @param to       Recipient address.
+     * @return RCPT command string.
+     */
+    String getRcptTo(MessageEnvelope envelope, String to) {
+        return "RCPT TO:<" + to + ">" + envelope.getParams("rcpt");
+    }
 }
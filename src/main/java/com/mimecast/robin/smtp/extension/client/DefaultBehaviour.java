@@ -4,6 +4,7 @@ import com.mimecast.robin.main.Config;
 import com.mimecast.robin.main.Extensions;
 import com.mimecast.robin.smtp.MessageEnvelope;
 import com.mimecast.robin.smtp.connection.Connection;
+import com.mimecast.robin.smtp.connection.ConnectionPool;
 import com.mimecast.robin.smtp.extension.Extension;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -32,13 +33,38 @@ public class DefaultBehaviour implements Behaviour {
     public void process(Connection connection) throws IOException {
         this.connection = connection;
 
-        if (!ehlo()) return;
-        if (!startTls()) return;
-        if (!auth()) return;
+        // Pooled connections have been through the handshake already.
+        if (!connection.isReused() && !handshake()) return;
         if (!connection.getSession().getEnvelopes().isEmpty()) {
             data();
         }
-        quit();
+
+        // Pooled connections are left open for the next delivery.
+        if (!connection.getSession().isPool() || !ConnectionPool.release(connection)) {
+            quit();
+        }
+    }
+
+    /**
+     * Can connections be pooled and reused with this behaviour.
+     *
+     * @return Boolean.
+     */
+    @Override
+    public boolean isReusable() {
+        return true;
+    }
+
+    /**
+     * Executes EHLO, STARTTLS and AUTH.
+     *
+     * @return Boolean.
+     * @throws IOException Unable to communicate.
+     */
+    boolean handshake() throws IOException {
+        if (!ehlo()) return false;
+        if (!startTls()) return false;
+        return auth();
     }
 
     /**
@@ -109,11 +135,27 @@ public class DefaultBehaviour implements Behaviour {
      * @throws IOException Unable to communicate.
      */
     private void send() throws IOException {
+        // Pipeline envelope if enabled and advertised.
+        if (connection.getSession().isPipelining() && connection.getSession().isEhloPipelining()) {
+            pipelining();
+            return;
+        }
+
         if (!process("mail", connection)) return;
         if (!process("rcpt", connection)) return;
         process("data", connection);
     }
 
+    /**
+     * Executes pipelined envelope delivery.
+     *
+     * @return Boolean.
+     * @throws IOException Unable to communicate.
+     */
+    boolean pipelining() throws IOException {
+        return new ClientPipelining().process(connection);
+    }
+
     /**
      * Executes QUIT.
      *
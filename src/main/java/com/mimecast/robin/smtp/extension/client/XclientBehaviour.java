@@ -1,6 +1,5 @@
 package com.mimecast.robin.smtp.extension.client;
 
-import com.mimecast.robin.smtp.connection.Connection;
 import com.mimecast.robin.smtp.session.XclientSession;
 
 import java.io.IOException;
@@ -13,30 +12,27 @@ import java.io.IOException;
 public class XclientBehaviour extends DefaultBehaviour {
 
     /**
-     * Executes delivery.
+     * Executes EHLO, STARTTLS, XCLIENT and AUTH.
+     *
+     * @return Boolean.
+     * @throws IOException Unable to communicate.
      */
     @Override
-    public void process(Connection connection) throws IOException {
-        this.connection = connection;
-
-        if (!ehlo()) return;
-        if (!startTls()) return;
+    boolean handshake() throws IOException {
+        if (!ehlo()) return false;
+        if (!startTls()) return false;
 
         // XCLIENT
         if (connection.getSession() instanceof XclientSession) {
             XclientSession session = (XclientSession) connection.getSession();
             if (session.getXclient() != null && session.getXclient().size() > 0) {
-                if (!process("xclient", connection)) return;
+                if (!process("xclient", connection)) return false;
 
                 // Post XCLIENT hello.
-                if (!ehlo()) return;
+                if (!ehlo()) return false;
             }
         }
 
-        if (!auth()) return;
-        if (!connection.getSession().getEnvelopes().isEmpty()) {
-            data();
-        }
-        quit();
+        return auth();
     }
 }
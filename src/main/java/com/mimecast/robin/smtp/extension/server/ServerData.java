@@ -92,8 +92,10 @@ public class ServerData extends ServerProcessor {
 
         try (CountingOutputStream cos = new CountingOutputStream(storageClient.getStream())) {
             connection.setTimeout(connection.getSession().getExtendedTimeout());
+            long start = System.nanoTime();
             connection.readMultiline(cos);
             bytesReceived = cos.getByteCount();
+            rate(start);
 
         } finally {
             connection.setTimeout(connection.getSession().getTimeout());
@@ -104,6 +106,18 @@ public class ServerData extends ServerProcessor {
         return storageClient;
     }
 
+    /**
+     * Record receipt rate in bytes per second to session.
+     *
+     * @param start Receipt start time in nanoseconds.
+     */
+    protected void rate(long start) {
+        long elapsed = Math.max(System.nanoTime() - start, 1L);
+        long rate = (long) (bytesReceived * 1_000_000_000D / elapsed);
+        connection.getSession().setDataRate(rate);
+        log.info("Received {} bytes at {} bytes/sec", bytesReceived, rate);
+    }
+
     /**
      * Binary receipt.
      *
@@ -141,7 +155,10 @@ public class ServerData extends ServerProcessor {
     protected void binaryRead(BdatVerb verb, CountingOutputStream cos) throws IOException {
         try {
             connection.setTimeout(connection.getSession().getExtendedTimeout());
+            long start = System.nanoTime();
             connection.readBytes(verb.getSize(), cos);
+            bytesReceived = cos.getByteCount();
+            rate(start);
 
         } finally {
             connection.setTimeout(connection.getSession().getTimeout());
@@ -3,6 +3,8 @@ package com.mimecast.robin.smtp.extension.server;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.mimecast.robin.config.server.ScenarioConfig;
+import com.mimecast.robin.config.server.ServerConfig;
+import com.mimecast.robin.main.Config;
 import com.mimecast.robin.main.Extensions;
 import com.mimecast.robin.smtp.connection.Connection;
 import com.mimecast.robin.smtp.extension.Extension;
@@ -11,7 +13,9 @@ import com.mimecast.robin.smtp.verb.Verb;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +24,11 @@ import java.util.Optional;
  */
 public class ServerEhlo extends ServerProcessor {
 
+    /**
+     * Adverts rendered for the current server config.
+     */
+    private static volatile Adverts adverts;
+
     /**
      * EHLO processor.
      *
@@ -62,11 +71,18 @@ public class ServerEhlo extends ServerProcessor {
 
     /**
      * Writes adverts to socket.
+     * <p>The advert block is rendered once per server config and written in one go.
      *
      * @throws IOException Unable to communicate.
      */
     public void writeAdverts() throws IOException {
-        List<String> adverts = Lists.newArrayList(Sets.newHashSet(collectAdverts()));
+        Adverts cached = getAdverts();
+        if (!connection.getSession().isStartTls() || cached.list.stream().noneMatch(a -> a.equalsIgnoreCase("STARTLS"))) {
+            connection.write(cached.block);
+            return;
+        }
+
+        List<String> adverts = cached.list;
         for (int i = 0; i < adverts.size(); i++) {
             if (!adverts.get(i).equalsIgnoreCase("STARTLS") || !connection.getSession().isStartTls()) {
                 connection.write("250" + ((adverts.size() - 1) > i ? "-" : " ") + adverts.get(i));
@@ -74,6 +90,22 @@ public class ServerEhlo extends ServerProcessor {
         }
     }
 
+    /**
+     * Gets adverts for current server config.
+     * <p>Rebuilt when the server config is replaced.
+     *
+     * @return Adverts instance.
+     */
+    private static Adverts getAdverts() {
+        Adverts cached = adverts;
+        if (cached == null || cached.config != Config.getServer()) {
+            cached = new Adverts(Config.getServer(), Lists.newArrayList(Sets.newHashSet(collectAdverts())));
+            adverts = cached;
+        }
+
+        return cached;
+    }
+
     /**
      * Collects adverts from extensions.
      *
@@ -97,4 +129,42 @@ public class ServerEhlo extends ServerProcessor {
 
         return adverts;
     }
+
+    /**
+     * Adverts rendered for a server config.
+     */
+    private static class Adverts {
+
+        /**
+         * Server config rendered for.
+         */
+        private final ServerConfig config;
+
+        /**
+         * Adverts list.
+         */
+        private final List<String> list;
+
+        /**
+         * Rendered advert lines.
+         */
+        private final byte[] block;
+
+        /**
+         * Constructs a new Adverts instance.
+         *
+         * @param config ServerConfig instance.
+         * @param list   Adverts list.
+         */
+        Adverts(ServerConfig config, List<String> list) {
+            this.config = config;
+            this.list = Collections.unmodifiableList(list);
+
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < list.size(); i++) {
+                builder.append("250").append((list.size() - 1) > i ? "-" : " ").append(list.get(i)).append("\r\n");
+            }
+            this.block = builder.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
 }
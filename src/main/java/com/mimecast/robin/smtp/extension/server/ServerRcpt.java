@@ -7,7 +7,6 @@ import com.mimecast.robin.smtp.verb.Verb;
 import javax.mail.internet.AddressException;
 import javax.mail.internet.InternetAddress;
 import java.io.IOException;
-import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -29,16 +28,15 @@ public class ServerRcpt extends ServerMail {
 
         // Scenario response.
         Optional<ScenarioConfig> opt = connection.getScenario();
-        if (opt.isPresent() && opt.get().getRcpt() != null) {
-            for (Map<String, String> entry : opt.get().getRcpt()) {
-                if (getAddress() != null && getAddress().getAddress().matches(entry.get("value"))) {
-                    String response = entry.get("response");
-                    if (response.startsWith("2")) {
-                        connection.getSession().addRcpt(getAddress());
-                    }
-                    connection.write(response);
-                    return response.startsWith("2");
+        if (opt.isPresent() && getAddress() != null) {
+            Optional<String> rcpt = opt.get().getRcptResponse(getAddress().getAddress());
+            if (rcpt.isPresent()) {
+                String response = rcpt.get();
+                if (response.startsWith("2")) {
+                    connection.getSession().addRcpt(getAddress());
                 }
+                connection.write(response);
+                return response.startsWith("2");
             }
         }
 
@@ -0,0 +1,151 @@
+package com.mimecast.robin.smtp.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Input stream over a socket channel backed by a reusable byte buffer.
+ *
+ * <p>While the channel is non-blocking the selector calls fill() to buffer whatever bytes are available.
+ * <p>Once the channel is switched to blocking mode reads drain the buffer first and then refill it from the socket.
+ * <p>Socket timeouts are honored on blocking refills as they go via the socket input stream.
+ */
+public class ChannelInputStream extends InputStream {
+
+    /**
+     * Line feed byte.
+     */
+    private static final int LF = 10; // \n
+
+    /**
+     * Socket channel instance.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * Byte buffer kept in read mode between calls.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Blocking socket input stream.
+     */
+    private InputStream stream;
+
+    /**
+     * Constructs a new ChannelInputStream instance with given buffer size.
+     *
+     * @param channel SocketChannel instance.
+     * @param size    Buffer size.
+     */
+    public ChannelInputStream(SocketChannel channel, int size) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(size);
+        this.buffer.flip();
+    }
+
+    /**
+     * Non-blocking fill from channel.
+     *
+     * @return Number of bytes read or -1 on end of stream.
+     * @throws IOException Unable to read.
+     */
+    public int fill() throws IOException {
+        buffer.compact();
+        try {
+            return channel.read(buffer);
+        } finally {
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Has a complete line buffered.
+     *
+     * @return Boolean.
+     */
+    public boolean hasLine() {
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (buffer.get(i) == LF) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Is buffer full.
+     *
+     * @return Boolean.
+     */
+    public boolean isFull() {
+        return buffer.remaining() == buffer.capacity();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!buffer.hasRemaining() && refill() == -1) {
+            return -1;
+        }
+
+        return buffer.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!buffer.hasRemaining()) {
+            // Large reads bypass the buffer.
+            if (len >= buffer.capacity()) {
+                return getStream().read(b, off, len);
+            }
+
+            if (refill() == -1) {
+                return -1;
+            }
+        }
+
+        int count = Math.min(len, buffer.remaining());
+        buffer.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    /**
+     * Blocking refill from socket.
+     *
+     * @return Number of bytes read or -1 on end of stream.
+     * @throws IOException Unable to read.
+     */
+    private int refill() throws IOException {
+        buffer.clear();
+        int read = getStream().read(buffer.array(), 0, buffer.capacity());
+        buffer.limit(Math.max(read, 0));
+
+        return read > 0 ? read : -1;
+    }
+
+    /**
+     * Gets blocking socket input stream.
+     *
+     * @return InputStream instance.
+     * @throws IOException Unable to read.
+     */
+    private InputStream getStream() throws IOException {
+        if (stream == null) {
+            stream = channel.socket().getInputStream();
+        }
+
+        return stream;
+    }
+}
@@ -1,12 +1,9 @@
 package com.mimecast.robin.smtp.io;
 
 import com.mimecast.robin.smtp.MessageEnvelope;
-import org.apache.commons.lang3.StringUtils;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Arrays;
 
 /**
  * Input stream with data chunking capabilities for SMTP CHUNKING extension.
@@ -14,10 +11,18 @@ import java.util.Arrays;
  * <p>This wraps an input stream and provides chunked writes.
  * <p>By extending MagicInputStream it also provides magic variable replacement.
  * <p>The chunking is configured by provided MessageEnvelope.
+ * <p>Chunks are read into a single reusable buffer which keeps room ahead of the payload.
+ * <p>This allows the BDAT command to be put in front of the payload and written together without copying.
  */
 @SuppressWarnings("squid:MaximumInheritanceDepth")
 public class ChunkedInputStream extends MagicInputStream {
 
+    /**
+     * Room reserved ahead of chunk payload.
+     * <p>Enough for the longest BDAT command.
+     */
+    public static final int HEADROOM = 32;
+
     /**
      * Default chunk size.
      */
@@ -34,10 +39,25 @@ public class ChunkedInputStream extends MagicInputStream {
     private boolean finished = false;
 
     /**
-     * Container for bytes read over the chunk limit.
+     * Reusable chunk buffer.
+     */
+    private byte[] chunk;
+
+    /**
+     * Line bytes read over the chunk limit.
      * <p>This is because we read lines.
      */
-    private final ByteArrayOutputStream rest = new ByteArrayOutputStream();
+    private byte[] pending;
+
+    /**
+     * Pending line offset.
+     */
+    private int pendingOffset = 0;
+
+    /**
+     * Pending line length.
+     */
+    private int pendingLength = 0;
 
     /**
      * Constructs a new ChunkedInputStream instance with given MessageEnvelope.
@@ -51,6 +71,7 @@ public class ChunkedInputStream extends MagicInputStream {
         if (envelope.getChunkSize() > 128) {
             chunkSize = envelope.getChunkSize();
         }
+        chunk = new byte[HEADROOM + chunkSize];
     }
 
     /**
@@ -63,63 +84,74 @@ public class ChunkedInputStream extends MagicInputStream {
     }
 
     /**
-     * Gets chunk.
+     * Read chunk into reusable chunk buffer.
      *
-     * @return ByteArrayOutputStream chunk.
+     * @return Chunk length.
      * @throws IOException Unable to read.
      */
-    public ByteArrayOutputStream getChunk() throws IOException {
-        return getChunk(false);
+    public int readChunk() throws IOException {
+        return readChunk(false);
     }
 
     /**
-     * Gets chunk.
+     * Read chunk into reusable chunk buffer.
+     * <p>The chunk bytes are available via getChunkBuffer() from HEADROOM up to the returned length until the next read.
      *
      * @param breakHeader Break header boolean.
-     * @return ByteArrayOutputStream chunk.
+     * @return Chunk length.
      * @throws IOException Unable to read.
      */
-    public ByteArrayOutputStream getChunk(boolean breakHeader) throws IOException {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-
-        // Variables.
-        int size;
-        int diff = 0;
-        int total = 0;
-        byte[] bytes;
-
-        // Pick up leftovers.
-        if (rest.size() > 0) {
-            out.write(rest.toByteArray());
-            total += rest.size();
-            rest.reset();
-        }
-
-        // Read lines.
-        while ((bytes = super.readLine()) != null) {
-            size = bytes.length;
-            total += size;
-
-            if (total >= chunkSize) {
-                diff = total - chunkSize;
+    public int readChunk(boolean breakHeader) throws IOException {
+        int length = 0;
+
+        while (true) {
+            // Read next line once pending bytes are used up.
+            // When the chunk is full this looks ahead so the last chunk is known.
+            if (pendingLength == 0) {
+                int size = readLineBuffer();
+                if (size == -1) {
+                    finished = true;
+                    break;
+                }
+
+                pending = getLineBuffer();
+                byte[] magic = doMagic(pending, size);
+                if (magic != pending) {
+                    pending = magic;
+                    size = magic.length;
+                }
+                pendingOffset = 0;
+                pendingLength = size;
             }
 
-            if (diff > 0) {
-                out.write(Arrays.copyOfRange(bytes, 0, bytes.length - diff));
-                rest.write(Arrays.copyOfRange(bytes, bytes.length - diff, bytes.length));
-                return out;
+            if (length == chunkSize) {
+                break;
             }
 
-            out.write(bytes);
+            boolean whole = pendingOffset == 0;
+            int count = Math.min(pendingLength, chunkSize - length);
+            System.arraycopy(pending, pendingOffset, chunk, HEADROOM + length, count);
+            length += count;
+            pendingOffset += count;
+            pendingLength -= count;
 
-            if (breakHeader && !headersEnded && !StringUtils.isNotBlank(new String(bytes))) {
+            if (breakHeader && !headersEnded && whole && pendingLength == 0 && isBlank(pending, count)) {
                 headersEnded = true;
-                return out;
+                break;
             }
         }
 
-        finished = true;
-        return out;
+        return length;
+    }
+
+    /**
+     * Gets reusable chunk buffer.
+     * <p>Payload starts at HEADROOM.
+     *
+     * @return Byte array.
+     */
+    public byte[] getChunkBuffer() {
+        return chunk;
     }
 
     /**
@@ -130,4 +162,20 @@ public class ChunkedInputStream extends MagicInputStream {
     public boolean hasChunks() {
         return !finished;
     }
+
+    /**
+     * Is line blank.
+     *
+     * @param bytes  Byte array.
+     * @param length Line length.
+     * @return Boolean.
+     */
+    private static boolean isBlank(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            if (!Character.isWhitespace(bytes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,206 @@
+package com.mimecast.robin.smtp.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * SMTP DATA stream decoder.
+ *
+ * <p>Consumes raw DATA bytes from a ByteBuffer, finds the end of data terminator and undoes dot stuffing.
+ * <p>Bytes between line boundaries are written to the output in whole runs straight from the buffer array.
+ * <p>State is kept between calls so lines, line endings and the terminator may span buffers.
+ * <p>The line ending preceding the terminator is not written to the output.
+ * <p>CRLF, LF and CR line endings are accepted.
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc5321#section-4.5.2">RFC 5321 Transparency</a>
+ */
+public class DataDecoder {
+
+    /**
+     * Carrige return byte.
+     */
+    private static final byte CR = 13; // \r
+
+    /**
+     * Line feed byte.
+     */
+    private static final byte LF = 10; // \n
+
+    /**
+     * Dot byte.
+     */
+    private static final byte DOT = 46; // .
+
+    /**
+     * Line feed line ending.
+     */
+    private static final byte[] EOL_LF = {LF};
+
+    /**
+     * Carrige return line ending.
+     */
+    private static final byte[] EOL_CR = {CR};
+
+    /**
+     * Carrige return line feed line ending.
+     */
+    private static final byte[] EOL_CRLF = {CR, LF};
+
+    /**
+     * Decoder states.
+     */
+    private enum State {
+        LINE_START,
+        DOT,
+        DOT_CR,
+        TEXT,
+        TEXT_CR,
+        DONE
+    }
+
+    /**
+     * Output stream.
+     */
+    private final OutputStream out;
+
+    /**
+     * Current state.
+     */
+    private State state = State.LINE_START;
+
+    /**
+     * Line ending held back until the next line is known not to be the terminator.
+     */
+    private byte[] eol = null;
+
+    /**
+     * Constructs a new DataDecoder instance with given OutputStream.
+     *
+     * @param out OutputStream instance.
+     */
+    public DataDecoder(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Decode buffer.
+     * <p>Consumes bytes from the buffer position up to its limit or the end of the terminator whichever is first.
+     * <p>Any bytes remaining in the buffer after the terminator are left unread.
+     *
+     * @param buffer ByteBuffer instance backed by an array.
+     * @return True if terminator found.
+     * @throws IOException Unable to write.
+     */
+    @SuppressWarnings("squid:S3776")
+    public boolean decode(ByteBuffer buffer) throws IOException {
+        byte[] array = buffer.array();
+        int offset = buffer.arrayOffset();
+        int limit = offset + buffer.limit();
+        int i = offset + buffer.position();
+        int run = i;
+
+        while (i < limit && state != State.DONE) {
+            byte b = array[i];
+
+            switch (state) {
+                case LINE_START:
+                    if (b == DOT) {
+                        state = State.DOT;
+                        i++;
+                        continue;
+                    }
+                    writeEol();
+                    run = i;
+                    state = State.TEXT;
+                    break;
+
+                case DOT:
+                    if (b == CR) {
+                        state = State.DOT_CR;
+                        i++;
+                        continue;
+                    }
+                    if (b == LF) {
+                        state = State.DONE;
+                        i++;
+                        continue;
+                    }
+                    // Stuffed dot is dropped.
+                    writeEol();
+                    run = i;
+                    state = State.TEXT;
+                    break;
+
+                case DOT_CR:
+                    // Terminator with CR line ending if not followed by LF.
+                    if (b == LF) {
+                        i++;
+                    }
+                    state = State.DONE;
+                    continue;
+
+                case TEXT:
+                    // Tight scan for the next line ending.
+                    while (i < limit && array[i] != CR && array[i] != LF) {
+                        i++;
+                    }
+                    if (i == limit) {
+                        continue;
+                    }
+                    out.write(array, run, i - run);
+                    if (array[i] == LF) {
+                        eol = EOL_LF;
+                        state = State.LINE_START;
+                    } else {
+                        state = State.TEXT_CR;
+                    }
+                    i++;
+                    run = i;
+                    continue;
+
+                case TEXT_CR:
+                    if (b == LF) {
+                        eol = EOL_CRLF;
+                        i++;
+                    } else {
+                        eol = EOL_CR;
+                    }
+                    state = State.LINE_START;
+                    continue;
+
+                default:
+                    break;
+            }
+        }
+
+        // Flush partial line.
+        if (state == State.TEXT && i > run) {
+            out.write(array, run, i - run);
+        }
+
+        buffer.position(i - offset);
+        return state == State.DONE;
+    }
+
+    /**
+     * Is terminator found.
+     *
+     * @return Boolean.
+     */
+    public boolean isDone() {
+        return state == State.DONE;
+    }
+
+    /**
+     * Write held back line ending if any.
+     *
+     * @throws IOException Unable to write.
+     */
+    private void writeEol() throws IOException {
+        if (eol != null) {
+            out.write(eol);
+            eol = null;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.mimecast.robin.smtp.io;
+
+import com.mimecast.robin.mime.headers.MimeHeader;
+import com.mimecast.robin.mime.headers.MimeHeaders;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream with header capture capability.
+ *
+ * <p>Passes all bytes through to the wrapped stream unchanged.
+ * <p>Bytes up to the first empty line are tokenized into MimeHeaders as they are written.
+ * <p>This avoids reading back a stored email just to look up its headers.
+ *
+ * @see com.mimecast.robin.mime.EmailParser
+ */
+public class HeaderTeeOutputStream extends FilterOutputStream {
+
+    /**
+     * Maximum header section size captured in bytes.
+     */
+    private static final int MAX_HEADERS_SIZE = 1024 * 1024;
+
+    /**
+     * Captured headers.
+     */
+    private final MimeHeaders headers = new MimeHeaders();
+
+    /**
+     * Current line bytes.
+     */
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+
+    /**
+     * Current header string.
+     */
+    private StringBuilder header = new StringBuilder();
+
+    /**
+     * Header section size so far.
+     */
+    private int size = 0;
+
+    /**
+     * Header section ended.
+     */
+    private boolean ended = false;
+
+    /**
+     * Constructs a new HeaderTeeOutputStream instance.
+     *
+     * @param out OutputStream instance.
+     */
+    public HeaderTeeOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        if (!ended) {
+            capture(b);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        for (int i = off; i < off + len && !ended; i++) {
+            capture(b[i]);
+        }
+    }
+
+    /**
+     * Capture byte into current line.
+     *
+     * @param b Byte.
+     */
+    private void capture(int b) {
+        line.write(b);
+        if (b == '\n') {
+            processLine();
+        }
+
+        if (++size > MAX_HEADERS_SIZE) {
+            ended = true;
+        }
+    }
+
+    /**
+     * Process line as header or header continuation.
+     */
+    private void processLine() {
+        byte[] bytes = line.toByteArray();
+        line.reset();
+
+        String string = new String(bytes);
+
+        // If line doens't start with a whitespace
+        // we need to produce a header from what we got so far
+        // if any.
+        if (!Character.isWhitespace(bytes[0]) && header.length() > 0) {
+            headers.put(new MimeHeader(header.toString()));
+            header = new StringBuilder();
+        }
+
+        // End if found end of headers.
+        if (StringUtils.isBlank(string.trim())) {
+            ended = true;
+            return;
+        }
+
+        header.append(string);
+    }
+
+    /**
+     * Gets captured headers.
+     * <p>Any pending header is completed.
+     *
+     * @return MimeHeaders instance.
+     */
+    public MimeHeaders getHeaders() {
+        if (line.size() > 0 && !ended) {
+            processLine();
+        }
+
+        if (header.length() > 0) {
+            headers.put(new MimeHeader(header.toString()));
+            header = new StringBuilder();
+        }
+        ended = true;
+
+        return headers;
+    }
+}
@@ -1,20 +1,18 @@
 package com.mimecast.robin.smtp.io;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PushbackInputStream;
+import java.util.Arrays;
 
 /**
  * Input stream with binary line reading capability.
  *
  * <p>InputStream implementation returns lines with EOL as byte array and counts lines.
+ * <p>Reads are buffered and lines are found by scanning the buffer for CR/LF rather than reading byte by byte.
+ * <p>Bytes unread are pushed back into the same buffer which grows if needed.
  */
 public class LineInputStream extends PushbackInputStream {
-    private static final Logger log = LogManager.getLogger(LineInputStream.class);
 
     /**
      * Carrige return byte.
@@ -26,6 +24,31 @@ public class LineInputStream extends PushbackInputStream {
      */
     private static final int LF = 10; // \n
 
+    /**
+     * Default read buffer size.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Read buffer.
+     */
+    private byte[] buffer;
+
+    /**
+     * Read buffer position.
+     */
+    private int position = 0;
+
+    /**
+     * Read buffer limit.
+     */
+    private int limit = 0;
+
+    /**
+     * Reusable line buffer.
+     */
+    private byte[] line = new byte[256];
+
     /**
      * Current line number.
      */
@@ -37,17 +60,19 @@ public class LineInputStream extends PushbackInputStream {
      * @param stream InputStream instance.
      */
     public LineInputStream(InputStream stream) {
-        super(stream);
+        this(stream, BUFFER_SIZE);
     }
 
     /**
      * Constructs a new LineInputStream instance with given pushback buffer size.
+     * <p>The read buffer will be at least this size.
      *
      * @param stream InputStream instance.
      * @param size   Pushback buffer size.
      */
     public LineInputStream(InputStream stream, int size) {
-        super(stream, size);
+        super(stream, 1);
+        buffer = new byte[Math.max(size, BUFFER_SIZE)];
     }
 
     /**
@@ -65,36 +90,204 @@ public class LineInputStream extends PushbackInputStream {
      * @return Byte array.
      * @throws IOException Unable to read.
      */
-    @SuppressWarnings({"squid:S1168", "squid:S135"})
+    @SuppressWarnings("squid:S1168")
     public byte[] readLine() throws IOException {
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        int length = readLineBuffer();
+        return length == -1 ? null : Arrays.copyOf(line, length);
+    }
 
+    /**
+     * Read line into reusable line buffer.
+     * <p>The line bytes are available via getLineBuffer() up to the returned length until the next read.
+     * <p>This does not go through any readLine() processing done by extending classes.
+     *
+     * @return Line length or -1 if end of stream.
+     * @throws IOException Unable to read.
+     */
+    @SuppressWarnings("squid:S135")
+    public int readLineBuffer() throws IOException {
+        int length = 0;
         boolean foundCR = false;
-        int intByte;
-        while ((intByte = read()) != -1) {
-            // Have CR but LF doesn't follow unread byte and return what is read so far.
-            if (foundCR && intByte != LF) {
-                unread(intByte);
+
+        while (position < limit || fill() != -1) {
+            // Have CR at the end of previous read, only a LF may follow.
+            if (foundCR) {
+                if (buffer[position] == LF) {
+                    length = append(length, position, 1);
+                    position++;
+                }
                 break;
             }
 
-            // CR is recorded and read continues in hope of finding LF next.
-            foundCR = foundCR || intByte == CR;
+            int start = position;
+            int end = -1;
+            for (int i = position; i < limit; i++) {
+                if (buffer[i] == LF) {
+                    end = i + 1;
+                    break;
+                }
 
-            // LF will instantly terminate the read and return.
-            if (intByte == LF) {
-                buffer.write(intByte);
+                if (buffer[i] == CR) {
+                    if (i + 1 == limit) {
+                        // CR is recorded and read continues in hope of finding LF next.
+                        foundCR = true;
+                    } else {
+                        // Have CR and maybe a LF following.
+                        end = buffer[i + 1] == LF ? i + 2 : i + 1;
+                    }
+                    break;
+                }
+            }
+
+            if (end != -1) {
+                length = append(length, start, end - start);
+                position = end;
                 break;
             }
 
-            buffer.write(intByte);
+            length = append(length, start, limit - start);
+            position = limit;
         }
 
-        if (buffer.size() == 0) {
-            return null;
+        if (length == 0) {
+            return -1;
         }
 
         lineNumber++;
-        return buffer.toByteArray();
+        return length;
+    }
+
+    /**
+     * Gets reusable line buffer.
+     *
+     * @return Byte array.
+     */
+    public byte[] getLineBuffer() {
+        return line;
+    }
+
+    /**
+     * Is a complete line buffered.
+     * <p>A CR at the end of the buffer is not counted as a LF may follow.
+     *
+     * @return Boolean.
+     */
+    public boolean hasLine() {
+        for (int i = position; i < limit; i++) {
+            if (buffer[i] == LF || (buffer[i] == CR && i + 1 < limit)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Append buffer range to line buffer.
+     *
+     * @param length Current line length.
+     * @param from   Buffer start position.
+     * @param count  Number of bytes.
+     * @return New line length.
+     */
+    private int append(int length, int from, int count) {
+        if (length + count > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+        }
+        System.arraycopy(buffer, from, line, length, count);
+        return length + count;
+    }
+
+    /**
+     * Fill read buffer from underlying stream.
+     *
+     * @return Number of bytes read or -1 if end of stream.
+     * @throws IOException Unable to read.
+     */
+    private int fill() throws IOException {
+        position = 0;
+        limit = 0;
+
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return -1;
+        }
+
+        limit = read;
+        return read;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position >= limit && fill() == -1) {
+            return -1;
+        }
+
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (position >= limit) {
+            // Large reads bypass the buffer.
+            if (len >= buffer.length) {
+                return in.read(b, off, len);
+            }
+
+            if (fill() == -1) {
+                return -1;
+            }
+        }
+
+        int count = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+
+        long buffered = Math.min(n, limit - position);
+        position += (int) buffered;
+
+        return buffered < n ? buffered + in.skip(n - buffered) : buffered;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (limit - position) + in.available();
+    }
+
+    @Override
+    public void unread(int b) {
+        unread(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void unread(byte[] b) {
+        unread(b, 0, b.length);
+    }
+
+    @Override
+    public void unread(byte[] b, int off, int len) {
+        if (len > position) {
+            // Make room at the front of the buffer.
+            int remaining = limit - position;
+            byte[] target = remaining + len > buffer.length ? new byte[remaining + len] : buffer;
+            System.arraycopy(buffer, position, target, len, remaining);
+            buffer = target;
+            position = len;
+            limit = len + remaining;
+        }
+
+        position -= len;
+        System.arraycopy(b, off, buffer, position, len);
     }
 }
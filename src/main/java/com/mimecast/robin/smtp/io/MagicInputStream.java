@@ -4,12 +4,13 @@ import com.mimecast.robin.smtp.MessageEnvelope;
 import com.mimecast.robin.util.Random;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 /**
  * Input stream with magic variable replacement capability.
@@ -17,6 +18,7 @@ import java.util.regex.Pattern;
  * <p>This implements line reading InputStream.
  * <p>It finds and replaces magic tags in lines read given MessageEnvelope provided.
  * <p>It uses LineInputStream to do the actual line reading.
+ * <p>Lines are scanned as bytes and only those containing a magic tag are rewritten.
  *
  * <p><b>Will break binary integrity on replaced lines, to be used in string lines only.</b>
  *
@@ -31,27 +33,17 @@ public class MagicInputStream extends LineInputStream {
     MessageEnvelope envelope;
 
     /**
-     * Smart magic tags patterns.
+     * Magic tag prefix.
      */
-    private static final Pattern patternRandCh = Pattern.compile("\\{\\$randch([0-9]*)}", Pattern.CASE_INSENSITIVE);
-    private static final Pattern patternRandNo = Pattern.compile("\\{\\$randno([0-9]*)}", Pattern.CASE_INSENSITIVE);
+    private static final byte[] PREFIX = {'{', '$'};
 
     /**
-     * Simple magic tags patterns.
+     * Simple magic tags.
      */
-    private static final Map<String, Pattern> simpleTags = new HashMap<>();
-
-    static {
-        simpleTags.put("{$msgid}", Pattern.compile("\\{\\$msgid}", Pattern.CASE_INSENSITIVE));
-        simpleTags.put("{$date}", Pattern.compile("\\{\\$date}", Pattern.CASE_INSENSITIVE));
-        simpleTags.put("{$yymd}", Pattern.compile("\\{\\$yymd}", Pattern.CASE_INSENSITIVE));
-        simpleTags.put("{$year}", Pattern.compile("\\{\\$year}", Pattern.CASE_INSENSITIVE));
-        simpleTags.put("{$mailfrom}", Pattern.compile("\\{\\$mailfrom}", Pattern.CASE_INSENSITIVE));
-        simpleTags.put("{$mail}", Pattern.compile("\\{\\$mail}", Pattern.CASE_INSENSITIVE));
-        simpleTags.put("{$rcptto}", Pattern.compile("\\{\\$rcptto}", Pattern.CASE_INSENSITIVE));
-        simpleTags.put("{$rcpt}", Pattern.compile("\\{\\$rcpt}", Pattern.CASE_INSENSITIVE));
-        simpleTags.put("{$headers", Pattern.compile("\\{\\$headers(\\[[a-z0-9-]+])?}", Pattern.CASE_INSENSITIVE));
-    }
+    private static final Set<String> simpleTags = Set.of(
+            "{$msgid}", "{$date}", "{$yymd}", "{$year}",
+            "{$mailfrom}", "{$mail}", "{$rcptto}", "{$rcpt}"
+    );
 
     /**
      * Constructs a new MagicInputStream instance with given MessageEnvelope.
@@ -86,66 +78,157 @@ public class MagicInputStream extends LineInputStream {
 
     /**
      * Replace magic variables in line bytes.
+     * <p>Lines without magic tags are returned as is without copying.
+     * <p>Tags are expanded straight into the output and the same tag in a line gets the same value.
      *
      * @param lineBytes Byte array.
      * @return Byte array.
      */
     byte[] doMagic(byte[] lineBytes) {
-        if (lineBytes != null && envelope != null) {
-            boolean changed = false;
-            String tag = new String(lineBytes).toLowerCase();
-            String line = new String(lineBytes);
-
-            if (tag.contains("{$randch")) {
-                String random = randCh(line);
-                changed = !randCh(line).equals(line);
-                line = random;
-            }
+        return lineBytes != null ? doMagic(lineBytes, lineBytes.length) : null;
+    }
 
-            if (tag.contains("{$randno")) {
-                String random = randNo(line);
-                changed = !randNo(line).equals(line);
-                line = random;
-            }
+    /**
+     * Replace magic variables in line bytes up to given length.
+     * <p>Returns the same array if nothing was replaced else a new array of the replaced line.
+     *
+     * @param lineBytes Byte array.
+     * @param length    Line length.
+     * @return Byte array.
+     */
+    byte[] doMagic(byte[] lineBytes, int length) {
+        if (envelope == null) {
+            return lineBytes;
+        }
 
-            String magic = doMagic(tag, line);
-            if (!line.equals(magic)) {
-                changed = true;
-                line = magic;
-            }
+        int start = indexOf(lineBytes, 0, length);
+        if (start == -1) {
+            return lineBytes;
+        }
+
+        ByteArrayOutputStream output = null;
+        Map<String, byte[]> values = new HashMap<>();
+        int literal = 0;
+
+        while (start != -1) {
+            int end = start + PREFIX.length;
+            while (end < length && isTagByte(lineBytes[end])) end++;
+
+            if (end < length && lineBytes[end] == '}') {
+                String tag = new String(lineBytes, start, end - start + 1, StandardCharsets.US_ASCII);
+                byte[] value = values.computeIfAbsent(tag, this::getValue);
 
-            if (changed) {
-                lineBytes = line.getBytes();
+                if (value != null) {
+                    if (output == null) {
+                        output = new ByteArrayOutputStream(length + 64);
+                    }
+                    output.write(lineBytes, literal, start - literal);
+                    output.write(value, 0, value.length);
+                    literal = end + 1;
+                    start = indexOf(lineBytes, literal, length);
+                    continue;
+                }
             }
+
+            start = indexOf(lineBytes, start + 1, length);
         }
 
-        return lineBytes;
+        if (output == null) {
+            return lineBytes;
+        }
+
+        output.write(lineBytes, literal, length - literal);
+        return output.toByteArray();
     }
 
     /**
-     * Replace simple magic tags in line string.
+     * Gets value for magic tag.
      *
-     * @param tag  Magic tag.
-     * @param line Line string.
-     * @return Line string.
+     * @param tag Magic tag.
+     * @return Byte array or null if not a magic tag.
      */
-    String doMagic(String tag, String line) {
-        for (Map.Entry<String, Pattern> entry : simpleTags.entrySet()) {
-            if (tag.contains(entry.getKey())) {
-
-                String key = entry.getKey();
-                Matcher matcher = entry.getValue().matcher(tag);
-                if (matcher.find()) {
-                    key = matcher.group();
-                }
-                String replacement = getReplacement(key);
-                if (replacement != null) {
-                    line = entry.getValue().matcher(line).replaceAll(replacement);
-                }
+    byte[] getValue(String tag) {
+        String key = tag.toLowerCase();
+        String value = null;
+
+        if (key.startsWith("{$randch")) {
+            Integer length = getLength(key, "{$randch", 20);
+            value = length != null ? Random.ch(length) : null;
+
+        } else if (key.startsWith("{$randno")) {
+            Integer length = getLength(key, "{$randno", 10);
+            value = length != null ? Integer.toString(Random.no(length)) : null;
+
+        } else if (simpleTags.contains(key) || isHeadersTag(key)) {
+            value = getReplacement(key);
+        }
+
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Gets random tag length.
+     *
+     * @param key      Magic tag in lower case.
+     * @param prefix   Magic tag prefix.
+     * @param fallback Default length.
+     * @return Length or null if not a random tag.
+     */
+    private Integer getLength(String key, String prefix, int fallback) {
+        String digits = key.substring(prefix.length(), key.length() - 1);
+        if (digits.isEmpty()) {
+            return fallback;
+        }
+
+        return StringUtils.isNumeric(digits) ? Integer.parseInt(digits) : null;
+    }
+
+    /**
+     * Is headers magic tag with optional header name.
+     *
+     * @param key Magic tag in lower case.
+     * @return Boolean.
+     */
+    private boolean isHeadersTag(String key) {
+        if (key.equals("{$headers}")) {
+            return true;
+        }
+
+        if (key.startsWith("{$headers[") && key.endsWith("]}")) {
+            String name = key.substring("{$headers[".length(), key.length() - 2);
+            return !name.isEmpty() && name.indexOf('[') == -1 && name.indexOf(']') == -1;
+        }
+
+        return false;
+    }
+
+    /**
+     * Is magic tag name byte.
+     *
+     * @param b Byte.
+     * @return Boolean.
+     */
+    private static boolean isTagByte(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') ||
+                b == '-' || b == '[' || b == ']';
+    }
+
+    /**
+     * Find magic tag prefix in bytes.
+     *
+     * @param bytes  Byte array.
+     * @param from   Start position.
+     * @param length Bytes length.
+     * @return Position or -1 if not found.
+     */
+    private static int indexOf(byte[] bytes, int from, int length) {
+        for (int i = from; i < length - 1; i++) {
+            if (bytes[i] == PREFIX[0] && bytes[i + 1] == PREFIX[1]) {
+                return i;
             }
         }
 
-        return line;
+        return -1;
     }
 
     /**
@@ -200,48 +283,4 @@ public class MagicInputStream extends LineInputStream {
 
         return "";
     }
-
-    /**
-     * Random character string.
-     *
-     * @param line Line string.
-     * @return Value string.
-     */
-    String randCh(String line) {
-        Matcher matcher = patternRandCh.matcher(line);
-        int rnd = 20;
-
-        if (matcher.find()) {
-            String len = matcher.group(1);
-            if (StringUtils.isNotBlank(len)) {
-                rnd = Integer.parseInt(matcher.group(1));
-            }
-
-            return matcher.replaceAll(Random.ch(rnd));
-        }
-
-        return line;
-    }
-
-    /**
-     * Random number string.
-     *
-     * @param line Line string.
-     * @return Value string.
-     */
-    String randNo(String line) {
-        Matcher matcher = patternRandNo.matcher(line);
-        int rnd = 10;
-
-        if (matcher.find()) {
-            String len = matcher.group(1);
-            if (StringUtils.isNotBlank(len)) {
-                rnd = Integer.parseInt(matcher.group(1));
-            }
-
-            return matcher.replaceAll(Integer.toString(Random.no(rnd)));
-        }
-
-        return line;
-    }
 }
@@ -60,6 +60,7 @@ public class SlowOutputStream extends OutputStream {
             count++;
             if (count == bytes) {
                 count = 0;
+                out.flush();
                 log.info("Waiting after {} bytes wrote.", bytes);
                 totalWait += wait;
                 Sleep.nap(wait);
@@ -69,6 +70,11 @@ public class SlowOutputStream extends OutputStream {
         out.write(b);
     }
 
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
     /**
      * Gets total wait time spent waiting in miliseconds.
      * <p>This is primarly here for unit testing.
@@ -0,0 +1,219 @@
+package com.mimecast.robin.smtp.io;
+
+import com.mimecast.robin.main.Config;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Output stream buffering in memory with spill to disk.
+ *
+ * <p>Bytes are kept in a pooled in-memory buffer up to the spill size.
+ * <p>Past that the buffer is written to a temporary file and the rest goes to disk.
+ * <p>Once written the content is read back via getInputStream().
+ * <p>Closing that input stream returns the buffer to the pool or deletes the temporary file.
+ */
+public class SpillOutputStream extends OutputStream {
+    private static final Logger log = LogManager.getLogger(SpillOutputStream.class);
+
+    /**
+     * Initial buffer size.
+     */
+    private static final int INITIAL_SIZE = 64 * 1024;
+
+    /**
+     * Largest buffer kept in the pool.
+     */
+    private static final int POOLED_MAX = 1024 * 1024;
+
+    /**
+     * Maximum buffers kept in the pool.
+     */
+    private static final int POOL_SIZE = 32;
+
+    /**
+     * Buffer pool.
+     */
+    private static final Deque<byte[]> pool = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Spill size in bytes.
+     */
+    private final long spillSize;
+
+    /**
+     * In-memory buffer.
+     */
+    private byte[] buffer;
+
+    /**
+     * In-memory buffer count.
+     */
+    private int count = 0;
+
+    /**
+     * Total bytes written.
+     */
+    private long size = 0;
+
+    /**
+     * Spill file path.
+     */
+    private Path path;
+
+    /**
+     * Spill file output stream.
+     */
+    private OutputStream file;
+
+    /**
+     * Constructs a new SpillOutputStream instance with configured spill size.
+     * <p>Configured via mimeSpillSize property in bytes.
+     */
+    public SpillOutputStream() {
+        this(Config.getProperties().getLongProperty("mimeSpillSize", 4194304L));
+    }
+
+    /**
+     * Constructs a new SpillOutputStream instance with given spill size.
+     *
+     * @param spillSize Spill size in bytes.
+     */
+    public SpillOutputStream(long spillSize) {
+        this.spillSize = spillSize;
+
+        byte[] pooled = pool.pollFirst();
+        buffer = pooled != null ? pooled : new byte[INITIAL_SIZE];
+    }
+
+    /**
+     * Gets total bytes written.
+     *
+     * @return Size in bytes.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Is spilled to disk.
+     *
+     * @return Boolean.
+     */
+    public boolean isSpilled() {
+        return path != null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        size += len;
+        if (file == null && count + len > spillSize) {
+            spill();
+        }
+
+        if (file != null) {
+            file.write(b, off, len);
+            return;
+        }
+
+        if (count + len > buffer.length) {
+            buffer = Arrays.copyOf(buffer, (int) Math.min(Math.max(buffer.length * 2L, count + (long) len), Integer.MAX_VALUE - 8));
+        }
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    /**
+     * Spill buffer to temporary file.
+     *
+     * @throws IOException Unable to write file.
+     */
+    private void spill() throws IOException {
+        path = Files.createTempFile("robin-", ".eml");
+        file = new BufferedOutputStream(new FileOutputStream(path.toFile()));
+        file.write(buffer, 0, count);
+        log.debug("Spilled to file: {}", path);
+
+        release(buffer);
+        buffer = null;
+        count = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (file != null) {
+            file.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    /**
+     * Gets input stream of written content.
+     * <p>Closes this output stream.
+     *
+     * @return InputStream instance.
+     * @throws IOException Unable to read file.
+     */
+    public InputStream getInputStream() throws IOException {
+        close();
+
+        if (path != null) {
+            final Path spilled = path;
+            return new FileInputStream(spilled.toFile()) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    Files.deleteIfExists(spilled);
+                }
+            };
+        }
+
+        final byte[] bytes = buffer;
+        buffer = null;
+        return new ByteArrayInputStream(bytes, 0, count) {
+            private boolean closed = false;
+
+            @Override
+            public void close() {
+                if (!closed) {
+                    closed = true;
+                    release(bytes);
+                }
+            }
+        };
+    }
+
+    /**
+     * Return buffer to the pool.
+     *
+     * @param bytes Byte array.
+     */
+    private static void release(byte[] bytes) {
+        if (bytes.length <= POOLED_MAX && pool.size() < POOL_SIZE) {
+            pool.offerFirst(bytes);
+        }
+    }
+}
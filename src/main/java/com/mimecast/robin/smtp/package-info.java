@@ -26,6 +26,7 @@
  *             // TLS configuration.
  *             .setTls(true)
  *             .setAuthBeforeTls(false) // Do AUTH before STRTTLS.
+ *             .setPipelining(true) // Pipeline MAIL, RCPT and DATA if advertised.
  *             .setAuthLoginCombined(true) // Send username and password in one line for AUTH LOGIN.
  *             .setAuthLoginRetry(true) // Disable authLoginCombined and retry AUTH LOGIN.
  *             .setProtocols(new String[] { "TLSv1.2" })
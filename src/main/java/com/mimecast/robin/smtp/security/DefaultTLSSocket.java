@@ -7,14 +7,10 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.net.ssl.*;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.security.GeneralSecurityException;
-import java.security.KeyStore;
-import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -94,26 +90,10 @@ public class DefaultTLSSocket implements TLSSocket {
             throw new IOException("Socket not defined");
         }
 
-        // Trust manager.
-        TrustManager[] tm = new TrustManager[]{Factories.getTrustManager()};
-
-        // Key manager X.509.
-        KeyManager[] km = null;
-        if (!client) {
-            KeyManagerFactory kmf = KeyManagerFactory.getInstance("SunX509");
-            KeyStore ks = KeyStore.getInstance("JKS");
-
-            // Load keystore.
-            ks.load(getKeyStore(), getKeyStorePassword());
-            kmf.init(ks, getKeyStorePassword());
-
-            km = kmf.getKeyManagers();
-        }
-
-        // Get the default SSLSocketFactory.
-        @SuppressWarnings("squid:S4423")
-        SSLContext sc = SSLContext.getInstance("TLS");
-        sc.init(km, tm, new SecureRandom());
+        // Cached context with key manager X.509 in server mode.
+        SSLContext sc = client ?
+                TLSContextCache.get(null, null, Factories.getTrustManager()) :
+                TLSContextCache.get(getKeyStore(), getKeyStorePassword(), Factories.getTrustManager());
         SSLSocketFactory sf = sc.getSocketFactory();
 
         // Wrap 'socket' from above in a TLS socket.
@@ -201,20 +181,12 @@ public class DefaultTLSSocket implements TLSSocket {
     }
 
     /**
-     * Gets keystore.
+     * Gets keystore path.
      *
-     * @return Keystore.
+     * @return Keystore path.
      */
-    private FileInputStream getKeyStore() {
-        try {
-            String path = Config.getProperties().getStringProperty("javax.net.ssl.keyStore");
-            if (StringUtils.isNotBlank(path)) {
-                return new FileInputStream(path);
-            }
-        } catch (FileNotFoundException e) {
-            log.error("Error getting keystore.");
-        }
-        return null;
+    private String getKeyStore() {
+        return Config.getProperties().getStringProperty("javax.net.ssl.keyStore");
     }
 
     /**
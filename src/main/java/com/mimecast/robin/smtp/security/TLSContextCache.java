@@ -0,0 +1,193 @@
+package com.mimecast.robin.smtp.security;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TLS context cache.
+ *
+ * <p>Keeps one SSLContext per keystore, password and trust manager for the lifetime of the process.
+ * <p>Parsing the keystore and seeding a new SecureRandom on every STARTTLS is costly under load.
+ * <p>A context is rebuilt when its keystore file is modified on disk.
+ * <p>Reusing the context also reuses its session caches which enables TLS session resumption.
+ * <p>Protocols and cipher suites are applied per socket so they do not affect the context.
+ * <p>Trust managers are matched by instance as their trust material is not visible.
+ * <p>The stateless PermissiveTrustManager is the exception and all its instances share contexts.
+ * <p>The cache is bounded so trust managers made per connection cannot grow it without limit.
+ *
+ * @see DefaultTLSSocket
+ */
+public final class TLSContextCache {
+    private static final Logger log = LogManager.getLogger(TLSContextCache.class);
+
+    /**
+     * Protected constructor.
+     */
+    private TLSContextCache() {
+        throw new IllegalStateException("Static class");
+    }
+
+    /**
+     * Maximum cached contexts.
+     */
+    private static final int CACHE_SIZE = 256;
+
+    /**
+     * Cached contexts by key in access order.
+     */
+    private static final Map<List<Object>, Entry> cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+
+    /**
+     * Gets SSLContext for given keystore and trust manager.
+     * <p>Without a keystore the context has no key managers as needed in client mode.
+     *
+     * @param keyStore     Keystore file path or null.
+     * @param password     Keystore password.
+     * @param trustManager X509TrustManager instance.
+     * @return SSLContext instance.
+     * @throws IOException              Unable to read keystore.
+     * @throws GeneralSecurityException Problems with TrustManager or KeyManager.
+     */
+    public static SSLContext get(String keyStore, char[] password, X509TrustManager trustManager) throws IOException, GeneralSecurityException {
+        return get("TLS", keyStore, password, trustManager);
+    }
+
+    /**
+     * Gets SSLContext for given protocol, keystore and trust manager.
+     *
+     * @param protocol     SSLContext protocol.
+     * @param keyStore     Keystore file path or null.
+     * @param password     Keystore password.
+     * @param trustManager X509TrustManager instance.
+     * @return SSLContext instance.
+     * @throws IOException              Unable to read keystore.
+     * @throws GeneralSecurityException Problems with TrustManager or KeyManager.
+     */
+    public static SSLContext get(String protocol, String keyStore, char[] password, X509TrustManager trustManager) throws IOException, GeneralSecurityException {
+        List<Object> key = Arrays.asList(
+                protocol,
+                StringUtils.defaultString(keyStore),
+                Arrays.hashCode(password),
+                getTrustKey(trustManager));
+
+        File file = StringUtils.isNotBlank(keyStore) ? new File(keyStore) : null;
+        long modified = file != null ? file.lastModified() : 0L;
+
+        Entry entry = cache.get(key);
+        if (entry == null || entry.modified != modified) {
+            entry = new Entry(build(protocol, file, password, trustManager), modified);
+            cache.put(key, entry);
+        }
+
+        return entry.context;
+    }
+
+    /**
+     * Gets cache key for given trust manager.
+     * <p>The class for PermissiveTrustManager which holds no trust material and the instance otherwise.
+     *
+     * @param trustManager X509TrustManager instance.
+     * @return Key object.
+     */
+    public static Object getTrustKey(X509TrustManager trustManager) {
+        return trustManager.getClass() == PermissiveTrustManager.class ? PermissiveTrustManager.class : trustManager;
+    }
+
+    /**
+     * Build new SSLContext.
+     *
+     * @param protocol     SSLContext protocol.
+     * @param file         Keystore file or null.
+     * @param password     Keystore password.
+     * @param trustManager X509TrustManager instance.
+     * @return SSLContext instance.
+     * @throws IOException              Unable to read keystore.
+     * @throws GeneralSecurityException Problems with TrustManager or KeyManager.
+     */
+    private static SSLContext build(String protocol, File file, char[] password, X509TrustManager trustManager) throws IOException, GeneralSecurityException {
+        // Key manager X.509.
+        KeyManager[] km = null;
+        if (file != null) {
+            KeyManagerFactory kmf = KeyManagerFactory.getInstance("SunX509");
+            KeyStore ks = KeyStore.getInstance("JKS");
+
+            // Load keystore.
+            if (file.isFile()) {
+                try (InputStream inputStream = new FileInputStream(file)) {
+                    ks.load(inputStream, password);
+                }
+                log.info("Loaded keystore: {}", file.getPath());
+            } else {
+                log.error("Error getting keystore.");
+                ks.load(null, password);
+            }
+            kmf.init(ks, password);
+
+            km = kmf.getKeyManagers();
+        }
+
+        @SuppressWarnings("squid:S4423")
+        SSLContext sc = SSLContext.getInstance(protocol);
+        sc.init(km, new TrustManager[]{trustManager}, new SecureRandom());
+
+        return sc;
+    }
+
+    /**
+     * Clear all cached contexts.
+     */
+    public static void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Cached context.
+     */
+    private static class Entry {
+
+        /**
+         * SSLContext instance.
+         */
+        private final SSLContext context;
+
+        /**
+         * Keystore last modified time in milliseconds when loaded.
+         */
+        private final long modified;
+
+        /**
+         * Constructs a new Entry instance.
+         *
+         * @param context  SSLContext instance.
+         * @param modified Keystore last modified time.
+         */
+        Entry(SSLContext context, long modified) {
+            this.context = context;
+            this.modified = modified;
+        }
+    }
+}
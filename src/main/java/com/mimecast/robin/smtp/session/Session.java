@@ -8,6 +8,7 @@ import com.mimecast.robin.smtp.MessageEnvelope;
 import com.mimecast.robin.smtp.connection.SmtpFoundation;
 import com.mimecast.robin.smtp.transaction.SessionTransactionList;
 import com.mimecast.robin.util.Magic;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
@@ -140,6 +141,11 @@ public class Session {
      */
     private boolean ehloBdat = false;
 
+    /**
+     * [Client] EHLO advertised PIPELINING.
+     */
+    private boolean ehloPipelining = false;
+
     /**
      * [Client] EHLO advertised CHUNKING.
      */
@@ -165,6 +171,16 @@ public class Session {
      */
     private boolean authBeforeTls = false;
 
+    /**
+     * [Client] Pipeline envelope commands if advertised.
+     */
+    private boolean pipelining = false;
+
+    /**
+     * [Client] Keep connection open in the pool for reuse by later deliveries.
+     */
+    private boolean pool = false;
+
     /**
      * [Client] Authentication enabled.
      */
@@ -210,6 +226,11 @@ public class Session {
      */
     private final List<MessageEnvelope> envelopes = new ArrayList<>();
 
+    /**
+     * [Server] Last DATA/BDAT receipt rate in bytes per second.
+     */
+    private long dataRate = 0L;
+
     /**
      * SessionTransactionList instance.
      */
@@ -223,8 +244,9 @@ public class Session {
     /**
      * List of magic variables.
      * <p>Handy palce to store external data for reuse.
+     * <p>Synchronized as external assertions may run concurrently.
      */
-    private final Map<String, Object> magic = new HashMap<>();
+    private final Map<String, Object> magic = Collections.synchronizedMap(new HashMap<>());
 
     /**
      * Saved results.
@@ -704,6 +726,26 @@ public class Session {
         return this;
     }
 
+    /**
+     * Gets EHLO advertised PIPELINING.
+     *
+     * @return PIPELINING enablement.
+     */
+    public boolean isEhloPipelining() {
+        return ehloPipelining;
+    }
+
+    /**
+     * Sets EHLO advertised PIPELINING.
+     *
+     * @param ehloPipelining EHLO PIPELINING boolean.
+     * @return Self.
+     */
+    public Session setEhloPipelining(boolean ehloPipelining) {
+        this.ehloPipelining = ehloPipelining;
+        return this;
+    }
+
     /**
      * Gets EHLO advertised authentication mechanisms.
      *
@@ -804,6 +846,91 @@ public class Session {
         return this;
     }
 
+    /**
+     * Gets pipelining enablement.
+     *
+     * @return Pipelining enablement.
+     */
+    public boolean isPipelining() {
+        return pipelining;
+    }
+
+    /**
+     * Sets pipelining enablement.
+     * <p>Envelope commands are only pipelined if the server advertises PIPELINING.
+     *
+     * @param pipelining Pipelining enablement.
+     * @return Self.
+     */
+    public Session setPipelining(boolean pipelining) {
+        this.pipelining = pipelining;
+        return this;
+    }
+
+    /**
+     * Gets connection pooling enablement.
+     *
+     * @return Pooling enablement.
+     */
+    public boolean isPool() {
+        return pool;
+    }
+
+    /**
+     * Sets connection pooling enablement.
+     *
+     * @param pool Pooling enablement.
+     * @return Self.
+     */
+    public Session setPool(boolean pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Gets connection pool key.
+     * <p>Sessions with the same key can share a pooled connection.
+     * <p>Built from destination, EHLO domain, TLS and authentication identity.
+     * <p>Authentication identity covers username, password digest and AUTH LOGIN options.
+     *
+     * @return Key string.
+     */
+    public String getPoolKey() {
+        return String.join("|",
+                String.valueOf(mx),
+                String.valueOf(port),
+                String.valueOf(bind),
+                String.valueOf(ehlo),
+                String.valueOf(tls),
+                Arrays.toString(protocols),
+                Arrays.toString(ciphers),
+                auth ? String.join(":",
+                        String.valueOf(username),
+                        DigestUtils.sha256Hex(String.valueOf(password)),
+                        String.valueOf(authLoginCombined),
+                        String.valueOf(authLoginRetry)) : "");
+    }
+
+    /**
+     * Copies state negotiated over a connection from given session.
+     * <p>Used when a pooled connection is reused so the EHLO adverts and TLS state carry over.
+     *
+     * @param session Session instance the connection was negotiated with.
+     * @return Self.
+     */
+    public Session copyNegotiated(Session session) {
+        this.ehloSize = session.ehloSize;
+        this.ehloTls = session.ehloTls;
+        this.smtpUtf8 = session.smtpUtf8;
+        this.ehlo8bit = session.ehlo8bit;
+        this.ehloBinary = session.ehloBinary;
+        this.ehloBdat = session.ehloBdat;
+        this.ehloPipelining = session.ehloPipelining;
+        this.ehloAuth = new ArrayList<>(session.ehloAuth);
+        this.startTls = session.startTls;
+        return this;
+    }
+
     /**
      * Is authentication enabled.
      *
@@ -984,6 +1111,26 @@ public class Session {
         return this;
     }
 
+    /**
+     * Gets last DATA/BDAT receipt rate.
+     *
+     * @return Bytes per second.
+     */
+    public long getDataRate() {
+        return dataRate;
+    }
+
+    /**
+     * Sets last DATA/BDAT receipt rate.
+     *
+     * @param dataRate Bytes per second.
+     * @return Self.
+     */
+    public Session setDataRate(long dataRate) {
+        this.dataRate = dataRate;
+        return this;
+    }
+
     /**
      * Gets SessionTransactionList instance.
      *
@@ -6,6 +6,7 @@ import com.mimecast.robin.util.Magic;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * XCLIENT session.
@@ -54,6 +55,17 @@ public class XclientSession extends Session {
         return this;
     }
 
+    /**
+     * Gets connection pool key.
+     * <p>XCLIENT changes the connection identity so its parameters are part of the key.
+     *
+     * @return Key string.
+     */
+    @Override
+    public String getPoolKey() {
+        return super.getPoolKey() + "|" + new TreeMap<>(xclient);
+    }
+
     /**
      * Mapper for CaseConfig to Session with XCLIENT.
      */
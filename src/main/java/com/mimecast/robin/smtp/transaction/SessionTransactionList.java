@@ -29,10 +29,14 @@ public class SessionTransactionList extends TransactionList {
 
     /**
      * Adds envelope to list.
+     * <p>The envelope inherits the session timer if it has none.
      *
      * @param envelopeTransactionList EnvelopeTransactionList instance.
      */
     public void addEnvelope(EnvelopeTransactionList envelopeTransactionList) {
+        if (envelopeTransactionList.getTimer() == null) {
+            envelopeTransactionList.setTimer(getTimer());
+        }
         envelopes.add(envelopeTransactionList);
     }
 
@@ -32,6 +32,16 @@ public class Transaction {
      */
     private boolean error;
 
+    /**
+     * Records the exchange start time in nanoseconds if known.
+     */
+    private long start = 0L;
+
+    /**
+     * Records the exchange end time in nanoseconds.
+     */
+    private long end = 0L;
+
     /**
      * Constructor.
      *
@@ -149,6 +159,46 @@ public class Transaction {
         return error;
     }
 
+    /**
+     * Sets the exchange timing.
+     *
+     * @param start Start time in nanoseconds or 0 if unknown.
+     * @param end   End time in nanoseconds.
+     * @return Self.
+     */
+    public Transaction setTiming(long start, long end) {
+        this.start = start;
+        this.end = end;
+        return this;
+    }
+
+    /**
+     * Gets the exchange start time.
+     *
+     * @return Time in nanoseconds or 0 if unknown.
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the exchange end time.
+     *
+     * @return Time in nanoseconds.
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets the exchange latency.
+     *
+     * @return Time in nanoseconds or -1 if unknown.
+     */
+    public long getLatency() {
+        return start > 0 && end >= start ? end - start : -1L;
+    }
+
     /**
      * Transactions as string.
      *
@@ -6,6 +6,7 @@ import org.apache.logging.log4j.Logger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.LongSupplier;
 
 /**
  * Transaction list.
@@ -26,6 +27,39 @@ public abstract class TransactionList {
      */
     private final List<String> repeatable = Arrays.asList("SMTP", "RCPT", "BDAT");
 
+    /**
+     * Exchange start time supplier in nanoseconds.
+     */
+    private LongSupplier timer;
+
+    /**
+     * Sets exchange start time supplier.
+     * <p>Transactions added are timed from the supplied start to when they are added.
+     *
+     * @param timer LongSupplier instance returning nanoseconds.
+     */
+    public void setTimer(LongSupplier timer) {
+        this.timer = timer;
+    }
+
+    /**
+     * Gets exchange start time supplier.
+     *
+     * @return LongSupplier instance or null if not set.
+     */
+    public LongSupplier getTimer() {
+        return timer;
+    }
+
+    /**
+     * Adds timed transaction.
+     *
+     * @param transaction Transaction instance.
+     */
+    private void add(Transaction transaction) {
+        transactions.add(transaction.setTiming(timer != null ? timer.getAsLong() : 0L, System.nanoTime()));
+    }
+
     /**
      * Adds new transaction with response only.
      *
@@ -35,7 +69,7 @@ public abstract class TransactionList {
     public void addTransaction(String command, String response) {
         if (!repeatable.contains(command) && !getTransactions(command).isEmpty()) return;
 
-        transactions.add(new Transaction(command).setResponse(response));
+        add(new Transaction(command).setResponse(response));
 
         if (log.isTraceEnabled()) {
             log.trace("Adding transaction: Command: {}, Response: {}", command, response.replaceAll("[\\n\\r]", ""));
@@ -52,7 +86,7 @@ public abstract class TransactionList {
     public void addTransaction(String command, String response, boolean error) {
         if (!repeatable.contains(command) && !getTransactions(command).isEmpty()) return;
 
-        transactions.add(new Transaction(command).setResponse(response).setError(error));
+        add(new Transaction(command).setResponse(response).setError(error));
 
         if (log.isTraceEnabled()) {
             log.trace("Adding transaction: Command: {}, Response: {}, Error: {}", command, response.replaceAll("[\\n\\r]", ""), error);
@@ -69,7 +103,7 @@ public abstract class TransactionList {
     public void addTransaction(String command, String payload, String response) {
         if (!repeatable.contains(command) && !getTransactions(command).isEmpty()) return;
 
-        transactions.add(new Transaction(command).setPayload(payload).setResponse(response));
+        add(new Transaction(command).setPayload(payload).setResponse(response));
 
         if (log.isTraceEnabled()) {
             log.trace("Adding transaction: Command: {}, Payload: {}, Response: {}", command, payload, response.replaceAll("[\\n\\r]", ""));
@@ -87,7 +121,7 @@ public abstract class TransactionList {
     public void addTransaction(String command, String payload, String response, boolean error) {
         if (!repeatable.contains(command) && !getTransactions(command).isEmpty()) return;
 
-        transactions.add(new Transaction(command).setPayload(payload).setResponse(response).setError(error));
+        add(new Transaction(command).setPayload(payload).setResponse(response).setError(error));
 
         if (log.isTraceEnabled()) {
             log.trace("Adding transaction: Command: {}, Payload: {}, Response: {}, Error: {}", command, payload, response.replaceAll("[\\n\\r]", ""), error);
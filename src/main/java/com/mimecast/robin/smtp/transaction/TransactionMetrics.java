@@ -0,0 +1,119 @@
+package com.mimecast.robin.smtp.transaction;
+
+import com.google.gson.GsonBuilder;
+import com.mimecast.robin.util.LatencyHistogram;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Transaction latency metrics.
+ *
+ * <p>Aggregates timed transactions of all sessions into per command latency histograms.
+ * <p>Sessions are recorded at the end of each delivery.
+ * <p>Histograms can be exported as JSON at the end of a run.
+ *
+ * @see Transaction
+ * @see LatencyHistogram
+ */
+public final class TransactionMetrics {
+    private static final Logger log = LogManager.getLogger(TransactionMetrics.class);
+
+    /**
+     * Protected constructor.
+     */
+    private TransactionMetrics() {
+        throw new IllegalStateException("Static class");
+    }
+
+    /**
+     * Latency histograms by command.
+     */
+    private static final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Record timed transactions of given session including its envelopes.
+     *
+     * @param sessionTransactionList SessionTransactionList instance.
+     */
+    public static void record(SessionTransactionList sessionTransactionList) {
+        record((TransactionList) sessionTransactionList);
+        for (EnvelopeTransactionList envelope : sessionTransactionList.getEnvelopes()) {
+            record(envelope);
+        }
+    }
+
+    /**
+     * Record timed transactions of given list.
+     *
+     * @param transactionList TransactionList instance.
+     */
+    private static void record(TransactionList transactionList) {
+        for (Transaction transaction : transactionList.getTransactions()) {
+            long latency = transaction.getLatency();
+            if (latency >= 0) {
+                histograms.computeIfAbsent(transaction.getCommand().toUpperCase(), k -> new LatencyHistogram())
+                        .record(latency);
+            }
+        }
+    }
+
+    /**
+     * Gets latency histograms by command.
+     *
+     * @return Map of LatencyHistogram by command.
+     */
+    public static Map<String, LatencyHistogram> getHistograms() {
+        return histograms;
+    }
+
+    /**
+     * Clear all histograms.
+     */
+    public static void reset() {
+        histograms.clear();
+    }
+
+    /**
+     * Gets histograms summary as JSON.
+     * <p>Commands are sorted and values are in nanoseconds.
+     *
+     * @return JSON string.
+     */
+    public static String toJson() {
+        Map<String, Map<String, Long>> summary = new TreeMap<>();
+        histograms.forEach((command, histogram) -> {
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.put("count", histogram.getCount());
+            values.put("min", histogram.getMin());
+            values.put("mean", histogram.getMean());
+            values.put("p50", histogram.getPercentile(50));
+            values.put("p90", histogram.getPercentile(90));
+            values.put("p99", histogram.getPercentile(99));
+            values.put("p999", histogram.getPercentile(99.9));
+            values.put("max", histogram.getMax());
+            summary.put(command, values);
+        });
+
+        return new GsonBuilder().setPrettyPrinting().create().toJson(summary);
+    }
+
+    /**
+     * Export histograms summary as JSON to given file path.
+     *
+     * @param path File path.
+     * @throws IOException Unable to write file.
+     */
+    public static void export(String path) throws IOException {
+        Files.write(Paths.get(path), toJson().getBytes(StandardCharsets.UTF_8));
+        log.info("Exported latency metrics to: {}", path);
+    }
+}
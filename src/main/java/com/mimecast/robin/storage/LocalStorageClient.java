@@ -1,13 +1,11 @@
 package com.mimecast.robin.storage;
 
 import com.mimecast.robin.main.Config;
-import com.mimecast.robin.main.Factories;
 import com.mimecast.robin.mime.EmailParser;
 import com.mimecast.robin.mime.headers.MimeHeader;
-import com.mimecast.robin.smtp.EmailDelivery;
-import com.mimecast.robin.smtp.MessageEnvelope;
+import com.mimecast.robin.mime.headers.MimeHeaders;
 import com.mimecast.robin.smtp.connection.Connection;
-import com.mimecast.robin.smtp.session.Session;
+import com.mimecast.robin.smtp.io.HeaderTeeOutputStream;
 import com.mimecast.robin.util.PathUtils;
 import org.apache.commons.io.output.NullOutputStream;
 import org.apache.commons.lang3.StringUtils;
@@ -20,7 +18,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
-import java.util.Collections;
 import java.util.Date;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -59,9 +56,9 @@ public class LocalStorageClient implements StorageClient {
     protected String path;
 
     /**
-     * EmailParser instance.
+     * Email headers.
      */
-    protected EmailParser parser;
+    protected MimeHeaders headers;
 
     /**
      * Save file output stream.
@@ -114,6 +111,7 @@ public class LocalStorageClient implements StorageClient {
 
     /**
      * Gets file output stream.
+     * <p>Headers are captured as the email is written.
      *
      * @return OutputStream instance.
      */
@@ -121,7 +119,7 @@ public class LocalStorageClient implements StorageClient {
     public OutputStream getStream() throws FileNotFoundException {
         if (enabled) {
             if (PathUtils.makePath(path)) {
-                stream = new FileOutputStream(Paths.get(path, fileName).toString());
+                stream = new HeaderTeeOutputStream(new FileOutputStream(Paths.get(path, fileName).toString()));
             } else {
                 log.error("Storage path could not be created");
             }
@@ -150,7 +148,7 @@ public class LocalStorageClient implements StorageClient {
         // TODO Store token in connection session envelope.
         if (enabled) {
             try {
-                parser = new EmailParser(getToken()).parse(true);
+                headers = getHeaders();
                 rename();
                 relay();
 
@@ -169,14 +167,29 @@ public class LocalStorageClient implements StorageClient {
         }
     }
 
+    /**
+     * Gets email headers.
+     * <p>Uses headers captured while writing else parses them from the saved file.
+     *
+     * @return MimeHeaders instance.
+     * @throws IOException Unable to read file.
+     */
+    protected MimeHeaders getHeaders() throws IOException {
+        if (stream instanceof HeaderTeeOutputStream) {
+            return ((HeaderTeeOutputStream) stream).getHeaders();
+        }
+
+        return new EmailParser(getToken()).parse(true).getHeaders();
+    }
+
     /**
      * Rename filename.
-     * <p>Will parse and lookup if a X-Robin-Filename header exists and use it's value as a filename.
+     * <p>Will lookup if a X-Robin-Filename header exists and use it's value as a filename.
      *
      * @throws IOException Unable to delete file.
      */
-    private void rename() throws IOException {
-        Optional<MimeHeader> optional = parser.getHeaders().get("x-robin-filename");
+    protected void rename() throws IOException {
+        Optional<MimeHeader> optional = headers.get("x-robin-filename");
         if (optional.isPresent()) {
             MimeHeader header = optional.get();
 
@@ -198,10 +211,12 @@ public class LocalStorageClient implements StorageClient {
 
     /**
      * Relay email.
-     * <p>Will relay email to provided server.
+     * <p>Will queue email for relay to provided server.
+     *
+     * @throws IOException Unable to read email.
      */
-    private void relay() {
-        Optional<MimeHeader> optional = parser.getHeaders().get("x-robin-relay");
+    protected void relay() throws IOException {
+        Optional<MimeHeader> optional = headers.get("x-robin-relay");
         if (optional.isPresent()) {
             MimeHeader header = optional.get();
             String mx;
@@ -217,20 +232,23 @@ public class LocalStorageClient implements StorageClient {
             }
             log.info("Relay found for: {}:{}", mx, port);
 
-            MessageEnvelope envelope = new MessageEnvelope()
-                    .setMail(connection.getSession().getMail().getAddress())
-                    .setRcpts(connection.getSession().getRcpts()
+            RelayQueue.enqueue(mx, port,
+                    connection.getSession().getMail().getAddress(),
+                    connection.getSession().getRcpts()
                             .stream()
                             .map(InternetAddress::getAddress)
-                            .collect(Collectors.toList()))
-                    .setFile(getToken());
-
-            Session session = Factories.getSession()
-                    .setMx(Collections.singletonList(mx))
-                    .setPort(port)
-                    .addEnvelope(envelope);
-
-            new Thread(() -> new EmailDelivery(session).send()).start();
+                            .collect(Collectors.toList()),
+                    getRelayContent());
         }
     }
+
+    /**
+     * Gets relay content stream.
+     *
+     * @return InputStream instance.
+     * @throws IOException Unable to read email.
+     */
+    protected InputStream getRelayContent() throws IOException {
+        return new FileInputStream(getToken());
+    }
 }
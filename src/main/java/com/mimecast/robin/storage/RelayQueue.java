@@ -0,0 +1,387 @@
+package com.mimecast.robin.storage;
+
+import com.google.gson.Gson;
+import com.mimecast.robin.main.Config;
+import com.mimecast.robin.main.Factories;
+import com.mimecast.robin.smtp.EmailDelivery;
+import com.mimecast.robin.smtp.MessageEnvelope;
+import com.mimecast.robin.smtp.session.Session;
+import com.mimecast.robin.smtp.transaction.EnvelopeTransactionList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Relay queue.
+ *
+ * <p>Relayed emails are spooled to disk and delivered by a bounded pool of workers.
+ * <p>Each email is spooled as a content file and a job file written last which survive restarts.
+ * <p>Failed deliveries are retried with exponential backoff up to the configured attempts.
+ * <p>Concurrent deliveries per destination are limited and busy destinations are retried shortly.
+ * <p>Each attempt still honors the session connect retry and delay.
+ *
+ * @see LocalStorageClient
+ */
+public final class RelayQueue {
+    private static final Logger log = LogManager.getLogger(RelayQueue.class);
+
+    /**
+     * Protected constructor.
+     */
+    private RelayQueue() {
+        throw new IllegalStateException("Static class");
+    }
+
+    /**
+     * Maximum backoff in seconds.
+     */
+    private static final long MAX_BACKOFF = 3600L;
+
+    /**
+     * Spool file name prefix.
+     */
+    private static final String PREFIX = "relay-";
+
+    /**
+     * Destination concurrency limits by mx and port.
+     */
+    private static final Map<String, Semaphore> destinations = new ConcurrentHashMap<>();
+
+    /**
+     * Delivery function.
+     */
+    private static Predicate<Job> delivery = RelayQueue::deliver;
+
+    /**
+     * Worker executor.
+     */
+    private static ScheduledExecutorService executor;
+
+    /**
+     * Spool directory.
+     */
+    private static Path spool;
+
+    /**
+     * Start queue and schedule spooled jobs left from a previous run.
+     */
+    public static void start() {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(getSpool(), PREFIX + "*.json")) {
+            int count = 0;
+            for (Path path : stream) {
+                Job job = new Gson().fromJson(Files.readString(path, StandardCharsets.UTF_8), Job.class);
+                if (job != null && Files.exists(job.getContent())) {
+                    schedule(job, 0L);
+                    count++;
+                }
+            }
+            log.info("Relay queue started with {} spooled jobs", count);
+
+        } catch (IOException e) {
+            log.error("Relay queue unable to read spool: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Enqueue email for relay.
+     *
+     * @param mx      MX host.
+     * @param port    MX port.
+     * @param mail    Envelope sender.
+     * @param rcpts   Envelope recipients.
+     * @param content Email stream.
+     * @return Job ID.
+     * @throws IOException Unable to spool.
+     */
+    public static String enqueue(String mx, int port, String mail, List<String> rcpts, InputStream content) throws IOException {
+        Job job = new Job(UUID.randomUUID().toString(), mx, port, mail, rcpts);
+
+        try (InputStream inputStream = content) {
+            Files.copy(inputStream, job.getContent(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        persist(job);
+
+        schedule(job, 0L);
+        log.info("Relay queued {} for: {}:{}", job.id, mx, port);
+
+        return job.id;
+    }
+
+    /**
+     * Persist job file.
+     * <p>Written to a temporary file and moved in place.
+     *
+     * @param job Job instance.
+     * @throws IOException Unable to write.
+     */
+    private static void persist(Job job) throws IOException {
+        Path tmp = getSpool().resolve(PREFIX + job.id + ".tmp");
+        Files.writeString(tmp, new Gson().toJson(job), StandardCharsets.UTF_8);
+        Files.move(tmp, job.getFile(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Schedule job attempt.
+     *
+     * @param job   Job instance.
+     * @param delay Delay in seconds.
+     */
+    private static void schedule(Job job, long delay) {
+        getExecutor().schedule(() -> attempt(job), delay, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Attempt job delivery.
+     * <p>Reschedules if destination is busy or delivery failed with attempts left.
+     *
+     * @param job Job instance.
+     */
+    private static void attempt(Job job) {
+        try {
+            if (!Files.exists(job.getContent())) {
+                log.warn("Relay content missing for {} dropping job", job.id);
+                Files.deleteIfExists(job.getFile());
+                return;
+            }
+        } catch (IOException e) {
+            log.error("Relay spool error for {}: {}", job.id, e.getMessage());
+            return;
+        }
+
+        Semaphore semaphore = destinations.computeIfAbsent(job.mx + ":" + job.port,
+                k -> new Semaphore(Config.getProperties().getLongProperty("relayPerDestination", 2L).intValue()));
+        if (!semaphore.tryAcquire()) {
+            schedule(job, 1L);
+            return;
+        }
+
+        try {
+            if (delivery.test(job)) {
+                Files.deleteIfExists(job.getFile());
+                Files.deleteIfExists(job.getContent());
+                log.info("Relay delivered {} to: {}:{}", job.id, job.mx, job.port);
+                return;
+            }
+
+            job.attempts++;
+            if (job.attempts >= Config.getProperties().getLongProperty("relayRetry", 5L)) {
+                Files.move(job.getFile(), getSpool().resolve(PREFIX + job.id + ".failed"), StandardCopyOption.REPLACE_EXISTING);
+                log.error("Relay failed {} to: {}:{} after {} attempts", job.id, job.mx, job.port, job.attempts);
+                return;
+            }
+
+            persist(job);
+            long backoff = getBackoff(Config.getProperties().getLongProperty("relayDelay", 30L), job.attempts);
+            log.info("Relay retry {} to: {}:{} in {} seconds", job.id, job.mx, job.port, backoff);
+            schedule(job, backoff);
+
+        } catch (IOException e) {
+            log.error("Relay spool error for {}: {}", job.id, e.getMessage());
+
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    /**
+     * Gets backoff after given attempts.
+     * <p>Doubles per attempt capped at the maximum backoff.
+     *
+     * @param delay    Initial delay in seconds.
+     * @param attempts Attempts made.
+     * @return Backoff in seconds.
+     */
+    static long getBackoff(long delay, int attempts) {
+        return Math.min(delay << Math.min(Math.max(attempts - 1, 0), 20), MAX_BACKOFF);
+    }
+
+    /**
+     * Deliver job.
+     *
+     * @param job Job instance.
+     * @return True if delivered without errors.
+     */
+    private static boolean deliver(Job job) {
+        MessageEnvelope envelope;
+        try {
+            envelope = new MessageEnvelope()
+                    .setMail(job.mail)
+                    .setRcpts(job.rcpts)
+                    .setFile(job.getContent().toString());
+        } catch (IOException e) {
+            log.error("Relay spool error for {}: {}", job.id, e.getMessage());
+            return false;
+        }
+
+        Session session = Factories.getSession()
+                .setMx(Collections.singletonList(job.mx))
+                .setPort(job.port)
+                .addEnvelope(envelope);
+
+        new EmailDelivery(session).send();
+
+        if (!session.getSessionTransactionList().getErrors().isEmpty()) {
+            return false;
+        }
+        for (EnvelopeTransactionList envelopeTransactions : session.getSessionTransactionList().getEnvelopes()) {
+            if (!envelopeTransactions.getErrors().isEmpty()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Sets delivery function.
+     * <p>Used for testing, null restores the default.
+     *
+     * @param predicate Predicate of Job returning true if delivered.
+     */
+    static void setDelivery(Predicate<Job> predicate) {
+        delivery = predicate != null ? predicate : RelayQueue::deliver;
+    }
+
+    /**
+     * Gets worker executor.
+     * <p>Pool size is configured via relayThreads property.
+     *
+     * @return ScheduledExecutorService instance.
+     */
+    private static synchronized ScheduledExecutorService getExecutor() {
+        if (executor == null) {
+            int threads = Config.getProperties().getLongProperty("relayThreads", 8L).intValue();
+            executor = new ScheduledThreadPoolExecutor(Math.max(1, threads), runnable -> {
+                Thread thread = new Thread(runnable, "relay");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return executor;
+    }
+
+    /**
+     * Gets spool directory.
+     * <p>Relay folder under storage path.
+     *
+     * @return Path instance.
+     * @throws IOException Unable to create directory.
+     */
+    static synchronized Path getSpool() throws IOException {
+        if (spool == null) {
+            spool = Paths.get(Config.getServer().getStorage().getStringProperty("path", "/tmp/store"), "relay");
+        }
+
+        return Files.createDirectories(spool);
+    }
+
+    /**
+     * Relay job.
+     */
+    static class Job {
+
+        /**
+         * Job ID.
+         */
+        private final String id;
+
+        /**
+         * MX host.
+         */
+        private final String mx;
+
+        /**
+         * MX port.
+         */
+        private final int port;
+
+        /**
+         * Envelope sender.
+         */
+        private final String mail;
+
+        /**
+         * Envelope recipients.
+         */
+        private final List<String> rcpts;
+
+        /**
+         * Failed attempts.
+         */
+        private int attempts = 0;
+
+        /**
+         * Constructs a new Job instance.
+         *
+         * @param id    Job ID.
+         * @param mx    MX host.
+         * @param port  MX port.
+         * @param mail  Envelope sender.
+         * @param rcpts Envelope recipients.
+         */
+        Job(String id, String mx, int port, String mail, List<String> rcpts) {
+            this.id = id;
+            this.mx = mx;
+            this.port = port;
+            this.mail = mail;
+            this.rcpts = rcpts;
+        }
+
+        /**
+         * Gets job ID.
+         *
+         * @return String.
+         */
+        String getId() {
+            return id;
+        }
+
+        /**
+         * Gets failed attempts.
+         *
+         * @return Integer.
+         */
+        int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * Gets job file path.
+         *
+         * @return Path instance.
+         * @throws IOException Unable to create spool.
+         */
+        Path getFile() throws IOException {
+            return getSpool().resolve(PREFIX + id + ".json");
+        }
+
+        /**
+         * Gets content file path.
+         *
+         * @return Path instance.
+         * @throws IOException Unable to create spool.
+         */
+        Path getContent() throws IOException {
+            return getSpool().resolve(PREFIX + id + ".eml");
+        }
+    }
+}
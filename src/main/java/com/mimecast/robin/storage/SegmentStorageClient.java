@@ -0,0 +1,119 @@
+package com.mimecast.robin.storage;
+
+import com.mimecast.robin.main.Config;
+import com.mimecast.robin.mime.headers.MimeHeader;
+import com.mimecast.robin.smtp.io.HeaderTeeOutputStream;
+import com.mimecast.robin.smtp.io.SpillOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+/**
+ * Segment storage client implementation.
+ *
+ * <p>Saves emails into a log-structured segment store instead of one file per email.
+ * <p>Emails are buffered while received and appended to the store in one go on save.
+ * <p>Tokens and renames map onto store index entries so lookups work as with local storage.
+ * <p>Enabled by setting storage type to segment.
+ *
+ * @see SegmentStore
+ */
+public class SegmentStorageClient extends LocalStorageClient {
+
+    /**
+     * Email buffer.
+     */
+    protected SpillOutputStream buffer;
+
+    /**
+     * Gets segment store.
+     * <p>Configured via storage path, segmentSize and mmap.
+     *
+     * @return SegmentStore instance.
+     */
+    public static SegmentStore getStore() {
+        return SegmentStore.getInstance(
+                Paths.get(Config.getServer().getStorage().getStringProperty("path", "/tmp/store"), "segments").toString(),
+                Config.getServer().getStorage().getLongProperty("segmentSize", 268435456L),
+                Config.getServer().getStorage().getBooleanProperty("mmap", false)
+        );
+    }
+
+    /**
+     * Gets buffer output stream.
+     * <p>Headers are captured as the email is written.
+     *
+     * @return OutputStream instance.
+     */
+    @Override
+    public OutputStream getStream() {
+        if (enabled) {
+            buffer = new SpillOutputStream();
+            stream = new HeaderTeeOutputStream(buffer);
+        } else {
+            stream = NullOutputStream.INSTANCE;
+        }
+
+        return stream;
+    }
+
+    /**
+     * Saves email to segment store.
+     */
+    @Override
+    public void save() {
+        if (enabled && buffer != null) {
+            try {
+                headers = getHeaders();
+                stream.flush();
+
+                try (InputStream inputStream = buffer.getInputStream()) {
+                    getStore().append(getToken(), inputStream, buffer.size());
+                }
+                log.info("Storage segment saved to: {}", getToken());
+
+                rename();
+                relay();
+
+            } catch (IOException e) {
+                log.error("Storage unable to save email: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rename token.
+     * <p>Will lookup if a X-Robin-Filename header exists and use it's value as a filename.
+     *
+     * @throws IOException Unable to write index.
+     */
+    @Override
+    protected void rename() throws IOException {
+        Optional<MimeHeader> optional = headers.get("x-robin-filename");
+        if (optional.isPresent() && StringUtils.isNotBlank(optional.get().getValue())) {
+            String target = Paths.get(path, optional.get().getValue()).toString();
+
+            if (getStore().rename(getToken(), target)) {
+                fileName = optional.get().getValue();
+                log.info("Storage moved segment entry to: {}", getToken());
+            }
+        }
+    }
+
+    /**
+     * Gets relay content stream.
+     * <p>Reads email back from segment store.
+     *
+     * @return InputStream instance.
+     * @throws IOException Unable to read email.
+     */
+    @Override
+    protected InputStream getRelayContent() throws IOException {
+        return getStore().open(getToken());
+    }
+}
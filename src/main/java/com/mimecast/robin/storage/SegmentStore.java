@@ -0,0 +1,444 @@
+package com.mimecast.robin.storage;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Log-structured segment store.
+ *
+ * <p>Appends messages to large preallocated segment files instead of one file per message.
+ * <p>Each message is located by an index entry of segment, offset and length keyed by token.
+ * <p>The index is kept in memory and appended to an index log which is replayed on startup.
+ * <p>Segment writes go through a file channel or optionally through a memory mapping of the segment.
+ * <p>A new segment is started once the current one is full and a message larger than a segment gets its own.
+ *
+ * @see SegmentStorageClient
+ */
+public class SegmentStore {
+    private static final Logger log = LogManager.getLogger(SegmentStore.class);
+
+    /**
+     * Index log file name.
+     */
+    static final String INDEX = "index.log";
+
+    /**
+     * Stores by directory.
+     */
+    private static final Map<String, SegmentStore> stores = new ConcurrentHashMap<>();
+
+    /**
+     * Store directory.
+     */
+    private final Path directory;
+
+    /**
+     * Segment size in bytes.
+     */
+    private final long segmentSize;
+
+    /**
+     * Memory map segments for writes.
+     */
+    private final boolean mmap;
+
+    /**
+     * Index entries by token.
+     */
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+
+    /**
+     * Index log writer.
+     */
+    private final Writer indexWriter;
+
+    /**
+     * Current segment.
+     */
+    private Segment current;
+
+    /**
+     * Last segment number.
+     */
+    private int last = 0;
+
+    /**
+     * Gets store for given directory.
+     * <p>Stores are opened once per directory.
+     *
+     * @param directory   Store directory.
+     * @param segmentSize Segment size in bytes.
+     * @param mmap        Memory map segments for writes.
+     * @return SegmentStore instance.
+     */
+    public static SegmentStore getInstance(String directory, long segmentSize, boolean mmap) {
+        return stores.computeIfAbsent(Paths.get(directory).toAbsolutePath().toString(), k -> {
+            try {
+                return new SegmentStore(Paths.get(k), segmentSize, mmap);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to open segment store: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Constructs a new SegmentStore instance.
+     *
+     * @param directory   Store directory.
+     * @param segmentSize Segment size in bytes.
+     * @param mmap        Memory map segments for writes.
+     * @throws IOException Unable to open index.
+     */
+    SegmentStore(Path directory, long segmentSize, boolean mmap) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.mmap = mmap;
+
+        Files.createDirectories(directory);
+        load();
+
+        indexWriter = Files.newBufferedWriter(directory.resolve(INDEX), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Replay index log.
+     * <p>Writing continues in a new segment after the last one found.
+     *
+     * @throws IOException Unable to read index.
+     */
+    private void load() throws IOException {
+        Path path = directory.resolve(INDEX);
+        if (Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] splits = line.split("\t", 5);
+                    if (splits.length == 5 && splits[0].equals("put")) {
+                        int segment = Integer.parseInt(splits[1]);
+                        index.put(splits[4], new Entry(segment, Long.parseLong(splits[2]), Long.parseLong(splits[3])));
+                        last = Math.max(last, segment);
+
+                    } else if (splits.length == 2 && splits[0].equals("del")) {
+                        index.remove(splits[1]);
+                    }
+                }
+            }
+            log.info("Loaded segment store index of {} entries from: {}", index.size(), directory);
+        }
+    }
+
+    /**
+     * Append message to store.
+     *
+     * @param token       Message token.
+     * @param inputStream Message stream.
+     * @param length      Message length.
+     * @throws IOException Unable to write.
+     */
+    public void append(String token, InputStream inputStream, long length) throws IOException {
+        Segment segment;
+        long offset;
+
+        // Reserve space.
+        synchronized (this) {
+            if (current == null || current.position + length > current.size) {
+                roll(length);
+            }
+            segment = current;
+            offset = segment.position;
+            segment.position += length;
+            segment.writers++;
+        }
+
+        // Write outside of lock using positional writes.
+        try {
+            write(segment, offset, inputStream, length);
+        } finally {
+            synchronized (this) {
+                segment.writers--;
+                segment.closeIfDone();
+            }
+        }
+
+        // Index once data is written.
+        Entry entry = new Entry(segment.number, offset, length);
+        synchronized (indexWriter) {
+            indexWriter.write("put\t" + entry.segment + "\t" + entry.offset + "\t" + entry.length + "\t" + token + "\n");
+            indexWriter.flush();
+            index.put(token, entry);
+        }
+    }
+
+    /**
+     * Start new segment.
+     *
+     * @param length Length of message to fit.
+     * @throws IOException Unable to create segment.
+     */
+    private void roll(long length) throws IOException {
+        if (current != null) {
+            current.released = true;
+            current.closeIfDone();
+        }
+
+        current = new Segment(++last, Math.max(segmentSize, length));
+        log.info("Started segment: {}", getSegmentPath(current.number));
+    }
+
+    /**
+     * Write stream to segment at given position.
+     *
+     * @param segment     Segment instance.
+     * @param position    Position in segment.
+     * @param inputStream Message stream.
+     * @param length      Message length.
+     * @throws IOException Unable to write.
+     */
+    private void write(Segment segment, long position, InputStream inputStream, long length) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long remaining = length;
+        int read;
+
+        while (remaining > 0 && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+            if (segment.map != null) {
+                ByteBuffer slice = segment.map.duplicate();
+                slice.position((int) position);
+                slice.put(buffer, 0, read);
+
+            } else {
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                long at = position;
+                while (byteBuffer.hasRemaining()) {
+                    at += segment.channel.write(byteBuffer, at);
+                }
+            }
+
+            position += read;
+            remaining -= read;
+        }
+
+        if (remaining > 0) {
+            throw new IOException("Message shorter than reserved length");
+        }
+    }
+
+    /**
+     * Rename message token.
+     * <p>Renaming to the same token leaves the index untouched.
+     *
+     * @param token  Current token.
+     * @param target New token.
+     * @return True if renamed.
+     * @throws IOException Unable to write index.
+     */
+    public boolean rename(String token, String target) throws IOException {
+        if (target.equals(token)) {
+            return index.containsKey(token);
+        }
+
+        synchronized (indexWriter) {
+            Entry entry = index.get(token);
+            if (entry == null) {
+                return false;
+            }
+
+            indexWriter.write("put\t" + entry.segment + "\t" + entry.offset + "\t" + entry.length + "\t" + target + "\n");
+            indexWriter.write("del\t" + token + "\n");
+            indexWriter.flush();
+
+            index.put(target, entry);
+            index.remove(token);
+        }
+
+        return true;
+    }
+
+    /**
+     * Is token stored.
+     *
+     * @param token Message token.
+     * @return Boolean.
+     */
+    public boolean contains(String token) {
+        return index.containsKey(token);
+    }
+
+    /**
+     * Open message stream.
+     *
+     * @param token Message token.
+     * @return InputStream instance or null if not found.
+     * @throws IOException Unable to read.
+     */
+    public InputStream open(String token) throws IOException {
+        Entry entry = index.get(token);
+        if (entry == null) {
+            return null;
+        }
+
+        FileChannel channel = FileChannel.open(getSegmentPath(entry.segment), StandardOpenOption.READ);
+        channel.position(entry.offset);
+
+        return BoundedInputStream.builder()
+                .setInputStream(Channels.newInputStream(channel))
+                .setMaxCount(entry.length)
+                .get();
+    }
+
+    /**
+     * Gets segment file path.
+     *
+     * @param number Segment number.
+     * @return Path instance.
+     */
+    Path getSegmentPath(int number) {
+        return directory.resolve(String.format("segment-%06d.seg", number));
+    }
+
+    /**
+     * Close current segment and index.
+     *
+     * @throws IOException Unable to close.
+     */
+    public synchronized void close() throws IOException {
+        if (current != null) {
+            current.released = true;
+            current.closeIfDone();
+            current = null;
+        }
+
+        synchronized (indexWriter) {
+            indexWriter.close();
+        }
+        stores.values().remove(this);
+    }
+
+    /**
+     * Index entry.
+     */
+    private static class Entry {
+
+        /**
+         * Segment number.
+         */
+        private final int segment;
+
+        /**
+         * Offset in segment.
+         */
+        private final long offset;
+
+        /**
+         * Message length.
+         */
+        private final long length;
+
+        /**
+         * Constructs a new Entry instance.
+         *
+         * @param segment Segment number.
+         * @param offset  Offset in segment.
+         * @param length  Message length.
+         */
+        Entry(int segment, long offset, long length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Segment file.
+     */
+    private class Segment {
+
+        /**
+         * Segment number.
+         */
+        private final int number;
+
+        /**
+         * Preallocated size in bytes.
+         */
+        private final long size;
+
+        /**
+         * Segment file channel.
+         */
+        private final FileChannel channel;
+
+        /**
+         * Segment memory map if enabled.
+         */
+        private final MappedByteBuffer map;
+
+        /**
+         * Next write position.
+         */
+        private long position = 0;
+
+        /**
+         * In-flight writes count.
+         */
+        private int writers = 0;
+
+        /**
+         * No longer current segment.
+         */
+        private boolean released = false;
+
+        /**
+         * Constructs a new Segment instance.
+         * <p>Preallocates the segment file.
+         *
+         * @param number Segment number.
+         * @param size   Segment size in bytes.
+         * @throws IOException Unable to create segment.
+         */
+        Segment(int number, long size) throws IOException {
+            this.number = number;
+            this.size = size;
+
+            try (RandomAccessFile file = new RandomAccessFile(getSegmentPath(number).toFile(), "rw")) {
+                file.setLength(size);
+            }
+
+            channel = FileChannel.open(getSegmentPath(number), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            map = mmap && size <= Integer.MAX_VALUE ? channel.map(FileChannel.MapMode.READ_WRITE, 0, size) : null;
+        }
+
+        /**
+         * Close segment once released and no writes are in flight.
+         * <p>Called holding the store lock.
+         *
+         * @throws IOException Unable to close.
+         */
+        void closeIfDone() throws IOException {
+            if (released && writers == 0 && channel.isOpen()) {
+                if (map != null) {
+                    map.force();
+                }
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.mimecast.robin.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Polling backoff.
+ *
+ * <p>Waits the initial wait before the first attempt.
+ * <p>Retries then back off exponentially from a second up to the retry delay with jitter.
+ * <p>Polling continues for at least the retry count and as long as the fixed delay schedule would have.
+ * <p>It stops early once past the deadline or when the thread is interrupted.
+ */
+public class Backoff {
+
+    /**
+     * Initial backoff in milliseconds.
+     */
+    private static final long INITIAL = 1000L;
+
+    /**
+     * Initial wait in milliseconds.
+     */
+    private final long wait;
+
+    /**
+     * Maximum retry delay in milliseconds.
+     */
+    private final long delay;
+
+    /**
+     * Minimum attempts.
+     */
+    private final int retry;
+
+    /**
+     * Time fixed delay polling would have ended in epoch milliseconds.
+     */
+    private final long window;
+
+    /**
+     * Deadline in epoch milliseconds or 0 for none.
+     */
+    private final long deadline;
+
+    /**
+     * Attempts so far.
+     */
+    private int attempt = 0;
+
+    /**
+     * Sleep before next retry in milliseconds.
+     */
+    private long pending = 0L;
+
+    /**
+     * Constructs a new Backoff instance.
+     *
+     * @param wait     Initial wait in seconds.
+     * @param delay    Retry delay in seconds.
+     * @param retry    Retry count.
+     * @param deadline Deadline in epoch milliseconds or 0 for none.
+     */
+    public Backoff(int wait, int delay, int retry, long deadline) {
+        this.wait = wait * 1000L;
+        this.delay = delay * 1000L;
+        this.retry = retry;
+        this.deadline = deadline;
+        this.window = System.currentTimeMillis() + this.wait + this.delay * Math.max(retry - 1, 0);
+    }
+
+    /**
+     * Sleep before next attempt.
+     *
+     * @return True if attempt should be made.
+     */
+    public boolean next() {
+        if (attempt > 0 && isLast()) {
+            return false;
+        }
+
+        long sleep = attempt == 0 ? wait : pending;
+        if (deadline > 0) {
+            sleep = Math.min(sleep, Math.max(deadline - System.currentTimeMillis(), 0L));
+        }
+        if (sleep > 0) {
+            Sleep.nap((int) sleep);
+        }
+
+        if (Thread.currentThread().isInterrupted() || (attempt > 0 && isExpired())) {
+            return false;
+        }
+
+        attempt++;
+        pending = getBackoff();
+        return true;
+    }
+
+    /**
+     * Is current attempt the last one.
+     *
+     * @return Boolean.
+     */
+    public boolean isLast() {
+        return Thread.currentThread().isInterrupted() ||
+                (attempt >= retry && System.currentTimeMillis() + pending >= window) ||
+                isExpired();
+    }
+
+    /**
+     * Gets attempts so far.
+     *
+     * @return Attempt count.
+     */
+    public int getAttempt() {
+        return attempt;
+    }
+
+    /**
+     * Is past deadline.
+     *
+     * @return Boolean.
+     */
+    private boolean isExpired() {
+        return deadline > 0 && System.currentTimeMillis() >= deadline;
+    }
+
+    /**
+     * Gets jittered backoff for retry after current attempt.
+     * <p>Doubles per attempt capped at retry delay and randomized to between half and full value.
+     *
+     * @return Backoff in milliseconds.
+     */
+    private long getBackoff() {
+        long backoff = Math.min(delay, INITIAL << Math.min(Math.max(attempt - 1, 0), 20));
+        if (backoff <= 1) {
+            return backoff;
+        }
+
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+}
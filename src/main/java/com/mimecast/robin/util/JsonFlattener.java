@@ -0,0 +1,197 @@
+package com.mimecast.robin.util;
+
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Streaming JSON flattener.
+ *
+ * <p>Flattens a JSON object into entries like MapUtils does without building a map first.
+ * <p>Entries are emitted as the document is read and the consumer may stop reading at any point.
+ * <p>When paths are given only entries starting with one of them are emitted.
+ * <p>Subtrees no path can match are skipped without being decoded.
+ *
+ * @see MapUtils
+ */
+public class JsonFlattener {
+
+    /**
+     * Path prefixes or null for all.
+     */
+    private final List<String> paths;
+
+    /**
+     * Constructs a new JsonFlattener instance emitting all entries.
+     */
+    public JsonFlattener() {
+        this.paths = null;
+    }
+
+    /**
+     * Constructs a new JsonFlattener instance emitting entries under given paths.
+     *
+     * @param paths List of path prefixes.
+     */
+    public JsonFlattener(List<String> paths) {
+        this.paths = paths;
+    }
+
+    /**
+     * Flatten JSON string.
+     *
+     * @param json JSON string.
+     * @return List of String.
+     * @throws IOException Unable to parse.
+     */
+    public List<String> flatten(String json) throws IOException {
+        List<String> collector = new ArrayList<>();
+        flatten(new StringReader(json), collector::add);
+
+        return collector;
+    }
+
+    /**
+     * Flatten JSON from reader.
+     * <p>Non object documents yield no entries.
+     *
+     * @param reader   Reader instance.
+     * @param consumer Entry consumer returning false to stop reading.
+     * @return True if document was read to the end.
+     * @throws IOException Unable to parse.
+     */
+    public boolean flatten(Reader reader, Predicate<String> consumer) throws IOException {
+        try (JsonReader jsonReader = new JsonReader(reader)) {
+            jsonReader.setStrictness(Strictness.LENIENT);
+
+            JsonToken token;
+            try {
+                token = jsonReader.peek();
+            } catch (EOFException e) {
+                return true; // Empty document.
+            }
+
+            if (token != JsonToken.BEGIN_OBJECT) {
+                jsonReader.skipValue();
+                return true;
+            }
+
+            return readValue(jsonReader, "", consumer);
+        }
+    }
+
+    /**
+     * Read value at given precedence or skip it if no path can match.
+     *
+     * @param reader     JsonReader instance.
+     * @param precedence Preceding precedence.
+     * @param consumer   Entry consumer.
+     * @return False if consumer stopped reading.
+     * @throws IOException Unable to parse.
+     */
+    private boolean visit(JsonReader reader, String precedence, Predicate<String> consumer) throws IOException {
+        if (!isRelevant(precedence)) {
+            reader.skipValue();
+            return true;
+        }
+
+        return readValue(reader, precedence, consumer);
+    }
+
+    /**
+     * Read value at given precedence.
+     *
+     * @param reader     JsonReader instance.
+     * @param precedence Preceding precedence.
+     * @param consumer   Entry consumer.
+     * @return False if consumer stopped reading.
+     * @throws IOException Unable to parse.
+     */
+    private boolean readValue(JsonReader reader, String precedence, Predicate<String> consumer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (!visit(reader, precedence + reader.nextName() + ">", consumer)) {
+                        return false;
+                    }
+                }
+                reader.endObject();
+                return true;
+
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                if (!reader.hasNext()) {
+                    reader.endArray();
+                    return emit(precedence, "[]", consumer);
+                }
+                for (int i = 0; reader.hasNext(); i++) {
+                    if (!visit(reader, precedence + i + ">", consumer)) {
+                        return false;
+                    }
+                }
+                reader.endArray();
+                return true;
+
+            case NUMBER:
+                // Numbers are rendered as doubles same as Gson maps.
+                return emit(precedence, String.valueOf(reader.nextDouble()), consumer);
+
+            case BOOLEAN:
+                return emit(precedence, String.valueOf(reader.nextBoolean()), consumer);
+
+            case NULL:
+                reader.nextNull();
+                return emit(precedence, "null", consumer);
+
+            default:
+                return emit(precedence, reader.nextString(), consumer);
+        }
+    }
+
+    /**
+     * Emit entry if it starts with any path.
+     *
+     * @param precedence Preceding precedence.
+     * @param value      Value string.
+     * @param consumer   Entry consumer.
+     * @return False if consumer stopped reading.
+     */
+    private boolean emit(String precedence, String value, Predicate<String> consumer) {
+        String entry = precedence.replaceAll(">$", ": ") + value;
+        if (paths != null && paths.stream().noneMatch(entry::startsWith)) {
+            return true;
+        }
+
+        return consumer.test(entry);
+    }
+
+    /**
+     * Can any entry under given precedence start with a path.
+     *
+     * @param precedence Preceding precedence.
+     * @return Boolean.
+     */
+    private boolean isRelevant(String precedence) {
+        if (paths == null) {
+            return true;
+        }
+
+        String base = precedence.replaceAll(">$", "");
+        for (String path : paths) {
+            if (base.startsWith(path) || path.startsWith(base)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,190 @@
+package com.mimecast.robin.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram.
+ *
+ * <p>Records nanosecond values into log-linear buckets with fixed relative precision.
+ * <p>Values under 128 are recorded exactly, larger values within 1/64 of their magnitude.
+ * <p>Recording is lock free and safe to share between threads.
+ * <p>Memory use is fixed regardless of the number of values recorded.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Sub bucket bits.
+     */
+    private static final int SUB_BITS = 6;
+
+    /**
+     * Sub bucket count per magnitude.
+     */
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    /**
+     * Total bucket count to cover positive long values.
+     */
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    /**
+     * Bucket counts.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Total count.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * Sum of values.
+     */
+    private final AtomicLong sum = new AtomicLong();
+
+    /**
+     * Minimum value.
+     */
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+    /**
+     * Maximum value.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record value.
+     * <p>Negative values are recorded as zero.
+     *
+     * @param value Value in nanoseconds.
+     * @return Self.
+     */
+    public LatencyHistogram record(long value) {
+        value = Math.max(value, 0L);
+
+        counts.incrementAndGet(index(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        min.accumulateAndGet(value, Math::min);
+        max.accumulateAndGet(value, Math::max);
+
+        return this;
+    }
+
+    /**
+     * Add all values of given histogram to this one.
+     *
+     * @param other LatencyHistogram instance.
+     * @return Self.
+     */
+    public LatencyHistogram add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c > 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+        count.addAndGet(other.getCount());
+        sum.addAndGet(other.sum.get());
+        if (other.getCount() > 0) {
+            min.accumulateAndGet(other.getMin(), Math::min);
+            max.accumulateAndGet(other.getMax(), Math::max);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets count of recorded values.
+     *
+     * @return Count.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets minimum recorded value.
+     *
+     * @return Value in nanoseconds or 0 if empty.
+     */
+    public long getMin() {
+        return getCount() > 0 ? min.get() : 0L;
+    }
+
+    /**
+     * Gets maximum recorded value.
+     *
+     * @return Value in nanoseconds.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets mean of recorded values.
+     *
+     * @return Value in nanoseconds or 0 if empty.
+     */
+    public long getMean() {
+        long c = getCount();
+        return c > 0 ? sum.get() / c : 0L;
+    }
+
+    /**
+     * Gets value at given percentile.
+     * <p>Returns the highest value equivalent to the bucket the percentile falls in, capped at the maximum.
+     *
+     * @param percentile Percentile between 0 and 100.
+     * @return Value in nanoseconds or 0 if empty.
+     */
+    public long getPercentile(double percentile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0L;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(Math.min(percentile, 100D) / 100D * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highest(i), getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Gets bucket index for value.
+     *
+     * @param value Value.
+     * @return Bucket index.
+     */
+    static int index(long value) {
+        if (value < SUB_COUNT * 2L) {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) (value >>> shift) - SUB_COUNT;
+    }
+
+    /**
+     * Gets highest value that maps to given bucket index.
+     *
+     * @param index Bucket index.
+     * @return Value.
+     */
+    static long highest(int index) {
+        if (index < SUB_COUNT * 2) {
+            return index;
+        }
+
+        int shift = index / SUB_COUNT - 1;
+        long low = (long) (index % SUB_COUNT + SUB_COUNT) << shift;
+        return low + (1L << shift) - 1;
+    }
+}
@@ -85,6 +85,7 @@ public class Magic {
 
     /**
      * Session magic replace with optional null string.
+     * <p>Magic strings are compiled once and cached as templates.
      *
      * @param magicString Magic string.
      * @param session     Session instance.
@@ -92,52 +93,7 @@ public class Magic {
      * @return Map of String, Object.
      */
     public static String magicReplace(String magicString, Session session, boolean nullString) {
-
-        Matcher matcher = magicVariablePattern.matcher(magicString);
-
-        while (matcher.find()) {
-            String magicVariable = matcher.group();
-
-            String magicFunction = matcher.group(1);
-            String magicArgs = matcher.group(2);
-            if (magicArgs != null) {
-                magicArgs = magicArgs.replaceAll("[()]", "");
-            }
-            String magicName = matcher.group(3);
-            String magicRow = matcher.group(5);
-            String resultColumn = matcher.group(7);
-            String value = null;
-
-            // Magic variables.
-            if (session.hasMagic(magicName)) {
-                value = getMagicValue(magicName, magicRow, session);
-            }
-
-            // Saved results.
-            if (resultColumn != null && session.getSavedResults().containsKey(magicName)) {
-                int resultRow = Integer.parseInt(magicRow);
-
-                if (session.getSavedResults().get(magicName) != null &&
-                        session.getSavedResults().get(magicName).get(resultRow) != null) {
-
-                    value = String.valueOf(((Map<String, String>) session.getSavedResults().get(magicName).get(resultRow)).get(resultColumn));
-                }
-            }
-
-            // Magic functions.
-            if (magicFunction != null && value != null) {
-                value = magicFunction(magicFunction, magicArgs, value);
-            }
-
-            if (value != null) {
-                magicString = magicString.replace(magicVariable, value);
-
-            } else if (nullString) {
-                magicString = magicString.replace(magicVariable, "null");
-            }
-        }
-
-        return magicString;
+        return MagicTemplate.compile(magicString).render(session, nullString);
     }
 
     /**
@@ -0,0 +1,360 @@
+package com.mimecast.robin.util;
+
+import com.mimecast.robin.smtp.session.Session;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled magic template.
+ *
+ * <p>Magic strings are parsed once into literal segments and magic variable nodes.
+ * <p>Compiled templates are cached by source text so repeated renders skip parsing.
+ * <p>Rendering is a single pass over the nodes with no regular expressions.
+ * <p>The syntax is the same as matched by the magic variable pattern:
+ * <pre>
+ *     {function(args)$name[row][column]}
+ * </pre>
+ * <p>Function, arguments, row and column are optional.
+ *
+ * @see Magic
+ */
+public class MagicTemplate {
+
+    /**
+     * Maximum cached templates before the cache is cleared.
+     */
+    private static final int CACHE_SIZE = 4096;
+
+    /**
+     * Compiled templates by source text.
+     */
+    private static final Map<String, MagicTemplate> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Source text.
+     */
+    private final String source;
+
+    /**
+     * Literal String and Variable nodes in order.
+     */
+    private final List<Object> nodes = new ArrayList<>();
+
+    /**
+     * Has the same variable more than once.
+     * <p>Repeated variables render to the same value as with string replace.
+     */
+    private boolean repeated = false;
+
+    /**
+     * Gets compiled template for given source text.
+     *
+     * @param source Source text.
+     * @return MagicTemplate instance.
+     */
+    public static MagicTemplate compile(String source) {
+        if (source.indexOf('{') == -1) {
+            return new MagicTemplate(source);
+        }
+
+        MagicTemplate template = cache.get(source);
+        if (template == null) {
+            if (cache.size() >= CACHE_SIZE) {
+                cache.clear();
+            }
+
+            template = new MagicTemplate(source);
+            cache.put(source, template);
+        }
+
+        return template;
+    }
+
+    /**
+     * Constructs a new MagicTemplate instance with given source text.
+     *
+     * @param source Source text.
+     */
+    MagicTemplate(String source) {
+        this.source = source;
+        parse();
+    }
+
+    /**
+     * Parse source into nodes.
+     */
+    private void parse() {
+        Set<String> seen = new HashSet<>();
+        int literal = 0;
+        int start = source.indexOf('{');
+
+        while (start != -1) {
+            Variable variable = Variable.parse(source, start);
+            if (variable != null) {
+                if (start > literal) {
+                    nodes.add(source.substring(literal, start));
+                }
+                nodes.add(variable);
+                repeated |= !seen.add(variable.text);
+
+                literal = start + variable.text.length();
+                start = source.indexOf('{', literal);
+            } else {
+                start = source.indexOf('{', start + 1);
+            }
+        }
+
+        if (literal < source.length()) {
+            nodes.add(source.substring(literal));
+        }
+    }
+
+    /**
+     * Gets source text.
+     *
+     * @return String.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Has magic variables.
+     *
+     * @return Boolean.
+     */
+    public boolean hasVariables() {
+        return nodes.stream().anyMatch(node -> node instanceof Variable);
+    }
+
+    /**
+     * Render template with given session.
+     * <p>Variables without a value are left as is unless null string is forced.
+     *
+     * @param session    Session instance.
+     * @param nullString Force null string for null values.
+     * @return String.
+     */
+    public String render(Session session, boolean nullString) {
+        if (nodes.size() == 1 && nodes.get(0) instanceof String) {
+            return source;
+        }
+
+        Map<String, String> values = repeated ? new HashMap<>() : null;
+        StringBuilder builder = new StringBuilder(source.length() + 64);
+        for (Object node : nodes) {
+            if (node instanceof Variable) {
+                Variable variable = (Variable) node;
+
+                String value;
+                if (values != null && values.containsKey(variable.text)) {
+                    value = values.get(variable.text);
+                } else {
+                    value = variable.getValue(session);
+                    if (values != null) {
+                        values.put(variable.text, value);
+                    }
+                }
+
+                if (value != null) {
+                    builder.append(value);
+                } else {
+                    builder.append(nullString ? "null" : variable.text);
+                }
+            } else {
+                builder.append((String) node);
+            }
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Magic variable node.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static class Variable {
+
+        /**
+         * Variable source text.
+         */
+        final String text;
+
+        /**
+         * Magic function name or null.
+         */
+        final String function;
+
+        /**
+         * Magic function arguments or null.
+         */
+        final String args;
+
+        /**
+         * Magic variable name.
+         */
+        final String name;
+
+        /**
+         * List or saved result row or null.
+         */
+        final String row;
+
+        /**
+         * Saved result column or null.
+         */
+        final String column;
+
+        /**
+         * Constructs a new Variable instance.
+         *
+         * @param text     Variable source text.
+         * @param function Magic function name.
+         * @param args     Magic function arguments.
+         * @param name     Magic variable name.
+         * @param row      Row.
+         * @param column   Column.
+         */
+        Variable(String text, String function, String args, String name, String row, String column) {
+            this.text = text;
+            this.function = function;
+            this.args = args;
+            this.name = name;
+            this.row = row;
+            this.column = column;
+        }
+
+        /**
+         * Parse variable at given position.
+         *
+         * @param source Source text.
+         * @param start  Position of opening brace.
+         * @return Variable instance or null if not a magic variable.
+         */
+        static Variable parse(String source, int start) {
+            int length = source.length();
+            int i = start + 1;
+
+            // Function.
+            int from = i;
+            while (i < length && isLetter(source.charAt(i))) i++;
+            String function = i > from ? source.substring(from, i) : null;
+
+            // Arguments.
+            String args = null;
+            if (i < length && source.charAt(i) == '(') {
+                from = ++i;
+                while (i < length && isArgument(source.charAt(i))) i++;
+                if (i == from || i >= length || source.charAt(i) != ')') return null;
+                args = source.substring(from, i++);
+            }
+
+            // Name.
+            if (i >= length || source.charAt(i) != '$') return null;
+            from = ++i;
+            while (i < length && isName(source.charAt(i))) i++;
+            if (i == from) return null;
+            String name = source.substring(from, i);
+
+            // Row and column.
+            String row = null;
+            String column = null;
+            if (i < length && source.charAt(i) == '[') {
+                from = ++i;
+                while (i < length && (isDigit(source.charAt(i)) || source.charAt(i) == '?')) i++;
+                if (i == from || i >= length || source.charAt(i) != ']') return null;
+                row = source.substring(from, i++);
+
+                if (i < length && source.charAt(i) == '[') {
+                    from = ++i;
+                    while (i < length && (isLetter(source.charAt(i)) || isDigit(source.charAt(i)))) i++;
+                    if (i == from || i >= length || source.charAt(i) != ']') return null;
+                    column = source.substring(from, i++);
+                }
+            }
+
+            if (i >= length || source.charAt(i) != '}') return null;
+
+            return new Variable(source.substring(start, i + 1), function, args, name, row, column);
+        }
+
+        /**
+         * Gets value for given session.
+         *
+         * @param session Session instance.
+         * @return String or null if none.
+         */
+        String getValue(Session session) {
+            String value = null;
+
+            // Magic variables.
+            if (session.hasMagic(name)) {
+                value = Magic.getMagicValue(name, row, session);
+            }
+
+            // Saved results.
+            if (column != null && session.getSavedResults().containsKey(name)) {
+                int resultRow = Integer.parseInt(row);
+
+                if (session.getSavedResults().get(name) != null &&
+                        session.getSavedResults().get(name).get(resultRow) != null) {
+
+                    value = String.valueOf(((Map<String, String>) session.getSavedResults().get(name).get(resultRow)).get(column));
+                }
+            }
+
+            // Magic functions.
+            if (function != null && value != null) {
+                value = Magic.magicFunction(function, args, value);
+            }
+
+            return value;
+        }
+
+        /**
+         * Is ASCII letter.
+         *
+         * @param c Character.
+         * @return Boolean.
+         */
+        private static boolean isLetter(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+
+        /**
+         * Is ASCII digit.
+         *
+         * @param c Character.
+         * @return Boolean.
+         */
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        /**
+         * Is name character.
+         *
+         * @param c Character.
+         * @return Boolean.
+         */
+        private static boolean isName(char c) {
+            return isLetter(c) || isDigit(c) || c == '-' || c == '_' || c == '.';
+        }
+
+        /**
+         * Is function argument character.
+         *
+         * @param c Character.
+         * @return Boolean.
+         */
+        private static boolean isArgument(char c) {
+            return isName(c) || c == ':' || c == ';' || c == '|';
+        }
+    }
+}
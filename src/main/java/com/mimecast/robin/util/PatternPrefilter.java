@@ -0,0 +1,396 @@
+package com.mimecast.robin.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Multi-pattern prefilter.
+ *
+ * <p>Extracts a literal every match must contain from each regular expression.
+ * <p>All literals are searched for in a single pass with an Aho-Corasick automaton.
+ * <p>Only patterns whose literal was found, or that have none, need the full regex run.
+ * <p>Literals and input are compared lower case in ASCII so the prefilter never rules out a real match.
+ */
+public class PatternPrefilter {
+
+    /**
+     * Escapes matching a single character or position.
+     */
+    private static final String SINGLE_ESCAPES = "dDsSwWbBAGZzhHvVRXtnrfae";
+
+    /**
+     * Patterns.
+     */
+    private final List<Pattern> patterns;
+
+    /**
+     * Patterns without literal which are always candidates.
+     */
+    private final BitSet always = new BitSet();
+
+    /**
+     * Transitions by state.
+     */
+    private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+
+    /**
+     * Failure link by state.
+     */
+    private int[] failures;
+
+    /**
+     * Pattern indexes found by state.
+     */
+    private final List<BitSet> outputs = new ArrayList<>();
+
+    /**
+     * Constructs a new PatternPrefilter instance.
+     *
+     * @param patterns List of Pattern.
+     */
+    public PatternPrefilter(List<Pattern> patterns) {
+        this.patterns = patterns;
+
+        newState();
+        for (int i = 0; i < patterns.size(); i++) {
+            String literal = getLiteral(patterns.get(i));
+            if (literal.isEmpty()) {
+                always.set(i);
+            } else {
+                insert(literal, i);
+            }
+        }
+        link();
+    }
+
+    /**
+     * Gets patterns.
+     *
+     * @return List of Pattern.
+     */
+    public List<Pattern> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Gets candidate pattern indexes for given string.
+     *
+     * @param string String.
+     * @return BitSet of pattern indexes.
+     */
+    public BitSet candidates(String string) {
+        BitSet candidates = (BitSet) always.clone();
+
+        int state = 0;
+        for (int i = 0; i < string.length(); i++) {
+            char c = lower(string.charAt(i));
+
+            Integer next;
+            while ((next = transitions.get(state).get(c)) == null && state != 0) {
+                state = failures[state];
+            }
+            state = next != null ? next : 0;
+
+            if (!outputs.get(state).isEmpty()) {
+                candidates.or(outputs.get(state));
+            }
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Is given pattern found in string.
+     *
+     * @param index      Pattern index.
+     * @param string     String.
+     * @param candidates BitSet of candidate pattern indexes.
+     * @return Boolean.
+     */
+    public boolean find(int index, String string, BitSet candidates) {
+        return candidates.get(index) && patterns.get(index).matcher(string).find();
+    }
+
+    /**
+     * Are all patterns found in string.
+     *
+     * @param string String.
+     * @return Boolean.
+     */
+    public boolean findAll(String string) {
+        BitSet candidates = candidates(string);
+        if (candidates.cardinality() < patterns.size()) {
+            return false;
+        }
+
+        for (Pattern pattern : patterns) {
+            if (!pattern.matcher(string).find()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Add new automaton state.
+     *
+     * @return State index.
+     */
+    private int newState() {
+        transitions.add(new HashMap<>());
+        outputs.add(new BitSet());
+        return transitions.size() - 1;
+    }
+
+    /**
+     * Insert literal into trie.
+     *
+     * @param literal Literal string.
+     * @param index   Pattern index.
+     */
+    private void insert(String literal, int index) {
+        int state = 0;
+        for (int i = 0; i < literal.length(); i++) {
+            char c = lower(literal.charAt(i));
+            Integer next = transitions.get(state).get(c);
+            if (next == null) {
+                next = newState();
+                transitions.get(state).put(c, next);
+            }
+            state = next;
+        }
+        outputs.get(state).set(index);
+    }
+
+    /**
+     * Compute failure links breadth first and merge outputs.
+     */
+    private void link() {
+        failures = new int[transitions.size()];
+        Deque<Integer> queue = new ArrayDeque<>(transitions.get(0).values());
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<Character, Integer> entry : transitions.get(state).entrySet()) {
+                int child = entry.getValue();
+                queue.add(child);
+
+                int failure = failures[state];
+                Integer next;
+                while ((next = transitions.get(failure).get(entry.getKey())) == null && failure != 0) {
+                    failure = failures[failure];
+                }
+                failures[child] = next != null && next != child ? next : 0;
+                outputs.get(child).or(outputs.get(failures[child]));
+            }
+        }
+    }
+
+    /**
+     * Lower case ASCII character.
+     *
+     * @param c Character.
+     * @return Character.
+     */
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+    }
+
+    /**
+     * Gets the longest literal any match of given pattern must contain.
+     * <p>Only top level literals are considered and alternations yield none.
+     * <p>Any construct not understood ends the literal so the result is always safe to prefilter on.
+     *
+     * @param pattern Pattern instance.
+     * @return Literal string or empty.
+     */
+    public static String getLiteral(Pattern pattern) {
+        String regex = pattern.pattern();
+        if ((pattern.flags() & Pattern.LITERAL) != 0) {
+            return ascii(regex) ? regex : "";
+        }
+        if ((pattern.flags() & Pattern.COMMENTS) != 0) {
+            return "";
+        }
+
+        String best = "";
+        StringBuilder current = new StringBuilder();
+        int depth = 0;
+
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+
+            // Character class.
+            if (c == '[') {
+                i = skipClass(regex, i);
+                if (i < 0) {
+                    return "";
+                }
+                best = longest(best, current);
+                continue;
+            }
+
+            // Escapes.
+            if (c == '\\' && i + 1 < regex.length()) {
+                char e = regex.charAt(++i);
+                if (e == 'Q') {
+                    int end = regex.indexOf("\\E", i + 1);
+                    String quoted = regex.substring(i + 1, end < 0 ? regex.length() : end);
+                    i = end < 0 ? regex.length() : end + 1;
+                    if (depth == 0) {
+                        for (char q : quoted.toCharArray()) {
+                            if (q < 128) {
+                                current.append(q);
+                            } else {
+                                best = longest(best, current);
+                            }
+                        }
+                    }
+                } else if (!Character.isLetterOrDigit(e) && e < 128) {
+                    if (depth == 0) {
+                        current.append(e);
+                    }
+                } else if (SINGLE_ESCAPES.indexOf(e) >= 0) {
+                    best = longest(best, current);
+                } else {
+                    return ""; // Escapes spanning more characters.
+                }
+                continue;
+            }
+
+            // Groups and alternation.
+            if (c == '(') {
+                if (isCommentsFlag(regex, i)) {
+                    return "";
+                }
+                depth++;
+                best = longest(best, current);
+                continue;
+            }
+            if (c == ')') {
+                depth = Math.max(0, depth - 1);
+                best = longest(best, current);
+                continue;
+            }
+            if (c == '|') {
+                if (depth == 0) {
+                    return "";
+                }
+                continue;
+            }
+
+            if (depth > 0) {
+                continue;
+            }
+
+            // Optional quantifiers remove the last literal character.
+            if (c == '*' || c == '?' || c == '{') {
+                if (current.length() > 0) {
+                    current.setLength(current.length() - 1);
+                }
+                best = longest(best, current);
+                if (c == '{') {
+                    int end = regex.indexOf('}', i);
+                    i = end < 0 ? regex.length() : end;
+                }
+                continue;
+            }
+
+            if (c == '+' || c == '.' || c == '^' || c == '$' || c >= 128) {
+                best = longest(best, current);
+                continue;
+            }
+
+            current.append(c);
+        }
+
+        return longest(best, current);
+    }
+
+    /**
+     * Is inline flags group at given index enabling comments.
+     *
+     * @param regex Regex string.
+     * @param start Opening parenthesis index.
+     * @return Boolean.
+     */
+    private static boolean isCommentsFlag(String regex, int start) {
+        if (start + 1 < regex.length() && regex.charAt(start + 1) == '?') {
+            for (int i = start + 2; i < regex.length(); i++) {
+                char c = regex.charAt(i);
+                if (c == 'x') {
+                    return true;
+                }
+                if (!Character.isLetter(c)) {
+                    break;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Skip character class.
+     *
+     * @param regex Regex string.
+     * @param start Opening bracket index.
+     * @return Closing bracket index or -1 if not understood.
+     */
+    private static int skipClass(String regex, int start) {
+        int nested = 0;
+        for (int i = start; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']' ||
+                        i + 2 < regex.length() && regex.charAt(i + 1) == '^' && regex.charAt(i + 2) == ']') {
+                    return -1;
+                }
+                nested++;
+            } else if (c == ']' && --nested == 0) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gets longest of best and current and resets current.
+     *
+     * @param best    Best literal so far.
+     * @param current Current literal.
+     * @return Longest literal.
+     */
+    private static String longest(String best, StringBuilder current) {
+        String literal = current.toString();
+        current.setLength(0);
+
+        return literal.length() > best.length() ? literal : best;
+    }
+
+    /**
+     * Is string ASCII.
+     *
+     * @param string String.
+     * @return Boolean.
+     */
+    private static boolean ascii(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) >= 128) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -52,11 +52,26 @@ public class UIDExtractor {
 
         // Match UID pattern to transaction response.
         for (Transaction transaction : transactions) {
-            if (transaction.getResponse() != null && !transaction.getResponse().isEmpty()) {
-                Matcher m = uidPattern.matcher(transaction.getResponse());
-                if (m.find()) {
-                    return m.group(1).replaceAll("^-+", "");
-                }
+            String uid = getUID(transaction.getResponse());
+            if (uid != null) {
+                return uid;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get UID from given string.
+     *
+     * @param string String.
+     * @return String.
+     */
+    public static String getUID(String string) {
+        if (string != null && !string.isEmpty()) {
+            Matcher m = uidPattern.matcher(string);
+            if (m.find()) {
+                return m.group(1).replaceAll("^-+", "");
             }
         }
 
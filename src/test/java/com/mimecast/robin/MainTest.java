@@ -18,8 +18,9 @@ class MainTest {
         assertEquals(Main.USAGE, logs.get(0));
         assertEquals(" " + Main.DESCRIPTION, logs.get(1));
         assertEquals("", logs.get(2));
-        assertEquals("usage:   [--client] [--server]\n" +
+        assertEquals("usage:   [--client] [--load] [--server]\n" +
                 "    --client   Run as client\n" +
+                "    --load     Run as load client\n" +
                 "    --server   Run as server\n", logs.get(3));
         assertEquals("", logs.get(4));
     }
@@ -31,8 +32,9 @@ class MainTest {
         assertEquals(Main.USAGE, logs.get(0));
         assertEquals(" " + Main.DESCRIPTION, logs.get(1));
         assertEquals("", logs.get(2));
-        assertEquals("usage:   [--client] [--server]\n" +
+        assertEquals("usage:   [--client] [--load] [--server]\n" +
                 "    --client   Run as client\n" +
+                "    --load     Run as load client\n" +
                 "    --server   Run as server\n", logs.get(3));
         assertEquals("", logs.get(4));
     }
@@ -85,6 +87,29 @@ class MainTest {
         assertEquals(7, logs.size());
     }
 
+    @Test
+    void load() {
+        List<String> logs = MainMock.main(Collections.singletonList("--load"));
+
+        assertEquals("Config error: A JSON is required", logs.get(0));
+        assertEquals(7, logs.size());
+
+        logs = MainMock.main(Arrays.asList("--load", "-j", "fake.json5"));
+
+        assertEquals("Config error: JSON not found", logs.get(0));
+        assertEquals(7, logs.size());
+
+        logs = MainMock.main(Arrays.asList("--load", "-j", "src/test/resources/case.json5", "-n", "many"));
+
+        assertEquals("Config error: Invalid connections", logs.get(0));
+        assertEquals(7, logs.size());
+
+        logs = MainMock.main(Arrays.asList("--load", "-j", "src/test/resources/case.json5", "-n", "10", "-c", "src/test/missing/"));
+
+        assertEquals("Config error: Config directory not found: src/test/missing/", logs.get(0));
+        assertEquals(7, logs.size());
+    }
+
     @Test
     void server() {
         List<String> logs = MainMock.main(Collections.singletonList("--server"));
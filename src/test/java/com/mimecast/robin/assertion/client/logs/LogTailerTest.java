@@ -0,0 +1,93 @@
+package com.mimecast.robin.assertion.client.logs;
+
+import com.mimecast.robin.main.Foundation;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.naming.ConfigurationException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogTailerTest {
+
+    @BeforeAll
+    static void before() throws ConfigurationException {
+        Foundation.init("src/test/resources/");
+    }
+
+    @Test
+    void getLines(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("tail.log");
+        Files.writeString(path, "INFO [abc123] > MAIL FROM:<tony@example.com>\r\n" +
+                "INFO [def456] > MAIL FROM:<pepper@example.com>\n" +
+                "INFO |ghi789| > RCPT TO:<happy@example.com>\n");
+
+        LogTailer tailer = new LogTailer(path);
+        assertEquals(Collections.singletonList("INFO [abc123] > MAIL FROM:<tony@example.com>"), tailer.getLines("abc123"));
+        assertEquals(Collections.singletonList("INFO |ghi789| > RCPT TO:<happy@example.com>"), tailer.getLines("ghi789"));
+        assertTrue(tailer.getLines("missing").isEmpty());
+
+        Files.writeString(path, "INFO [abc123] > RCPT TO:<pepper@example.com>\n" +
+                "INFO [def456] > Relayed for ghi789\n" +
+                "INFO |ghi789| > DATA\n" +
+                "INFO [abc123] > QUIT", StandardOpenOption.APPEND);
+
+        assertEquals(Arrays.asList(
+                "INFO [abc123] > MAIL FROM:<tony@example.com>",
+                "INFO [abc123] > RCPT TO:<pepper@example.com>",
+                "INFO [abc123] > QUIT"
+        ), tailer.getLines("abc123"));
+        assertEquals(Arrays.asList(
+                "INFO |ghi789| > RCPT TO:<happy@example.com>",
+                "INFO [def456] > Relayed for ghi789",
+                "INFO |ghi789| > DATA"
+        ), tailer.getLines("ghi789"));
+        assertEquals("INFO [abc123] > QUIT", tailer.getPending());
+
+        Files.writeString(path, "\n", StandardOpenOption.APPEND);
+        assertEquals(3, tailer.getLines("abc123").size());
+        assertNull(tailer.getPending());
+    }
+
+    @Test
+    void getOffset(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("offset.log");
+        Files.writeString(path, "INFO [abc123] > EHLO\nINFO [def456] > EHLO\n");
+
+        LogTailer tailer = new LogTailer(path);
+        assertEquals(0L, tailer.getOffset("abc123"));
+        assertEquals(21L, tailer.getOffset("def456"));
+        assertEquals(0L, tailer.getOffset("missing"));
+
+        List<String> lines = new ArrayList<>();
+        tailer.read(tailer.getOffset("def456"), lines::add);
+        assertEquals(Collections.singletonList("INFO [def456] > EHLO"), lines);
+    }
+
+    @Test
+    void read(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("read.log");
+        Files.writeString(path, "one\ntwo\n");
+
+        LogTailer tailer = new LogTailer(path);
+        List<String> lines = new ArrayList<>();
+        long offset = tailer.read(0L, lines::add);
+        assertEquals(Arrays.asList("one", "two"), lines);
+        assertEquals(8L, offset);
+
+        Files.writeString(path, "three\n", StandardOpenOption.APPEND);
+        lines.clear();
+        offset = tailer.read(offset, lines::add);
+        assertEquals(Collections.singletonList("three"), lines);
+        assertEquals(14L, offset);
+    }
+}
@@ -45,6 +45,13 @@ class ScenarioConfigTest {
         assertEquals("501 Heart not found", scenarioConfig.getRcpt().get(0).get("response"));
     }
 
+    @Test
+    void getRcptResponse() {
+        assertEquals("501 Heart not found", scenarioConfig.getRcptResponse("ultron@reject.com").orElse(null));
+        assertFalse(scenarioConfig.getRcptResponse("ultron@rejectxcom").isPresent());
+        assertFalse(scenarioConfig.getRcptResponse("tony.ultron@reject.com").isPresent());
+    }
+
     @Test
     void getData() {
         assertEquals("554 Your data is corrupted", scenarioConfig.getData());
@@ -31,6 +31,25 @@ class ServerConfigTest {
         assertEquals(20, Config.getServer().getBacklog());
     }
 
+    @Test
+    void isVirtualThreads() {
+        assertFalse(Config.getServer().isVirtualThreads());
+
+        ServerConfig config = new ServerConfig();
+        config.getMap().put("executor", "virtual");
+        assertTrue(config.isVirtualThreads());
+    }
+
+    @Test
+    void getMaximumConnections() {
+        assertEquals(10000, Config.getServer().getMaximumConnections());
+    }
+
+    @Test
+    void getBacklogPolicy() {
+        assertEquals("wait", Config.getServer().getBacklogPolicy());
+    }
+
     @Test
     void getErrorLimit() {
         assertEquals(3, Config.getServer().getErrorLimit());
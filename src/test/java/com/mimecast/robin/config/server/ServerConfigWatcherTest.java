@@ -0,0 +1,50 @@
+package com.mimecast.robin.config.server;
+
+import com.mimecast.robin.main.Config;
+import com.mimecast.robin.main.Foundation;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.naming.ConfigurationException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerConfigWatcherTest {
+
+    @BeforeAll
+    static void before() throws ConfigurationException {
+        Foundation.init("src/test/resources/");
+    }
+
+    @Test
+    void reload() throws IOException {
+        ServerConfig original = Config.getServer();
+        Path file = Files.createTempFile("server-", ".json5");
+
+        try {
+            Files.writeString(file, "{scenarios: {\"soak.com\": {mail: \"451 Soak\"}}, users: [{name: \"soak@example.com\", pass: \"soak\"}]}", StandardCharsets.UTF_8);
+            assertTrue(ServerConfigWatcher.reload(file.toString()));
+
+            ServerConfig reloaded = Config.getServer();
+            assertNotSame(original, reloaded);
+            assertEquals("451 Soak", reloaded.getScenarios().get("soak.com").getMail());
+            assertTrue(reloaded.getUser("soak@example.com").isPresent());
+            assertSame(reloaded.getScenarios(), Config.getServer().getScenarios());
+
+            // Broken and empty files keep the previous snapshot.
+            Files.writeString(file, "{scenarios: {", StandardCharsets.UTF_8);
+            assertFalse(ServerConfigWatcher.reload(file.toString()));
+            Files.writeString(file, "", StandardCharsets.UTF_8);
+            assertFalse(ServerConfigWatcher.reload(file.toString()));
+            assertSame(reloaded, Config.getServer());
+
+        } finally {
+            Config.setServer(original);
+            Files.deleteIfExists(file);
+        }
+    }
+}
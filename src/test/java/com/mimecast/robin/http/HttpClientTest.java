@@ -2,13 +2,19 @@ package com.mimecast.robin.http;
 
 import com.mimecast.robin.config.BasicConfig;
 import com.mimecast.robin.main.Factories;
+import com.mimecast.robin.smtp.security.PermissiveTrustManager;
+import com.mimecast.robin.smtp.security.TLSContextCache;
+import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.X509TrustManager;
 import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
@@ -70,4 +76,34 @@ class HttpClientTest {
         assertFalse(response.isSuccessful());
         assertEquals("cheep cheep", httpResponse.getBody());
     }
-}
\ No newline at end of file
+
+    @Test
+    void sharedClient() throws IOException, GeneralSecurityException {
+        SSLSocketFactory factory = TLSContextCache.get("TLSv1.2", null, null, Factories.getTrustManager()).getSocketFactory();
+
+        HttpClient first = new HttpClient(config, Factories.getTrustManager());
+        HttpClient second = new HttpClient(new BasicConfig(new HashMap<>()), Factories.getTrustManager());
+
+        Map<String, Object> slowMap = new HashMap<>();
+        slowMap.put("readTimeout", 90L);
+        HttpClient slow = new HttpClient(new BasicConfig(slowMap), Factories.getTrustManager());
+
+        OkHttpClient client = first.getClient(factory);
+        assertSame(client, second.getClient(factory));
+        assertNotSame(client, slow.getClient(factory));
+        assertSame(client.connectionPool(), slow.getClient(factory).connectionPool());
+        assertSame(client.dispatcher(), slow.getClient(factory).dispatcher());
+        assertEquals(90000, slow.getClient(factory).readTimeoutMillis());
+        assertTrue(client.protocols().contains(okhttp3.Protocol.HTTP_2));
+
+        // Other trust managers of the same class do not share a client.
+        X509TrustManager trust = new TrustingManager();
+        OkHttpClient trusting = new HttpClient(config, trust).getClient(factory);
+        assertSame(trusting, new HttpClient(config, trust).getClient(factory));
+        assertNotSame(trusting, new HttpClient(config, new TrustingManager()).getClient(factory));
+        assertNotSame(client, trusting);
+    }
+
+    private static class TrustingManager extends PermissiveTrustManager {
+    }
+}
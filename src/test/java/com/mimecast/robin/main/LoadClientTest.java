@@ -0,0 +1,98 @@
+package com.mimecast.robin.main;
+
+import com.mimecast.robin.config.client.CaseConfig;
+import com.mimecast.robin.smtp.SmtpListener;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.naming.ConfigurationException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadClientTest {
+
+    private static SmtpListener listener;
+    private static Thread thread;
+
+    @BeforeAll
+    @SuppressWarnings("squid:S2925")
+    static void before() throws InterruptedException, ConfigurationException {
+        Foundation.init("src/test/resources/");
+
+        System.setProperty("javax.net.ssl.keyStore", Config.getServer().getKeyStore());
+        System.setProperty("javax.net.ssl.keyStorePassword", Config.getServer().getKeyStorePassword());
+
+        thread = new Thread(() -> listener = new SmtpListener(10027, Config.getServer().getBacklog(), "localhost"));
+        thread.start();
+        Thread.sleep(200);
+    }
+
+    @AfterAll
+    static void after() throws IOException {
+        if (listener != null) {
+            listener.serverShutdown();
+        }
+        thread.interrupt();
+    }
+
+    @Test
+    void run() throws InterruptedException {
+        CaseConfig caseConfig = new CaseConfig();
+        Map<String, Object> map = caseConfig.getMap();
+        map.put("mx", Collections.singletonList("localhost"));
+        map.put("port", 10027);
+        Map<String, Object> envelope = new HashMap<>();
+        envelope.put("mail", "tony@example.com");
+        envelope.put("rcpt", new ArrayList<>(Collections.singletonList("pepper@example.com")));
+        envelope.put("subject", "Lost in space");
+        envelope.put("message", "Rescue me!");
+        map.put("envelopes", new ArrayList<>(Collections.singletonList(envelope)));
+
+        LoadClient client = new LoadClient()
+                .setConnections(4)
+                .setMessages(20)
+                .run(caseConfig);
+
+        assertEquals(20, client.getSent());
+        assertEquals(0, client.getErrors());
+        assertTrue(client.getThroughput() > 0);
+
+        assertEquals(20, client.getLatencies().get(LoadClient.CONNECT).getCount());
+        assertEquals(20, client.getLatencies().get("TLS").getCount());
+        assertEquals(20, client.getLatencies().get("EHLO").getCount());
+        assertEquals(20, client.getLatencies().get("SHLO").getCount()); // Repeated after STARTTLS.
+        assertEquals(20, client.getLatencies().get("DATA").getCount());
+        assertNull(client.getLatencies().get("RSET"));
+
+        List<String> report = client.getReport();
+        assertEquals("Messages: 20 sent, 0 with errors", report.get(0));
+        assertTrue(report.stream().anyMatch(line -> line.startsWith("connect ")));
+        assertTrue(report.stream().anyMatch(line -> line.startsWith("data ")));
+        assertTrue(report.stream().noneMatch(line -> line.startsWith("reuse ")));
+    }
+
+    @Test
+    void rate() throws InterruptedException {
+        CaseConfig caseConfig = new CaseConfig();
+        Map<String, Object> map = caseConfig.getMap();
+        map.put("mx", Collections.singletonList("localhost"));
+        map.put("port", 10027);
+
+        // 5 messages at 10/s are spread over at least 400ms.
+        LoadClient client = new LoadClient()
+                .setConnections(5)
+                .setMessages(5)
+                .setRate(10)
+                .run(caseConfig);
+
+        assertEquals(5, client.getSent());
+        assertTrue(client.getElapsed() >= 400_000_000L);
+    }
+}
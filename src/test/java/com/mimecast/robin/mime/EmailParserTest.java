@@ -3,12 +3,15 @@ package com.mimecast.robin.mime;
 import com.mimecast.robin.mime.parts.MimePart;
 import com.mimecast.robin.mime.parts.TextMimePart;
 import com.mimecast.robin.smtp.io.LineInputStream;
+import org.apache.commons.codec.binary.Base64;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -103,6 +106,43 @@ class EmailParserTest {
         assertEquals(2, parser.getParts().get(5).getHeaders().size(), "Unexpected part headers size");
     }
 
+    @Test
+    @DisplayName("Parse encoded parts decodes and hashes in one pass")
+    void parseEncoded() throws IOException, NoSuchAlgorithmException {
+        String mime = "MIME-Version: 1.0\r\n" +
+                "Content-Type: multipart/mixed; boundary=\"robinBoundary\"\r\n" +
+                "\r\n" +
+                "--robinBoundary\r\n" +
+                "Content-Type: text/plain; charset=\"UTF-8\"\r\n" +
+                "Content-Transfer-Encoding: quoted-printable\r\n" +
+                "\r\n" +
+                "Robin =3D bird, soft=\r\n" +
+                "break\r\n" +
+                "--robinBoundary\r\n" +
+                "Content-Type: application/octet-stream; name=\"robin.dat\"\r\n" +
+                "Content-Transfer-Encoding: base64\r\n" +
+                "\r\n" +
+                "Um9iaW4gbGlrZXMg\r\n" +
+                "c2VlZHMu\r\n" +
+                "--robinBoundary--\r\n";
+
+        EmailParser parser = new EmailParser(new LineInputStream(new ByteArrayInputStream(mime.getBytes()), 1024))
+                .parse();
+
+        byte[] text = "Robin = bird, softbreak\r\n".getBytes();
+        assertEquals(new String(text), new String(parser.getParts().get(1).getBytes()));
+        assertEquals(text.length, parser.getParts().get(1).getSize());
+        assertEquals(sha256(text), parser.getParts().get(1).getHash(HashType.SHA_256));
+
+        byte[] file = "Robin likes seeds.".getBytes();
+        assertEquals(file.length, parser.getParts().get(2).getSize());
+        assertEquals(sha256(file), parser.getParts().get(2).getHash(HashType.SHA_256));
+    }
+
+    String sha256(byte[] bytes) throws NoSuchAlgorithmException {
+        return Base64.encodeBase64String(MessageDigest.getInstance(HashType.SHA_256.getKey()).digest(bytes));
+    }
+
     @SuppressWarnings("SameParameterValue")
     boolean validateTextPart(List<MimePart> parts, long size, HashType hashType, String hashValue) {
         for (MimePart part : parts) {
@@ -0,0 +1,46 @@
+package com.mimecast.robin.mime.parts;
+
+import com.mimecast.robin.main.Foundation;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.naming.ConfigurationException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfRenderCacheTest {
+
+    @BeforeAll
+    static void before() throws ConfigurationException {
+        Foundation.init("src/test/resources/");
+    }
+
+    @BeforeEach
+    void clear() {
+        PdfRenderCache.clear();
+    }
+
+    @Test
+    void cached() throws IOException {
+        byte[] first = PdfRenderCache.get("<html><body><p>Cached</p></body></html>", null);
+        byte[] second = PdfRenderCache.get("<html><body><p>Cached</p></body></html>", null);
+
+        assertTrue(new String(first, 0, 5, StandardCharsets.US_ASCII).startsWith("%PDF"));
+        assertSame(first, second);
+        assertEquals(1, PdfRenderCache.size());
+
+        PdfRenderCache.get("<html><body><p>Other</p></body></html>", null);
+        assertEquals(2, PdfRenderCache.size());
+    }
+
+    @Test
+    void background() throws IOException {
+        byte[] pdf = PdfRenderCache.join(PdfRenderCache.get("<html><body><p>Background</p></body></html>", null, true));
+
+        assertTrue(new String(pdf, 0, 5, StandardCharsets.US_ASCII).startsWith("%PDF"));
+        assertSame(pdf, PdfRenderCache.get("<html><body><p>Background</p></body></html>", null));
+    }
+}
@@ -0,0 +1,139 @@
+package com.mimecast.robin.smtp;
+
+import com.mimecast.robin.main.Config;
+import com.mimecast.robin.main.Factories;
+import com.mimecast.robin.main.Foundation;
+import com.mimecast.robin.smtp.connection.Connection;
+import com.mimecast.robin.smtp.session.Session;
+import com.mimecast.robin.smtp.transaction.EnvelopeTransactionList;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.naming.ConfigurationException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NioSmtpListenerTest {
+
+    private static NioSmtpListener listener;
+    private static Thread thread;
+
+    @BeforeAll
+    @SuppressWarnings("squid:S2925")
+    static void before() throws InterruptedException, ConfigurationException {
+        Foundation.init("src/test/resources/");
+
+        System.setProperty("javax.net.ssl.keyStore", Config.getServer().getKeyStore());
+        System.setProperty("javax.net.ssl.keyStorePassword", Config.getServer().getKeyStorePassword());
+
+        thread = new Thread(() -> listener = new NioSmtpListener(10026, Config.getServer().getBacklog(), "localhost"));
+        thread.start();
+        Thread.sleep(200);
+    }
+
+    @AfterAll
+    static void after() throws IOException {
+        if (listener != null) {
+            listener.serverShutdown();
+        }
+        thread.interrupt();
+    }
+
+    @Test
+    void send() {
+        Session session = Factories.getSession();
+        session.setMx(Collections.singletonList("localhost"));
+        session.setPort(10026);
+        session.setEhlo("example.com");
+
+        MessageEnvelope envelope = new MessageEnvelope();
+        envelope.setMail("tony@example.com");
+        envelope.setRcpt("pepper@example.com");
+        envelope.setSubject("Lost in space");
+        envelope.setMessage("Rescue me!");
+        session.addEnvelope(envelope);
+
+        Connection connection = new EmailDelivery(session).send().getConnection();
+
+        assertEquals("220", connection.getSession().getSessionTransactionList().getLast("SMTP").getResponseCode());
+        assertEquals("250", connection.getSession().getSessionTransactionList().getLast("EHLO").getResponseCode());
+
+        EnvelopeTransactionList envelopeTransactions = connection.getSession().getSessionTransactionList().getEnvelopes().get(0);
+        assertEquals("250", envelopeTransactions.getMail().getResponseCode());
+        assertEquals("250", envelopeTransactions.getRcpt().get(0).getResponseCode());
+        assertEquals("250", envelopeTransactions.getData().getResponseCode());
+
+        assertEquals("221", connection.getSession().getSessionTransactionList().getLast("QUIT").getResponseCode());
+    }
+
+    @Test
+    void pipelined() throws IOException {
+        Session session = Factories.getSession();
+        session.setMx(Collections.singletonList("localhost"));
+        session.setPort(10026);
+
+        Connection connection = new Connection(session);
+        connection.connect();
+
+        connection.write("EHLO example.com\r\nRSET\r\nQUIT");
+
+        assertTrue(connection.read("250").startsWith("250-Welcome"));
+        assertTrue(connection.read("250").startsWith("250 2.1.5"));
+        assertTrue(connection.read("221").startsWith("221"));
+
+        connection.close();
+    }
+
+    @Test
+    void longLine() throws IOException {
+        Session session = Factories.getSession();
+        session.setMx(Collections.singletonList("localhost"));
+        session.setPort(10026);
+
+        Connection connection = new Connection(session);
+        connection.connect();
+
+        // Longer than the channel buffer and without line feed until later.
+        connection.write(("NOOP " + "x".repeat(5000)).getBytes(StandardCharsets.US_ASCII));
+        connection.flush();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            Thread.sleep(200);
+            connection.write("\r\nQUIT");
+
+            assertFalse(connection.read("500").isEmpty());
+            assertTrue(connection.read("221").startsWith("221"));
+        });
+
+        connection.close();
+    }
+
+    @Test
+    void startTls() throws IOException {
+        Session session = Factories.getSession();
+        session.setMx(Collections.singletonList("localhost"));
+        session.setPort(10026);
+
+        Connection connection = new Connection(session);
+        connection.connect();
+
+        connection.write("STARTTLS");
+        assertTrue(connection.read("220").startsWith("220"));
+        connection.startTLS(true);
+        connection.buildStreams();
+
+        connection.write("EHLO example.com");
+        assertTrue(connection.read("250").startsWith("250-Welcome"));
+        assertFalse(connection.getProtocol().isEmpty());
+
+        connection.write("QUIT");
+        assertTrue(connection.read("221").startsWith("221"));
+
+        connection.close();
+    }
+}
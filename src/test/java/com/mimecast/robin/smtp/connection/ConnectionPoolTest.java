@@ -0,0 +1,145 @@
+package com.mimecast.robin.smtp.connection;
+
+import com.mimecast.robin.config.client.CaseConfig;
+import com.mimecast.robin.main.Config;
+import com.mimecast.robin.main.Factories;
+import com.mimecast.robin.main.Foundation;
+import com.mimecast.robin.smtp.EmailDelivery;
+import com.mimecast.robin.smtp.SmtpListener;
+import com.mimecast.robin.smtp.session.Session;
+import com.mimecast.robin.smtp.session.XclientSession;
+import com.mimecast.robin.smtp.transaction.EnvelopeTransactionList;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.naming.ConfigurationException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+
+    private static SmtpListener listener;
+    private static Thread thread;
+
+    @BeforeAll
+    @SuppressWarnings("squid:S2925")
+    static void before() throws InterruptedException, ConfigurationException {
+        Foundation.init("src/test/resources/");
+
+        System.setProperty("javax.net.ssl.keyStore", Config.getServer().getKeyStore());
+        System.setProperty("javax.net.ssl.keyStorePassword", Config.getServer().getKeyStorePassword());
+
+        thread = new Thread(() -> listener = new SmtpListener(10028, Config.getServer().getBacklog(), "localhost"));
+        thread.start();
+        Thread.sleep(200);
+    }
+
+    @AfterAll
+    static void after() throws IOException {
+        if (listener != null) {
+            listener.serverShutdown();
+        }
+        thread.interrupt();
+    }
+
+    @AfterEach
+    void clear() {
+        ConnectionPool.clear();
+    }
+
+    private Session getSession(int port) {
+        CaseConfig caseConfig = new CaseConfig();
+        Map<String, Object> map = caseConfig.getMap();
+        map.put("mx", Collections.singletonList("localhost"));
+        map.put("port", port);
+        map.put("pool", true);
+        Map<String, Object> envelope = new HashMap<>();
+        envelope.put("mail", "tony@example.com");
+        envelope.put("rcpt", new ArrayList<>(Collections.singletonList("pepper@example.com")));
+        envelope.put("subject", "Lost in space");
+        envelope.put("message", "Rescue me!");
+        map.put("envelopes", new ArrayList<>(Collections.singletonList(envelope)));
+
+        Session session = Factories.getSession();
+        session.map(caseConfig);
+        return session;
+    }
+
+    @Test
+    void reuse() {
+        Session first = getSession(10028);
+        EmailDelivery delivery = new EmailDelivery(first).send();
+
+        assertFalse(delivery.getConnection().isReused());
+        assertTrue(delivery.getConnection().isReleased());
+        assertNotNull(first.getSessionTransactionList().getLast("EHLO"));
+        assertNull(first.getSessionTransactionList().getLast("QUIT"));
+        assertEquals(1, ConnectionPool.size());
+
+        Session second = getSession(10028);
+        delivery = new EmailDelivery(second).send();
+
+        assertTrue(delivery.getConnection().isReused());
+        assertNull(second.getSessionTransactionList().getLast("EHLO"));
+        assertNotNull(second.getSessionTransactionList().getLast("RSET"));
+        assertTrue(second.isStartTls());
+        assertTrue(second.isEhloTls());
+
+        EnvelopeTransactionList envelope = second.getSessionTransactionList().getEnvelopes().get(0);
+        assertTrue(envelope.getErrors().isEmpty());
+        assertTrue(envelope.getData().getResponse().startsWith("250"));
+        assertEquals(1, ConnectionPool.size());
+
+        ConnectionPool.clear();
+        assertEquals(0, ConnectionPool.size());
+    }
+
+    @Test
+    void key() {
+        assertEquals(getSession(10028).getPoolKey(), getSession(10028).getPoolKey());
+        assertNotEquals(getSession(10028).getPoolKey(), getSession(10029).getPoolKey());
+
+        Session session = getSession(10028);
+        session.setAuth(true).setUsername("tony@example.com").setPassword("giveHerTheRing");
+        assertNotEquals(getSession(10028).getPoolKey(), session.getPoolKey());
+
+        String auth = session.getPoolKey();
+        assertFalse(auth.contains("giveHerTheRing"));
+        session.setPassword("wrong");
+        assertNotEquals(auth, session.getPoolKey());
+        session.setPassword("giveHerTheRing").setAuthLoginCombined(true);
+        assertNotEquals(auth, session.getPoolKey());
+
+        XclientSession xclient = new XclientSession();
+        xclient.map(new CaseConfig(new HashMap<>(Map.of("mx", List.of("localhost"), "port", 10028))));
+        String key = xclient.getPoolKey();
+        xclient.setXclient(new HashMap<>(Map.of("addr", "192.168.0.1")));
+        assertNotEquals(key, xclient.getPoolKey());
+    }
+
+    @Test
+    void envelopeError() {
+        Session session = getSession(10028);
+        session.setEhlo("rejectmail.com");
+        session.getEnvelopes().get(0).setRcpts(new ArrayList<>(Collections.singletonList("jane@example.com")));
+        EmailDelivery delivery = new EmailDelivery(session).send();
+
+        assertFalse(session.getSessionTransactionList().getEnvelopes().get(0).getErrors().isEmpty());
+        assertFalse(delivery.getConnection().isReleased());
+        assertEquals(0, ConnectionPool.size());
+    }
+
+    @Test
+    void borrowNone() {
+        Session session = getSession(10029);
+        assertFalse(ConnectionPool.borrow(new Connection(session)));
+    }
+}
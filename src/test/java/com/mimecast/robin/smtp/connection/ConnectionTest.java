@@ -6,7 +6,13 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import javax.naming.ConfigurationException;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -44,4 +50,37 @@ class ConnectionTest {
         assertTrue(connection.getScenario().isPresent());
         assertEquals("501 Not talking to you", connection.getScenario().get().getEhlo());
     }
+
+    @Test
+    void pipelinedReplies() throws IOException {
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("MAIL FROM:<tony@example.com>\r\n");
+        stringBuilder.append("RCPT TO:<pepper@example.com>\r\n");
+        stringBuilder.append("DATA\r\n");
+
+        ConnectionMock connection = getConnection(stringBuilder);
+
+        List<String> writes = new ArrayList<>();
+        connection.out = new DataOutputStream(new BufferedOutputStream(new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                writes.add(new String(b, off, len));
+            }
+        }));
+
+        connection.read();
+        connection.write("250 OK");
+        connection.read();
+        connection.write("250 OK");
+        connection.read();
+        connection.write("354 Go");
+
+        // Replies are held while pipelined commands are buffered.
+        assertTrue(writes.isEmpty());
+
+        // Read with no command buffered sends them in one write.
+        connection.read();
+        assertEquals(1, writes.size());
+        assertEquals("250 OK\r\n250 OK\r\n354 Go\r\n", writes.get(0));
+    }
 }
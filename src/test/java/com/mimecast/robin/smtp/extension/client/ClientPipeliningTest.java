@@ -0,0 +1,88 @@
+package com.mimecast.robin.smtp.extension.client;
+
+import com.mimecast.robin.main.Foundation;
+import com.mimecast.robin.smtp.MessageEnvelope;
+import com.mimecast.robin.smtp.connection.ConnectionMock;
+import com.mimecast.robin.smtp.transaction.EnvelopeTransactionList;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.naming.ConfigurationException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientPipeliningTest {
+
+    @BeforeAll
+    static void before() throws ConfigurationException {
+        Foundation.init("src/test/resources/");
+    }
+
+    @Test
+    void process() throws IOException {
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("250 OK\r\n");
+        stringBuilder.append("250 OK\r\n");
+        stringBuilder.append("250 OK\r\n");
+        stringBuilder.append("354 Go\r\n");
+        stringBuilder.append("250 OK\r\n");
+        ConnectionMock connection = new ConnectionMock(stringBuilder);
+
+        MessageEnvelope envelope = new MessageEnvelope();
+        envelope.setMail("tony@example.com");
+        envelope.setRcpts(Arrays.asList("pepper@example.com", "happy@example.com"));
+        envelope.setSubject("Lost in space");
+        envelope.setMessage("Rescue me!");
+        connection.getSession().addEnvelope(envelope);
+
+        boolean process = new ClientPipelining().process(connection);
+
+        assertTrue(process);
+
+        connection.parseLines();
+        assertTrue(connection.getLine(1).startsWith("MAIL FROM:<tony@example.com>"));
+        assertEquals("RCPT TO:<pepper@example.com>\r\n", connection.getLine(2));
+        assertEquals("RCPT TO:<happy@example.com>\r\n", connection.getLine(3));
+        assertEquals("DATA\r\n", connection.getLine(4));
+        assertEquals("MIME-Version: 1.0\r\n", connection.getLine(5));
+
+        EnvelopeTransactionList transactions = connection.getSession().getSessionTransactionList().getEnvelopes().get(0);
+        assertFalse(transactions.getMail().isError());
+        assertEquals(2, transactions.getRcpt().size());
+        assertTrue(transactions.getRcptErrors().isEmpty());
+        assertEquals("250 OK", transactions.getData().getResponse());
+        assertTrue(transactions.getErrors().isEmpty());
+    }
+
+    @Test
+    void processRejected() throws IOException {
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("250 OK\r\n");
+        stringBuilder.append("550 Unknown user\r\n");
+        stringBuilder.append("354 Go\r\n");
+        stringBuilder.append("554 No valid recipients\r\n");
+        ConnectionMock connection = new ConnectionMock(stringBuilder);
+
+        MessageEnvelope envelope = new MessageEnvelope();
+        envelope.setMail("tony@example.com");
+        envelope.setRcpt("pepper@example.com");
+        envelope.setMessage("Rescue me!");
+        connection.getSession().addEnvelope(envelope);
+
+        boolean process = new ClientPipelining().process(connection);
+
+        assertFalse(process);
+
+        connection.parseLines();
+        assertEquals("RCPT TO:<pepper@example.com>\r\n", connection.getLine(2));
+        assertEquals("DATA\r\n", connection.getLine(3));
+        assertEquals(".\r\n", connection.getLine(4));
+
+        EnvelopeTransactionList transactions = connection.getSession().getSessionTransactionList().getEnvelopes().get(0);
+        assertEquals(1, transactions.getRcptErrors().size());
+        assertTrue(transactions.getData().isError());
+        assertEquals("554 No valid recipients", transactions.getData().getResponse());
+    }
+}
@@ -12,8 +12,7 @@ import javax.naming.ConfigurationException;
 import java.io.IOException;
 import java.net.Socket;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 class ServerDataTest {
 
@@ -106,6 +105,32 @@ class ServerDataTest {
         assertEquals(stringBuilder.toString().length() - (3 + 2), data.getBytesReceived());
     }
 
+    @Test
+    void processAsciiDotStuffed() throws IOException, AddressException {
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("Subject: Lost in space\r\n");
+        stringBuilder.append("\r\n");
+        stringBuilder.append("..\r\n");
+        stringBuilder.append("..Rescue me!\r\n");
+        stringBuilder.append(".\r\n");
+        stringBuilder.append("QUIT\r\n");
+
+        ConnectionMock connection = new ConnectionMock(stringBuilder);
+        connection.setSocket(new Socket());
+        connection.getSession().addRcpt(new InternetAddress("john@example.com"));
+
+        ServerData data = new ServerData();
+        assertTrue(data.process(connection, new Verb("DATA")));
+
+        connection.parseLines();
+        assertTrue(connection.getLine(2).startsWith("250 2.0.0 Received OK"), "startsWith(\"250 2.0.0 Received OK\")");
+        assertEquals("Subject: Lost in space\r\n\r\n.\r\n.Rescue me!".length(), data.getBytesReceived());
+        assertTrue(connection.getSession().getDataRate() > 0);
+
+        // Pipelined command after terminator is left for the next read.
+        assertEquals("QUIT", connection.read().trim());
+    }
+
     @Test
     void processBinary() throws IOException {
         StringBuilder stringBuilder = new StringBuilder();
@@ -130,4 +155,33 @@ class ServerDataTest {
         assertTrue(connection.getLine(1).startsWith("250 2.0.0 Chunk OK"), "startsWith(\"250 2.0.0 Chunk OK\")");
         assertEquals(stringBuilder.toString().length() - 2, data.getBytesReceived());
     }
+
+    @Test
+    void processBinaryLarge() throws IOException {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            stringBuilder.append("Line number ").append(i).append("\r\n");
+        }
+        int size = stringBuilder.length();
+        stringBuilder.append("QUIT\r\n");
+
+        ConnectionMock connection = new ConnectionMock(stringBuilder);
+        connection.setSocket(new Socket());
+
+        ServerData data = new ServerData();
+        assertTrue(data.process(connection, new Verb("BDAT " + size + " LAST")));
+
+        connection.parseLines();
+        assertTrue(connection.getLine(1).startsWith("250 2.0.0 Chunk OK"), "startsWith(\"250 2.0.0 Chunk OK\")");
+        assertEquals(size, data.getBytesReceived());
+        assertEquals("QUIT", connection.read().trim());
+    }
+
+    @Test
+    void processBinaryShort() {
+        ConnectionMock connection = new ConnectionMock(new StringBuilder("Too short"));
+        connection.setSocket(new Socket());
+
+        assertThrows(IOException.class, () -> new ServerData().process(connection, new Verb("BDAT 100 LAST")));
+    }
 }
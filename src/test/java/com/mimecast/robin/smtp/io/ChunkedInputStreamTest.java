@@ -12,6 +12,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class ChunkedInputStreamTest {
@@ -37,16 +38,16 @@ class ChunkedInputStreamTest {
         envelope.setChunkSize(256);
 
         ChunkedInputStream stream = getStream();
-        List<ByteArrayOutputStream> chunks = new ArrayList<>();
+        List<Integer> chunks = new ArrayList<>();
         while(stream.hasChunks()) {
-            chunks.add(stream.getChunk());
+            chunks.add(stream.readChunk());
         }
 
         assertEquals(11, chunks.size());
         for (int i = 0; i < chunks.size() - 1; i++) {
-            assertEquals(256, chunks.get(i).size());
+            assertEquals(256, (int) chunks.get(i));
         }
-        assertEquals(214, chunks.get(10).size());
+        assertEquals(214, (int) chunks.get(10));
     }
 
     @Test
@@ -54,14 +55,14 @@ class ChunkedInputStreamTest {
         envelope.setChunkSize(0); // Defaults to 2048 as size has to be > 0.
 
         ChunkedInputStream stream = getStream();
-        List<ByteArrayOutputStream> chunks = new ArrayList<>();
+        List<Integer> chunks = new ArrayList<>();
         while(stream.hasChunks()) {
-            chunks.add(stream.getChunk());
+            chunks.add(stream.readChunk());
         }
 
         assertEquals(2, chunks.size());
-        assertEquals(2048, chunks.get(0).size());
-        assertEquals(726, chunks.get(1).size());
+        assertEquals(2048, (int) chunks.get(0));
+        assertEquals(726, (int) chunks.get(1));
     }
 
     @Test
@@ -69,14 +70,14 @@ class ChunkedInputStreamTest {
         envelope.setChunkSize(100); // Defaults to 128 as size is under min viable limit of 128.
 
         ChunkedInputStream stream = getStream();
-        List<ByteArrayOutputStream> chunks = new ArrayList<>();
+        List<Integer> chunks = new ArrayList<>();
         while(stream.hasChunks()) {
-            chunks.add(stream.getChunk());
+            chunks.add(stream.readChunk());
         }
 
         assertEquals(2, chunks.size());
-        assertEquals(2048, chunks.get(0).size());
-        assertEquals(726, chunks.get(1).size());
+        assertEquals(2048, (int) chunks.get(0));
+        assertEquals(726, (int) chunks.get(1));
     }
 
     @Test
@@ -84,17 +85,37 @@ class ChunkedInputStreamTest {
         envelope.setChunkSize(512);
 
         ChunkedInputStream stream = getStream();
-        List<ByteArrayOutputStream> chunks = new ArrayList<>();
+        List<Integer> chunks = new ArrayList<>();
         while(stream.hasChunks()) {
-            chunks.add(stream.getChunk(true));
+            chunks.add(stream.readChunk(true));
         }
 
         assertEquals(6, chunks.size());
-        assertEquals(240, chunks.get(0).size());
-        assertEquals(512, chunks.get(1).size());
-        assertEquals(512, chunks.get(2).size());
-        assertEquals(512, chunks.get(3).size());
-        assertEquals(512, chunks.get(4).size());
-        assertEquals(486, chunks.get(5).size());
+        assertEquals(240, (int) chunks.get(0));
+        assertEquals(512, (int) chunks.get(1));
+        assertEquals(512, (int) chunks.get(2));
+        assertEquals(512, (int) chunks.get(3));
+        assertEquals(512, (int) chunks.get(4));
+        assertEquals(486, (int) chunks.get(5));
+    }
+
+    @Test
+    void readChunkContent() throws IOException {
+        envelope.setChunkSize(300);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        MagicInputStream magic = new MagicInputStream(new FileInputStream(envelope.getFile()), envelope);
+        byte[] line;
+        while ((line = magic.readLine()) != null) {
+            expected.write(line);
+        }
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ChunkedInputStream stream = getStream();
+        while (stream.hasChunks()) {
+            actual.write(stream.getChunkBuffer(), ChunkedInputStream.HEADROOM, stream.readChunk());
+        }
+
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
     }
 }
@@ -0,0 +1,90 @@
+package com.mimecast.robin.smtp.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataDecoderTest {
+
+    @Test
+    void decodeCRLF() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.wrap("Subject: Test\r\n\r\nBody\r\n.\r\nQUIT\r\n".getBytes());
+
+        assertTrue(new DataDecoder(out).decode(buffer));
+        assertEquals("Subject: Test\r\n\r\nBody", out.toString());
+        assertEquals("QUIT\r\n", new String(buffer.array(), buffer.position(), buffer.remaining()));
+    }
+
+    @Test
+    void decodeLF() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertTrue(new DataDecoder(out).decode(ByteBuffer.wrap("Subject: Test\n\nBody\n.\n".getBytes())));
+        assertEquals("Subject: Test\n\nBody", out.toString());
+    }
+
+    @Test
+    void decodeCR() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.wrap("Subject: Test\r\rBody\r.\rQUIT".getBytes());
+
+        assertTrue(new DataDecoder(out).decode(buffer));
+        assertEquals("Subject: Test\r\rBody", out.toString());
+        assertEquals("QUIT", new String(buffer.array(), buffer.position(), buffer.remaining()));
+    }
+
+    @Test
+    void decodeUnstuff() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertTrue(new DataDecoder(out).decode(ByteBuffer.wrap("..\r\n..dots\r\n.x\r\n.\r\n".getBytes())));
+        assertEquals(".\r\n.dots\r\nx", out.toString());
+    }
+
+    @Test
+    void decodeEmpty() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertTrue(new DataDecoder(out).decode(ByteBuffer.wrap(".\r\n".getBytes())));
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void decodeSplit() throws IOException {
+        byte[] bytes = "Line one\r\n..two\r\nthree\r\n.\r\nQUIT\r\n".getBytes();
+
+        // Every split point must yield the same result.
+        for (int size = 1; size < bytes.length; size++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            DataDecoder decoder = new DataDecoder(out);
+
+            int offset = 0;
+            boolean done = false;
+            while (!done && offset < bytes.length) {
+                int length = Math.min(size, bytes.length - offset);
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length).slice();
+                done = decoder.decode(buffer);
+                offset += buffer.position();
+            }
+
+            assertTrue(decoder.isDone(), "size " + size);
+            assertEquals("Line one\r\n.two\r\nthree", out.toString(), "size " + size);
+            assertEquals(bytes.length - "QUIT\r\n".length(), offset, "size " + size);
+        }
+    }
+
+    @Test
+    void decodeIncomplete() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataDecoder decoder = new DataDecoder(out);
+
+        assertFalse(decoder.decode(ByteBuffer.wrap("Body\r\n".getBytes())));
+        assertFalse(decoder.isDone());
+        assertEquals("Body", out.toString());
+    }
+}
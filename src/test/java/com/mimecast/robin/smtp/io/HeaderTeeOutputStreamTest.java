@@ -0,0 +1,49 @@
+package com.mimecast.robin.smtp.io;
+
+import com.mimecast.robin.mime.headers.MimeHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class HeaderTeeOutputStreamTest {
+
+    @Test
+    void capture() throws IOException {
+        String email = "Mime-Version: 1.0\r\n" +
+                "Subject: Robin\r\n" +
+                "\tlikes seeds\r\n" +
+                "X-Robin-Filename: robin.eml\r\n" +
+                "\r\n" +
+                "X-Robin-Relay: example.com\r\n";
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        HeaderTeeOutputStream tee = new HeaderTeeOutputStream(output);
+
+        // Split writes across line boundaries.
+        byte[] bytes = email.getBytes();
+        tee.write(bytes, 0, 7);
+        tee.write(bytes[7]);
+        tee.write(bytes, 8, bytes.length - 8);
+
+        assertEquals(email, output.toString());
+
+        MimeHeaders headers = tee.getHeaders();
+        assertEquals(3, headers.size());
+        assertEquals("1.0", headers.get("mime-version").get().getValue());
+        assertEquals("Robin\r\n\tlikes seeds", headers.get("subject").get().getValue());
+        assertEquals("robin.eml", headers.get("x-robin-filename").get().getValue());
+        assertFalse(headers.get("x-robin-relay").isPresent());
+    }
+
+    @Test
+    void unterminated() throws IOException {
+        HeaderTeeOutputStream tee = new HeaderTeeOutputStream(new ByteArrayOutputStream());
+        tee.write("Mime-Version: 1.0".getBytes());
+
+        assertEquals("1.0", tee.getHeaders().get("mime-version").get().getValue());
+    }
+}
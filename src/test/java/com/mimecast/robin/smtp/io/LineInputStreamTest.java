@@ -5,12 +5,14 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import javax.naming.ConfigurationException;
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 class LineInputStreamTest {
 
@@ -39,4 +41,74 @@ class LineInputStreamTest {
         assertEquals("Content-Transfer-Encoding: 8bit", lines.get(42).trim());
         assertEquals("--MCBoundary11505141140170031--", lines.get(76).trim());
     }
+
+    @Test
+    void readLineEols() throws IOException {
+        // Single byte reads to split EOLs across buffer fills.
+        InputStream trickle = new ByteArrayInputStream("one\r\ntwo\nthree\rfour\r\r\nfive\r".getBytes()) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+
+        LineInputStream stream = new LineInputStream(trickle);
+        assertEquals("one\r\n", new String(stream.readLine()));
+        assertEquals("two\n", new String(stream.readLine()));
+        assertEquals("three\r", new String(stream.readLine()));
+        assertEquals("four\r", new String(stream.readLine()));
+        assertEquals("\r\n", new String(stream.readLine()));
+        assertEquals("five\r", new String(stream.readLine()));
+        assertNull(stream.readLine());
+        assertEquals(6, stream.getLineNumber());
+    }
+
+    @Test
+    void readLineBuffer() throws IOException {
+        LineInputStream stream = new LineInputStream(new ByteArrayInputStream("250-first\r\n250 last\r\n".getBytes()));
+
+        int length = stream.readLineBuffer();
+        assertEquals("250-first\r\n", new String(stream.getLineBuffer(), 0, length));
+
+        length = stream.readLineBuffer();
+        assertEquals("250 last\r\n", new String(stream.getLineBuffer(), 0, length));
+
+        assertEquals(-1, stream.readLineBuffer());
+    }
+
+    @Test
+    void unread() throws IOException {
+        LineInputStream stream = new LineInputStream(new ByteArrayInputStream("first\r\nsecond\r\n".getBytes()));
+
+        byte[] first = stream.readLine();
+        stream.unread(first);
+        assertArrayEquals(first, stream.readLine());
+
+        stream.unread('X');
+        assertEquals("Xsecond\r\n", new String(stream.readLine()));
+        assertNull(stream.readLine());
+    }
+
+    @Test
+    void readBytes() throws IOException {
+        byte[] bytes = new byte[20000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i % 128);
+        }
+
+        LineInputStream stream = new LineInputStream(new ByteArrayInputStream(bytes));
+        assertEquals(0, stream.read());
+
+        byte[] read = new byte[bytes.length];
+        read[0] = 0;
+        int total = 1;
+        int count;
+        while ((count = stream.read(read, total, read.length - total)) > 0) {
+            total += count;
+        }
+
+        assertEquals(bytes.length, total);
+        assertArrayEquals(bytes, read);
+        assertEquals(-1, stream.read());
+    }
 }
@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class MagicInputStreamTest {
@@ -68,12 +69,26 @@ class MagicInputStreamTest {
 
     @Test
     void doSimpleMagic() {
-        assertEquals(envelope.getMessageId(), magic.doMagic("{$msgid}", "{$msgid}"));
-        assertEquals(envelope.getDate(), magic.doMagic("{$date}", "{$date}"));
-        assertEquals(envelope.getYymd(), magic.doMagic("{$yymd}", "{$yymd}"));
-        assertEquals(envelope.getYear(), magic.doMagic("{$year}", "{$year}"));
-        assertEquals(envelope.getMailFrom(), magic.doMagic("{$mailfrom}", "{$mailfrom}"));
-        assertEquals(envelope.getRcptTo(), magic.doMagic("{$rcptto}", "{$rcptto}"));
+        assertEquals(envelope.getMessageId(), new String(magic.doMagic("{$msgid}".getBytes())));
+        assertEquals(envelope.getDate(), new String(magic.doMagic("{$date}".getBytes())));
+        assertEquals(envelope.getYymd(), new String(magic.doMagic("{$yymd}".getBytes())));
+        assertEquals(envelope.getYear(), new String(magic.doMagic("{$year}".getBytes())));
+        assertEquals(envelope.getMailFrom(), new String(magic.doMagic("{$mailfrom}".getBytes())));
+        assertEquals(envelope.getRcptTo(), new String(magic.doMagic("{$rcptto}".getBytes())));
+    }
+
+    @Test
+    void doMagicLine() {
+        byte[] plain = "No magic {here} $ {$\r\n".getBytes();
+        assertSame(plain, magic.doMagic(plain));
+
+        assertEquals("To: <" + envelope.getRcptTo() + ">, {$unknown} " + envelope.getHeaders().get("mail") + "\r\n",
+                new String(magic.doMagic("To: <{$RCPT}>, {$unknown} {$headers[mail]}\r\n".getBytes())));
+
+        String[] random = new String(magic.doMagic("{$randch8} {$randch8} {$randch}".getBytes())).split(" ");
+        assertEquals(random[0], random[1]);
+        assertEquals(8, random[0].length());
+        assertEquals(20, random[2].length());
     }
 
     @Test
@@ -97,15 +112,15 @@ class MagicInputStreamTest {
 
     @Test
     void randCh() {
-        assertEquals("tony", magic.randCh("tony"));
-        assertEquals(20, magic.randCh("{$randch}").length());
-        assertEquals(57, magic.randCh("{$randch57}").length());
+        assertEquals("tony", new String(magic.doMagic("tony".getBytes())));
+        assertEquals(20, magic.doMagic("{$randch}".getBytes()).length);
+        assertEquals(57, magic.doMagic("{$randch57}".getBytes()).length);
     }
 
     @Test
     void randNo() {
-        assertEquals("pepper", magic.randNo("pepper"));
-        assertTrue(Integer.parseInt(magic.randNo("{$randno}")) <= 20);
-        assertTrue(Integer.parseInt(magic.randNo("{$randno75}")) <= 75);
+        assertEquals("pepper", new String(magic.doMagic("pepper".getBytes())));
+        assertTrue(Integer.parseInt(new String(magic.doMagic("{$randno}".getBytes()))) <= 20);
+        assertTrue(Integer.parseInt(new String(magic.doMagic("{$randno75}".getBytes()))) <= 75);
     }
 }
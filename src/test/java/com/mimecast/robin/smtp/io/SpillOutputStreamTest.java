@@ -0,0 +1,53 @@
+package com.mimecast.robin.smtp.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillOutputStreamTest {
+
+    @Test
+    void memory() throws IOException {
+        SpillOutputStream output = new SpillOutputStream(1024);
+        output.write("Subject: Memory\r\n\r\nBody\r\n".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(output.isSpilled());
+        try (InputStream input = output.getInputStream()) {
+            assertEquals("Subject: Memory\r\n\r\nBody\r\n", new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void spill() throws IOException {
+        SpillOutputStream output = new SpillOutputStream(16);
+        output.write("Subject: Spill\r\n".getBytes(StandardCharsets.UTF_8));
+        assertFalse(output.isSpilled());
+
+        output.write("\r\nBody\r\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(output.isSpilled());
+
+        try (InputStream input = output.getInputStream()) {
+            assertEquals("Subject: Spill\r\n\r\nBody\r\n", new String(input.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void grow() throws IOException {
+        byte[] bytes = new byte[200 * 1024];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ('a' + i % 26);
+        }
+
+        SpillOutputStream output = new SpillOutputStream(1024 * 1024);
+        output.write(bytes);
+
+        assertFalse(output.isSpilled());
+        try (InputStream input = output.getInputStream()) {
+            assertArrayEquals(bytes, input.readAllBytes());
+        }
+    }
+}
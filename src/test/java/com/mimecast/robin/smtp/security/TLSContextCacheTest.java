@@ -0,0 +1,83 @@
+package com.mimecast.robin.smtp.security;
+
+import com.mimecast.robin.main.Config;
+import com.mimecast.robin.main.Foundation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.naming.ConfigurationException;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TLSContextCacheTest {
+
+    private static String keyStore;
+    private static char[] password;
+
+    @BeforeAll
+    static void before() throws ConfigurationException {
+        Foundation.init("src/test/resources/");
+
+        keyStore = Config.getServer().getKeyStore();
+        password = Config.getServer().getKeyStorePassword().toCharArray();
+    }
+
+    @AfterEach
+    void after() {
+        TLSContextCache.clear();
+    }
+
+    @Test
+    void cached() throws IOException, GeneralSecurityException {
+        SSLContext server = TLSContextCache.get(keyStore, password, new PermissiveTrustManager());
+        assertSame(server, TLSContextCache.get(keyStore, password, new PermissiveTrustManager()));
+
+        SSLContext client = TLSContextCache.get(null, null, new PermissiveTrustManager());
+        assertSame(client, TLSContextCache.get(null, null, new PermissiveTrustManager()));
+        assertNotSame(server, client);
+
+        SSLContext legacy = TLSContextCache.get("TLSv1.2", null, null, new PermissiveTrustManager());
+        assertEquals("TLSv1.2", legacy.getProtocol());
+        assertSame(legacy, TLSContextCache.get("TLSv1.2", null, null, new PermissiveTrustManager()));
+        assertNotSame(client, legacy);
+    }
+
+    @Test
+    void trustManager() throws IOException, GeneralSecurityException {
+        X509TrustManager trust = new TrustingManager();
+        SSLContext context = TLSContextCache.get(null, null, trust);
+
+        assertSame(context, TLSContextCache.get(null, null, trust));
+        assertNotSame(context, TLSContextCache.get(null, null, new TrustingManager()));
+        assertNotSame(context, TLSContextCache.get(null, null, new PermissiveTrustManager()));
+    }
+
+    private static class TrustingManager extends PermissiveTrustManager {
+    }
+
+    @Test
+    void reload(@TempDir Path dir) throws IOException, GeneralSecurityException {
+        Path path = dir.resolve("keystore.jks");
+        Files.copy(Paths.get(keyStore), path);
+
+        SSLContext context = TLSContextCache.get(path.toString(), password, new PermissiveTrustManager());
+        assertSame(context, TLSContextCache.get(path.toString(), password, new PermissiveTrustManager()));
+
+        assertTrue(path.toFile().setLastModified(path.toFile().lastModified() + 2000L));
+        assertNotSame(context, TLSContextCache.get(path.toString(), password, new PermissiveTrustManager()));
+    }
+
+    @Test
+    void missing() throws IOException, GeneralSecurityException {
+        assertNotNull(TLSContextCache.get("src/test/resources/missing.jks", password, new PermissiveTrustManager()));
+    }
+}
@@ -0,0 +1,67 @@
+package com.mimecast.robin.smtp.transaction;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionMetricsTest {
+
+    @BeforeEach
+    @AfterEach
+    void reset() {
+        TransactionMetrics.reset();
+    }
+
+    @Test
+    void record() throws IOException {
+        SessionTransactionList sessionTransactionList = new SessionTransactionList();
+        sessionTransactionList.setTimer(() -> System.nanoTime() - 2_000_000L);
+        sessionTransactionList.addTransaction("SMTP", "220 Ready", false);
+        sessionTransactionList.addTransaction("EHLO", "EHLO example.com", "250 OK");
+
+        EnvelopeTransactionList envelopeTransactionList = new EnvelopeTransactionList();
+        sessionTransactionList.addEnvelope(envelopeTransactionList);
+        envelopeTransactionList.addTransaction("RCPT", "RCPT TO:<a@example.com>", "250 OK");
+        envelopeTransactionList.addTransaction("RCPT", "RCPT TO:<b@example.com>", "250 OK");
+
+        // Untimed transactions are ignored.
+        SessionTransactionList untimed = new SessionTransactionList();
+        untimed.addTransaction("DATA", "250 OK");
+
+        TransactionMetrics.record(sessionTransactionList);
+        TransactionMetrics.record(sessionTransactionList);
+        TransactionMetrics.record(untimed);
+
+        assertEquals(2, TransactionMetrics.getHistograms().get("SMTP").getCount());
+        assertEquals(4, TransactionMetrics.getHistograms().get("RCPT").getCount());
+        assertTrue(TransactionMetrics.getHistograms().get("EHLO").getMin() >= 2_000_000L);
+        assertNull(TransactionMetrics.getHistograms().get("DATA"));
+
+        JsonObject json = new Gson().fromJson(TransactionMetrics.toJson(), JsonObject.class);
+        assertEquals(4, json.getAsJsonObject("RCPT").get("count").getAsLong());
+        assertTrue(json.getAsJsonObject("EHLO").get("p99").getAsLong() >= 2_000_000L);
+    }
+
+    @Test
+    void export(@TempDir Path dir) throws IOException {
+        SessionTransactionList sessionTransactionList = new SessionTransactionList();
+        sessionTransactionList.setTimer(System::nanoTime);
+        sessionTransactionList.addTransaction("QUIT", "221 Bye");
+        TransactionMetrics.record(sessionTransactionList);
+
+        Path path = dir.resolve("latencies.json");
+        TransactionMetrics.export(path.toString());
+
+        JsonObject json = new Gson().fromJson(Files.readString(path), JsonObject.class);
+        assertEquals(1, json.getAsJsonObject("QUIT").get("count").getAsLong());
+    }
+}
@@ -81,4 +81,32 @@ class TransactionTest {
         assertEquals(command, transaction.toString());
 
     }
+
+    @Test
+    void timing() {
+        Transaction transaction = new Transaction("EHLO");
+        assertEquals(-1, transaction.getLatency());
+
+        transaction.setTiming(1000L, 5000L);
+        assertEquals(1000L, transaction.getStart());
+        assertEquals(5000L, transaction.getEnd());
+        assertEquals(4000L, transaction.getLatency());
+    }
+
+    @Test
+    void timer() {
+        SessionTransactionList sessionTransactionList = new SessionTransactionList();
+        long start = System.nanoTime();
+        sessionTransactionList.setTimer(() -> start);
+        sessionTransactionList.addTransaction("EHLO", "250 OK");
+
+        EnvelopeTransactionList envelopeTransactionList = new EnvelopeTransactionList();
+        sessionTransactionList.addEnvelope(envelopeTransactionList);
+        envelopeTransactionList.addTransaction("MAIL", "250 OK");
+
+        Transaction ehlo = sessionTransactionList.getLast("EHLO");
+        assertEquals(start, ehlo.getStart());
+        assertTrue(ehlo.getLatency() >= 0);
+        assertEquals(start, envelopeTransactionList.getMail().getStart());
+    }
 }
@@ -0,0 +1,85 @@
+package com.mimecast.robin.storage;
+
+import com.google.gson.Gson;
+import com.mimecast.robin.main.Foundation;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.naming.ConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RelayQueueTest {
+
+    private static final Set<String> failing = ConcurrentHashMap.newKeySet();
+
+    @BeforeAll
+    static void before() throws ConfigurationException {
+        Foundation.init("src/test/resources/");
+        RelayQueue.setDelivery(job -> !failing.contains(job.getId()));
+    }
+
+    @AfterAll
+    static void after() {
+        RelayQueue.setDelivery(null);
+    }
+
+    @Test
+    void delivered() throws IOException, InterruptedException {
+        String id = RelayQueue.enqueue("example.com", 25, "tony@example.com", Collections.singletonList("pepper@example.com"),
+                new ByteArrayInputStream("Subject: Relay\r\n\r\n".getBytes()));
+
+        Path file = RelayQueue.getSpool().resolve("relay-" + id + ".json");
+        Path content = RelayQueue.getSpool().resolve("relay-" + id + ".eml");
+        for (int i = 0; i < 50 && (Files.exists(file) || Files.exists(content)); i++) {
+            Thread.sleep(100);
+        }
+
+        assertFalse(Files.exists(file));
+        assertFalse(Files.exists(content));
+    }
+
+    @Test
+    void backoff() {
+        assertEquals(30L, RelayQueue.getBackoff(30L, 1));
+        assertEquals(120L, RelayQueue.getBackoff(30L, 3));
+        assertEquals(3600L, RelayQueue.getBackoff(30L, 8));
+        assertEquals(3600L, RelayQueue.getBackoff(30L, 64));
+        assertEquals(3600L, RelayQueue.getBackoff(30L, 1000));
+    }
+
+    @Test
+    void retried() throws IOException, InterruptedException {
+        String id = "00000000-retried";
+        failing.add(id);
+
+        Path content = RelayQueue.getSpool().resolve("relay-" + id + ".eml");
+        Path file = RelayQueue.getSpool().resolve("relay-" + id + ".json");
+        Files.writeString(content, "Subject: Relay\r\n\r\n");
+        Files.writeString(file, new Gson().toJson(new RelayQueue.Job(id, "example.com", 25, "tony@example.com", Collections.singletonList("pepper@example.com"))));
+
+        RelayQueue.start();
+
+        RelayQueue.Job job = null;
+        for (int i = 0; i < 50 && (job == null || job.getAttempts() == 0); i++) {
+            Thread.sleep(100);
+            job = new Gson().fromJson(Files.readString(file, StandardCharsets.UTF_8), RelayQueue.Job.class);
+        }
+
+        assertNotNull(job);
+        assertEquals(1, job.getAttempts());
+        assertTrue(Files.exists(content));
+
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(content);
+    }
+}
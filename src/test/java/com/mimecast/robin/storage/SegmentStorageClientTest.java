@@ -0,0 +1,99 @@
+package com.mimecast.robin.storage;
+
+import com.mimecast.robin.main.Factories;
+import com.mimecast.robin.main.Foundation;
+import com.mimecast.robin.smtp.connection.Connection;
+import com.mimecast.robin.smtp.connection.ConnectionMock;
+import com.mimecast.robin.smtp.session.Session;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.mail.internet.AddressException;
+import javax.mail.internet.InternetAddress;
+import javax.naming.ConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentStorageClientTest {
+
+    @BeforeAll
+    static void before() throws ConfigurationException {
+        Foundation.init("src/test/resources/");
+    }
+
+    @Test
+    void stream() throws AddressException, IOException {
+        Connection connection = new Connection(new Session().addRcpt(new InternetAddress("vmarian@mimecast.com")));
+        SegmentStorageClient storageClient = (SegmentStorageClient) new SegmentStorageClient().setConnection(new ConnectionMock(Factories.getSession())).setExtension("eml").setConnection(connection);
+
+        String content = "Mime-Version: 1.0\r\n";
+        storageClient.getStream().write(content.getBytes());
+        storageClient.save();
+
+        assertTrue(storageClient.getToken().contains("/tmp/store/mimecast.com/vmarian/"));
+        try (InputStream inputStream = SegmentStorageClient.getStore().open(storageClient.getToken())) {
+            assertEquals(content, new String(inputStream.readAllBytes()));
+        }
+    }
+
+    @Test
+    void filename() throws AddressException, IOException {
+        Connection connection = new Connection(new Session().addRcpt(new InternetAddress("vmarian@mimecast.com")));
+        SegmentStorageClient storageClient = (SegmentStorageClient) new SegmentStorageClient().setConnection(new ConnectionMock(Factories.getSession())).setExtension("dat").setConnection(connection);
+
+        String content = "Mime-Version: 1.0\r\n" +
+                "X-Robin-Filename: robin-segment.eml\r\n" +
+                "\r\n";
+        storageClient.getStream().write(content.getBytes());
+
+        String token = storageClient.getToken();
+        assertTrue(token.endsWith(".dat"));
+
+        storageClient.save();
+
+        assertTrue(storageClient.getToken().endsWith("robin-segment.eml"));
+        assertFalse(SegmentStorageClient.getStore().contains(token));
+        try (InputStream inputStream = SegmentStorageClient.getStore().open(storageClient.getToken())) {
+            assertEquals(content, new String(inputStream.readAllBytes()));
+        }
+    }
+
+    @Test
+    void store(@TempDir Path dir) throws IOException {
+        SegmentStore store = new SegmentStore(dir, 16, false);
+        store.append("first", new ByteArrayInputStream("0123456789".getBytes()), 10);
+        store.append("second", new ByteArrayInputStream("abcdefghij".getBytes()), 10);
+        store.append("large", new ByteArrayInputStream("ABCDEFGHIJKLMNOPQRSTUVWXYZ".getBytes()), 26);
+        assertTrue(store.rename("first", "renamed"));
+        assertTrue(store.rename("second", "second"));
+        assertTrue(store.contains("second"));
+        store.close();
+
+        assertTrue(Files.exists(store.getSegmentPath(3)));
+        assertEquals(26, Files.size(store.getSegmentPath(3)));
+
+        store = new SegmentStore(dir, 16, true);
+        assertFalse(store.contains("first"));
+        assertTrue(store.contains("second"));
+        assertNull(store.open("missing"));
+        try (InputStream inputStream = store.open("renamed")) {
+            assertEquals("0123456789", new String(inputStream.readAllBytes()));
+        }
+        try (InputStream inputStream = store.open("large")) {
+            assertEquals("ABCDEFGHIJKLMNOPQRSTUVWXYZ", new String(inputStream.readAllBytes()));
+        }
+
+        store.append("mapped", new ByteArrayInputStream("mapped".getBytes()), 6);
+        try (InputStream inputStream = store.open("mapped")) {
+            assertEquals("mapped", new String(inputStream.readAllBytes()));
+        }
+        assertTrue(Files.exists(store.getSegmentPath(4)));
+        store.close();
+    }
+}
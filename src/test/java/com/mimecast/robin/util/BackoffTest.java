@@ -0,0 +1,59 @@
+package com.mimecast.robin.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackoffTest {
+
+    @Test
+    void retry() {
+        Backoff backoff = new Backoff(0, 0, 3, 0L);
+
+        int attempts = 0;
+        while (backoff.next()) {
+            attempts++;
+            assertEquals(attempts == 3, backoff.isLast());
+        }
+
+        assertEquals(3, attempts);
+        assertEquals(3, backoff.getAttempt());
+    }
+
+    @Test
+    void window() {
+        long start = System.currentTimeMillis();
+        Backoff backoff = new Backoff(0, 1, 2, 0L);
+
+        int attempts = 0;
+        while (backoff.next()) {
+            attempts++;
+        }
+
+        // Backoff between half and full second polls within the one second window.
+        assertTrue(attempts >= 2);
+        assertTrue(System.currentTimeMillis() - start < 3000L);
+    }
+
+    @Test
+    void deadline() {
+        Backoff backoff = new Backoff(0, 5, 10, System.currentTimeMillis() - 1L);
+
+        assertTrue(backoff.next());
+        assertTrue(backoff.isLast());
+        assertFalse(backoff.next());
+    }
+
+    @Test
+    void interrupted() {
+        Backoff backoff = new Backoff(0, 5, 10, 0L);
+
+        assertTrue(backoff.next());
+        Thread.currentThread().interrupt();
+        try {
+            assertFalse(backoff.next());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
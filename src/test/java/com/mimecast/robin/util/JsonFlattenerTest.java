@@ -0,0 +1,64 @@
+package com.mimecast.robin.util;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonFlattenerTest {
+
+    private static final String JSON = "{\"meta\":{\"status\":200,\"took\":1.5},\"data\":[{\"valid\":false,\"id\":null,\"tags\":[]," +
+            "\"nested\":[[1,2],{}]}],\"errors\":[{\"key\":\"EndpointException\",\"errors\":[{\"code\":\"502\"," +
+            "\"message\":\"Unable to process request!\",\"retryable\":false}]}],\"empty\":{}}";
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flattenSameAsMapUtils() throws IOException {
+        List<String> expected = new ArrayList<>();
+        MapUtils.flattenMap(new Gson().fromJson(JSON, Map.class), "", expected);
+
+        assertEquals(expected, new JsonFlattener().flatten(JSON));
+    }
+
+    @Test
+    void flattenPaths() throws IOException {
+        List<String> data = new JsonFlattener(List.of("meta>status", "errors>0>errors>0>mess")).flatten(JSON);
+
+        assertEquals(2, data.size());
+        assertEquals("meta>status: 200.0", data.get(0));
+        assertEquals("errors>0>errors>0>message: Unable to process request!", data.get(1));
+    }
+
+    @Test
+    void flattenNoPaths() throws IOException {
+        assertTrue(new JsonFlattener(List.of()).flatten(JSON).isEmpty());
+    }
+
+    @Test
+    void flattenStop() throws IOException {
+        List<String> data = new ArrayList<>();
+        boolean complete = new JsonFlattener().flatten(new StringReader(JSON), entry -> {
+            data.add(entry);
+            return !entry.startsWith("data>0>valid");
+        });
+
+        assertFalse(complete);
+        assertEquals(List.of("meta>status: 200.0", "meta>took: 1.5", "data>0>valid: false"), data);
+    }
+
+    @Test
+    void flattenNonObject() throws IOException {
+        assertTrue(new JsonFlattener().flatten("").isEmpty());
+        assertTrue(new JsonFlattener().flatten("[1,2]").isEmpty());
+        assertThrows(IOException.class, () -> new JsonFlattener().flatten("{\"a\":"));
+    }
+}
@@ -0,0 +1,63 @@
+package com.mimecast.robin.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void empty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(1000, histogram.getMin());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_500, histogram.getMean());
+
+        // Within bucket precision.
+        assertEquals(5_000_000, histogram.getPercentile(50), 5_000_000 / 64D);
+        assertEquals(9_900_000, histogram.getPercentile(99), 9_900_000 / 64D);
+        assertEquals(10_000_000, histogram.getPercentile(100));
+    }
+
+    @Test
+    void buckets() {
+        long previous = -1;
+        for (long value : new long[]{0, 1, 127, 128, 129, 255, 256, 1_000_000, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(index >= previous, "index order " + value);
+            assertTrue(LatencyHistogram.highest(index) >= value, "highest " + value);
+            previous = index;
+        }
+
+        assertEquals(127, LatencyHistogram.index(127));
+        assertEquals(LatencyHistogram.index(128), LatencyHistogram.index(129));
+    }
+
+    @Test
+    void add() {
+        LatencyHistogram one = new LatencyHistogram().record(10).record(20);
+        LatencyHistogram two = new LatencyHistogram().record(5).record(100);
+
+        one.add(two);
+        assertEquals(4, one.getCount());
+        assertEquals(5, one.getMin());
+        assertEquals(100, one.getMax());
+        assertEquals(100, one.getPercentile(100));
+    }
+}
@@ -0,0 +1,60 @@
+package com.mimecast.robin.util;
+
+import com.mimecast.robin.smtp.session.Session;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MagicTemplateTest {
+
+    @Test
+    void compile() {
+        assertSame(MagicTemplate.compile("Hello {$name}"), MagicTemplate.compile("Hello {$name}"));
+
+        assertFalse(MagicTemplate.compile("No magic here").hasVariables());
+        assertFalse(MagicTemplate.compile("{not magic} {$} {$a[x]} {(a)b$c}").hasVariables());
+        assertTrue(MagicTemplate.compile("{{$name}}").hasVariables());
+    }
+
+    @Test
+    void render() {
+        Session session = new Session();
+        session.putMagic("name", "Robin");
+        session.putMagic("port", "25");
+
+        assertEquals("Hello Robin:25!", MagicTemplate.compile("Hello {$name}:{$port}!").render(session, false));
+        assertEquals("{Robin}", MagicTemplate.compile("{{$name}}").render(session, false));
+        assertEquals("ROBIN robin", MagicTemplate.compile("{toUpperCase$name} {toLowerCase$name}").render(session, false));
+        assertEquals("{not magic} {$}", MagicTemplate.compile("{not magic} {$}").render(session, false));
+    }
+
+    @Test
+    void renderMissing() {
+        Session session = new Session();
+
+        assertEquals("a {$missing} b", MagicTemplate.compile("a {$missing} b").render(session, false));
+        assertEquals("a null b", MagicTemplate.compile("a {$missing} b").render(session, true));
+    }
+
+    @Test
+    void renderRepeated() {
+        Session session = new Session();
+        session.putMagic("hosts", List.of("a", "b", "c", "d", "e", "f", "g", "h"));
+
+        for (int i = 0; i < 10; i++) {
+            String[] rendered = MagicTemplate.compile("{$hosts[?]}|{$hosts[?]}").render(session, false).split("\\|");
+            assertEquals(rendered[0], rendered[1]);
+        }
+    }
+
+    @Test
+    void renderNoRescan() {
+        Session session = new Session();
+        session.putMagic("first", "{$second}");
+        session.putMagic("second", "value");
+
+        assertEquals("{$second} value", MagicTemplate.compile("{$first} {$second}").render(session, false));
+    }
+}
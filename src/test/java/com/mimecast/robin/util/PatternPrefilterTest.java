@@ -0,0 +1,89 @@
+package com.mimecast.robin.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatternPrefilterTest {
+
+    @Test
+    void getLiteral() {
+        assertEquals("mail from", literal("MAIL FROM"));
+        assertEquals("<tony@example", literal("<tony@example.com>"));
+        assertEquals("<tony@example.com>", literal(Pattern.quote("<tony@example.com>")));
+        assertEquals("250 ok ", literal("250 ok [a-z]+"));
+        assertEquals("rescueme", literal(Pattern.quote("rescueMe")));
+        assertEquals("size=", literal("SIZE=\\d+"));
+        assertEquals("250", literal("^250.*"));
+        assertEquals("example.", literal("example\\.c?om"));
+        assertEquals("ab", literal("abc*"));
+        assertEquals("queued", literal("(?i)queued"));
+        assertEquals("", literal("accepted|queued"));
+        assertEquals("", literal("(?!rejected)"));
+        assertEquals("", literal("\\x41bc"));
+        assertEquals("", literal("(?x)a b c"));
+        assertEquals("", literal("[]a]bcd"));
+        assertEquals("]bc]d", literal("[a]]bc]d"));
+    }
+
+    @Test
+    void candidates() {
+        List<Pattern> patterns = Arrays.asList(
+                Pattern.compile("MAIL FROM", Pattern.CASE_INSENSITIVE),
+                Pattern.compile("RCPT TO:<(.*)>", Pattern.CASE_INSENSITIVE),
+                Pattern.compile("\\d{3}", Pattern.CASE_INSENSITIVE),
+                Pattern.compile("ail", Pattern.CASE_INSENSITIVE)
+        );
+        PatternPrefilter prefilter = new PatternPrefilter(patterns);
+
+        BitSet candidates = prefilter.candidates("> mail from:<tony@example.com>");
+        assertTrue(candidates.get(0));
+        assertFalse(candidates.get(1));
+        assertTrue(candidates.get(2));
+        assertTrue(candidates.get(3));
+
+        assertTrue(prefilter.find(0, "> mail from:<tony@example.com>", candidates));
+        assertFalse(prefilter.find(2, "> mail from:<tony@example.com>", candidates));
+        assertFalse(prefilter.findAll("> mail from:<tony@example.com>"));
+        assertFalse(prefilter.findAll("250 RCPT TO:<pepper@example.com>"));
+        assertTrue(new PatternPrefilter(patterns.subList(1, 3)).findAll("250 RCPT TO:<pepper@example.com>"));
+        assertTrue(new PatternPrefilter(List.of()).findAll("anything"));
+    }
+
+    @Test
+    void neverMisses() {
+        List<Pattern> patterns = Arrays.asList(
+                Pattern.compile("she", Pattern.CASE_INSENSITIVE),
+                Pattern.compile("he", Pattern.CASE_INSENSITIVE),
+                Pattern.compile("hers", Pattern.CASE_INSENSITIVE),
+                Pattern.compile("his", Pattern.CASE_INSENSITIVE),
+                Pattern.compile("s+h?e", Pattern.CASE_INSENSITIVE),
+                Pattern.compile("\\Qh.s\\E", Pattern.CASE_INSENSITIVE)
+        );
+        PatternPrefilter prefilter = new PatternPrefilter(patterns);
+
+        String alphabet = "hesrH.";
+        java.util.Random random = new java.util.Random(42);
+        for (int n = 0; n < 2000; n++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+
+            String string = sb.toString();
+            BitSet candidates = prefilter.candidates(string);
+            for (int i = 0; i < patterns.size(); i++) {
+                assertEquals(patterns.get(i).matcher(string).find(), prefilter.find(i, string, candidates), patterns.get(i) + " on " + string);
+            }
+        }
+    }
+
+    private static String literal(String regex) {
+        return PatternPrefilter.getLiteral(Pattern.compile(regex, Pattern.CASE_INSENSITIVE)).toLowerCase();
+    }
+}